@@ -0,0 +1,88 @@
+/*
+ * Copyright 2015 Ayuget
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ayuget.redface.data.api.hfr;
+
+import android.os.Build;
+
+import com.ayuget.redface.BaseTestCase;
+import com.ayuget.redface.BuildConfig;
+import com.ayuget.redface.settings.RedfaceSettings;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.IOException;
+
+import static org.mockito.Mockito.mock;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = Build.VERSION_CODES.LOLLIPOP)
+public class ParallelPostsParserBenchmark extends BaseTestCase {
+    private static final int BENCHMARK_WARMUP_ITERATIONS = 10;
+
+    private static final int BENCHMARK_ITERATIONS = 50;
+
+    private ParallelPostsParser parallelPostsParser;
+
+    @Before
+    public void setUp() {
+        PostsTweaker postsTweaker = new PostsTweaker();
+        postsTweaker.mdEndpoints = new HFREndpoints();
+        postsTweaker.appSettings = mock(RedfaceSettings.class);
+
+        TweakedPostsCache tweakedPostsCache = new TweakedPostsCache();
+        tweakedPostsCache.postsTweaker = postsTweaker;
+        tweakedPostsCache.postsMinifier = new PostsMinifier();
+
+        parallelPostsParser = new ParallelPostsParser();
+        parallelPostsParser.tweakedPostsCache = tweakedPostsCache;
+    }
+
+    private void parseInParallel(String source) {
+        parallelPostsParser.parseInParallel(source).toBlocking().single();
+    }
+
+    @Test
+    public void benchmark_parallelVersusSequential() throws IOException {
+        String source = readAssetFile("hfr_posts_page.html");
+
+        for (int i = 0; i < BENCHMARK_WARMUP_ITERATIONS; i++) {
+            parallelPostsParser.parseSequentially(source);
+            parseInParallel(source);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+            parallelPostsParser.parseSequentially(source);
+        }
+        long sequentialTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+            parseInParallel(source);
+        }
+        long parallelTime = System.nanoTime() - start;
+
+        System.out.println(String.format("Posts page parsing (%d cores) : sequential = %.2f ms, parallel = %.2f ms",
+                Runtime.getRuntime().availableProcessors(),
+                sequentialTime / (BENCHMARK_ITERATIONS * 1e6),
+                parallelTime / (BENCHMARK_ITERATIONS * 1e6)));
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2015 Ayuget
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ayuget.redface.data.api.hfr;
+
+import android.os.Build;
+
+import com.ayuget.redface.BaseTestCase;
+import com.ayuget.redface.BuildConfig;
+import com.ayuget.redface.data.api.hfr.transforms.HTMLToPostList;
+import com.ayuget.redface.data.api.model.Post;
+import com.ayuget.redface.settings.RedfaceSettings;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.mockito.Mockito.mock;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = Build.VERSION_CODES.LOLLIPOP)
+public class PostsTweakerBenchmark extends BaseTestCase {
+    private static final int BENCHMARK_WARMUP_ITERATIONS = 20;
+
+    private static final int BENCHMARK_ITERATIONS = 100;
+
+    private static final String[] FIXTURES = { "hfr_posts_page.html", "hfr_topic.html", "hfr_private_message_page.html" };
+
+    private PostsTweaker postsTweaker;
+
+    private RegexPostsTweaker regexPostsTweaker;
+
+    @Before
+    public void setUp() {
+        HFREndpoints hfrEndpoints = new HFREndpoints();
+
+        postsTweaker = new PostsTweaker();
+        postsTweaker.mdEndpoints = hfrEndpoints;
+        postsTweaker.appSettings = mock(RedfaceSettings.class);
+
+        regexPostsTweaker = new RegexPostsTweaker(hfrEndpoints);
+    }
+
+    @Test
+    public void benchmark_singlePassVersusRegexes() throws IOException {
+        List<Post> posts = new ArrayList<>();
+        List<String> contents = new ArrayList<>();
+
+        for (String fixture : FIXTURES) {
+            for (Post post : new HTMLToPostList().call(readAssetFile(fixture))) {
+                posts.add(post);
+                contents.add(post.getHtmlContent());
+            }
+        }
+
+        for (int i = 0; i < BENCHMARK_WARMUP_ITERATIONS; i++) {
+            for (int j = 0; j < posts.size(); j++) {
+                regexPostsTweaker.tweak(posts.get(j).getId(), contents.get(j));
+                posts.get(j).setHtmlContent(contents.get(j));
+                postsTweaker.tweak(posts.get(j));
+            }
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+            for (int j = 0; j < posts.size(); j++) {
+                regexPostsTweaker.tweak(posts.get(j).getId(), contents.get(j));
+            }
+        }
+        long regexesTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+            for (int j = 0; j < posts.size(); j++) {
+                posts.get(j).setHtmlContent(contents.get(j));
+                postsTweaker.tweak(posts.get(j));
+            }
+        }
+        long singlePassTime = System.nanoTime() - start;
+
+        System.out.println(String.format("Tweaking %d posts : regexes = %.2f ms, single pass = %.2f ms",
+                posts.size(),
+                regexesTime / (BENCHMARK_ITERATIONS * 1e6),
+                singlePassTime / (BENCHMARK_ITERATIONS * 1e6)));
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2015 Ayuget
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ayuget.redface.ui.template;
+
+import android.content.Context;
+import android.os.Build;
+
+import com.ayuget.redface.BaseTestCase;
+import com.ayuget.redface.BuildConfig;
+import com.ayuget.redface.account.UserManager;
+import com.ayuget.redface.data.api.hfr.PostsMinifier;
+import com.ayuget.redface.data.api.hfr.transforms.HTMLToPostList;
+import com.ayuget.redface.data.api.model.Post;
+import com.ayuget.redface.ui.misc.ThemeManager;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = Build.VERSION_CODES.LOLLIPOP)
+public class PostsTemplateBenchmark extends BaseTestCase {
+    private static final int BENCHMARK_WARMUP_ITERATIONS = 20;
+
+    private static final int BENCHMARK_ITERATIONS = 100;
+
+    private PhrasePostRenderer phrasePostRenderer;
+
+    private PostsTemplate postsTemplate;
+
+    private List<Post> posts;
+
+    @Before
+    public void setUp() throws IOException {
+        Context context = RuntimeEnvironment.application;
+
+        UserManager userManager = mock(UserManager.class);
+        when(userManager.isActiveUserLoggedIn()).thenReturn(true);
+        when(userManager.isActiveUser(anyString())).thenReturn(false);
+
+        ThemeManager themeManager = mock(ThemeManager.class);
+        when(themeManager.getActiveThemeCssClass()).thenReturn("theme-light");
+        when(themeManager.getFontSizeCssClass()).thenReturn("font-normal");
+
+        PostsMinifier postsMinifier = new PostsMinifier();
+
+        AvatarTemplate avatarTemplate = new AvatarTemplate(context, postsMinifier);
+        PostExtraDetailsTemplate extraDetailsTemplate = new PostExtraDetailsTemplate(context, postsMinifier);
+        PostActionsTemplate postActionsTemplate = new PostActionsTemplate(context, postsMinifier, userManager);
+        QuickActionsTemplate quickActionsTemplate = new QuickActionsTemplate(context, postsMinifier, userManager);
+
+        PostTemplate postTemplate = new PostTemplate(context, postsMinifier, userManager, avatarTemplate, extraDetailsTemplate, postActionsTemplate, quickActionsTemplate);
+        postsTemplate = new PostsTemplate(context, postsMinifier, postTemplate, themeManager);
+
+        phrasePostRenderer = new PhrasePostRenderer(postTemplate, avatarTemplate, extraDetailsTemplate, postActionsTemplate, quickActionsTemplate);
+
+        posts = new HTMLToPostList().call(readAssetFile("hfr_posts_page.html"));
+    }
+
+    @Test
+    public void benchmark_renderPostsPage() {
+        for (int i = 0; i < BENCHMARK_WARMUP_ITERATIONS; i++) {
+            for (Post post : posts) {
+                phrasePostRenderer.render(post, new StringBuilder());
+            }
+            postsTemplate.render(posts);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+            StringBuilder stream = new StringBuilder();
+            for (Post post : posts) {
+                phrasePostRenderer.render(post, stream);
+            }
+        }
+        long phraseTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+            postsTemplate.render(posts);
+        }
+        long compiledTime = System.nanoTime() - start;
+
+        System.out.println(String.format("Rendering %d posts : Phrase (posts only) = %.2f ms, compiled templates (whole page) = %.2f ms",
+                posts.size(),
+                phraseTime / (BENCHMARK_ITERATIONS * 1e6),
+                compiledTime / (BENCHMARK_ITERATIONS * 1e6)));
+    }
+}
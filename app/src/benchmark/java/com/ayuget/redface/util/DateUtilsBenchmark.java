@@ -0,0 +1,85 @@
+/*
+ * Copyright 2015 Ayuget
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ayuget.redface.util;
+
+import android.os.Build;
+
+import com.ayuget.redface.BaseTestCase;
+import com.ayuget.redface.BuildConfig;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.GregorianCalendar;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = Build.VERSION_CODES.LOLLIPOP)
+public class DateUtilsBenchmark extends BaseTestCase {
+    private static final int BENCHMARK_WARMUP_ITERATIONS = 100000;
+
+    private static final int BENCHMARK_ITERATIONS = 200000;
+
+    private static long parse(String date) {
+        return DateUtils.parseHTMLDate(date, 0, date.length());
+    }
+
+    /**
+     * Previous implementation : one string per field, then a calendar per date
+     */
+    private static long parseWithCalendar(String date) {
+        int timeStart = date.lastIndexOf(';') + 1;
+
+        String day = date.substring(0, 2);
+        String month = date.substring(3, 5);
+        String year = date.substring(6, 10);
+        String hours = date.substring(timeStart, timeStart + 2);
+        String minutes = date.substring(timeStart + 3, timeStart + 5);
+        String seconds = date.substring(timeStart + 6, timeStart + 8);
+
+        return new GregorianCalendar(Integer.parseInt(year), Integer.parseInt(month) - 1, Integer.parseInt(day),
+                Integer.parseInt(hours), Integer.parseInt(minutes), Integer.parseInt(seconds)).getTimeInMillis();
+    }
+
+    @Test
+    public void benchmark_offsetTableVersusCalendar() {
+        String date = "19-02-2015&nbsp;&agrave;&nbsp;20:14:31";
+        long checksum = 0;
+
+        for (int i = 0; i < BENCHMARK_WARMUP_ITERATIONS; i++) {
+            checksum += parse(date) + parseWithCalendar(date);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+            checksum += parseWithCalendar(date);
+        }
+        long calendarTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+            checksum += parse(date);
+        }
+        long offsetTableTime = System.nanoTime() - start;
+
+        System.out.println(String.format("Date parsing (checksum %d) : calendar = %.0f ns, offset table = %.0f ns",
+                checksum,
+                calendarTime / (double) BENCHMARK_ITERATIONS,
+                offsetTableTime / (double) BENCHMARK_ITERATIONS));
+    }
+}
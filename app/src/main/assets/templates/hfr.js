@@ -11,16 +11,32 @@ function scrollToBottom() {
 */
 function scrollToElement(id) {
     var elem = document.getElementById(id);
+
+    if (elem != null) {
+        window.scrollTo(getElementLeft(elem), getElementTop(elem));
+    }
+}
+
+function getElementLeft(elem) {
     var x = 0;
-    var y = 0;
 
     while (elem != null) {
         x += elem.offsetLeft;
+        elem = elem.offsetParent;
+    }
+
+    return x;
+}
+
+function getElementTop(elem) {
+    var y = 0;
+
+    while (elem != null) {
         y += elem.offsetTop;
         elem = elem.offsetParent;
     }
 
-    window.scrollTo(x, y);
+    return y;
 }
 
 /**
@@ -34,6 +50,7 @@ function toggleSpoiler(obj){
 		}
 		else if (div[0].style.visibility == "hidden" || !div[0].style.visibility) {
 			div[0].style.visibility = 'visible';
+			scheduleImagesLoading();
 		}
 	}
 }
@@ -51,6 +68,26 @@ function handleUrl(event, postId, url) {
     event.stopPropagation();
 }
 
+/**
+* Expands a quote collapsed by PostsTweaker (deeply nested quote) : its content is taken from
+* the post data held by the app, quotes nested deeper within it being collapsed as well
+*/
+function expandQuote(event, stub, postId, index) {
+    event = event || window.event;
+    event.stopPropagation();
+
+    var wrapper = document.createElement('div');
+    wrapper.innerHTML = Android.getCollapsedQuote(postId, index);
+    reportDataSaved(wrapper);
+
+    while (wrapper.firstChild) {
+        stub.parentNode.insertBefore(wrapper.firstChild, stub);
+    }
+
+    stub.parentNode.removeChild(stub);
+    scheduleImagesLoading();
+}
+
 /**
 * Toggles overflow menu for a certain post
 * @param id post id
@@ -138,13 +175,13 @@ var addMulitListener = function(el, events, callback) {
     });
 };
 
-document.addEventListener("DOMContentLoaded", function(event) {
-    /**
-     * This function is adding ripple effect to elements
-     * @param  {[object]} e [DOM objects, that should apply ripple effect]
-     * @return {[null]}   [description]
-     */
-    addMulitListener(document.querySelectorAll('[material]'), 'click touchstart', function(e) {
+/**
+ * This function is adding ripple effect to elements
+ * @param  {[object]} elements [DOM objects, that should apply ripple effect]
+ * @return {[null]}   [description]
+ */
+function addRippleEffect(elements) {
+    addMulitListener(elements, 'click touchstart', function(e) {
         var ripple = this.querySelector('.ripple');
         var eventType = e.type;
         /**
@@ -186,4 +223,459 @@ document.addEventListener("DOMContentLoaded", function(event) {
         ripple.style.left = x + 'px';
         ripple.classList.add('animate');
     });
+}
+
+document.addEventListener("DOMContentLoaded", function(event) {
+    addRippleEffect(document.querySelectorAll('[material]'));
+    loadVisibleImages();
+    reportDataSaved(document);
 });
+
+/**
+* Replaces the displayed posts (page shell), posts being given as
+* [{id: postId, html: renderedPost}, ...]
+*/
+function setPosts(posts) {
+    var container = document.getElementById('posts');
+    var html = [];
+    var i;
+
+    for (i = 0; i < posts.length; i++) {
+        html.push(posts[i].html);
+    }
+
+    container.innerHTML = html.join('');
+    addRippleEffect(container.querySelectorAll('[material]'));
+    loadVisibleImages();
+    reportDataSaved(container);
+    scheduleContinuousScrollCheck();
+
+    Android.onPostsRendered();
+}
+
+/**
+* Updates the displayed posts (page shell) : removes posts by id, then replaces or inserts
+* the given ones, given as [{id: postId, html: renderedPost, next: nextPostId}, ...], each
+* post being inserted before the post following it on the page (next is null for the last one)
+*/
+function updatePosts(removedIds, posts) {
+    var container = document.getElementById('posts');
+    var wrapper = document.createElement('div');
+    var i;
+
+    for (i = 0; i < removedIds.length; i++) {
+        var removedPost = document.getElementById('post' + removedIds[i]);
+
+        if (removedPost !== null) {
+            removedPost.parentNode.removeChild(removedPost);
+        }
+    }
+
+    // Posts are processed backwards, so that following posts are always in the DOM already
+    for (i = posts.length - 1; i >= 0; i--) {
+        wrapper.innerHTML = posts[i].html;
+
+        var post = wrapper.firstElementChild;
+        var displayedPost = document.getElementById('post' + posts[i].id);
+
+        if (displayedPost !== null) {
+            displayedPost.parentNode.replaceChild(post, displayedPost);
+        }
+        else {
+            var nextPost = posts[i].next === null ? null : document.getElementById('post' + posts[i].next);
+            container.insertBefore(post, nextPost);
+        }
+
+        addRippleEffect(post.querySelectorAll('[material]'));
+        reportDataSaved(post);
+    }
+
+    loadVisibleImages();
+
+    Android.onPostsRendered();
+}
+
+/**
+* Removes all displayed posts (page shell), once the page is not displayed anymore
+*/
+function clearPosts() {
+    var container = document.getElementById('posts');
+    var sections = document.querySelectorAll('.topic-page');
+    var i;
+
+    for (i = 0; i < sections.length; i++) {
+        if (sections[i] !== container) {
+            sections[i].parentNode.removeChild(sections[i]);
+        }
+    }
+
+    container.innerHTML = '';
+    container.classList.remove('topic-page', 'evicted');
+    container.removeAttribute('data-page');
+    container.style.height = '';
+    continuousScroll = null;
+    pendingPagePosition = null;
+}
+
+/**
+* Applies another theme and font size to the page, without reloading it : body classes are
+* only the theme and font size ones
+*/
+function setThemeClass(themeClass) {
+    document.body.className = themeClass;
+}
+
+/**
+* Images loading is deferred (see PostsTweaker) : images are loaded once they get within the
+* look-ahead distance of the viewport, given by the app as a percentage of the screen height
+*/
+var imagesLookAhead = null;
+var isImagesLoadingScheduled = false;
+
+function getImagesLookAhead() {
+    if (imagesLookAhead === null) {
+        imagesLookAhead = typeof Android !== 'undefined' && Android.getImagesLookAhead ? Android.getImagesLookAhead() : 100;
+    }
+
+    return window.innerHeight * imagesLookAhead / 100;
+}
+
+/**
+* Loads deferred images close to the viewport. Images being in (roughly) vertical order, the
+* lookup stops at the first image below the look-ahead distance.
+*/
+function loadVisibleImages() {
+    isImagesLoadingScheduled = false;
+
+    var images = document.querySelectorAll('img[data-src]:not([src])');
+    var lookAhead = getImagesLookAhead();
+    var top = -lookAhead;
+    var bottom = window.innerHeight + lookAhead;
+    var i;
+
+    for (i = 0; i < images.length; i++) {
+        var rect = images[i].getBoundingClientRect();
+
+        if (rect.top > bottom) {
+            break;
+        }
+
+        // Images of hidden spoilers are loaded once spoilers are shown
+        if (rect.bottom >= top && window.getComputedStyle(images[i]).visibility !== 'hidden') {
+            loadImage(images[i], rect.height);
+        }
+    }
+}
+
+/**
+* Loads a deferred image. Page is scrolled along with images growing above the viewport, so
+* that displayed posts don't move.
+*/
+function loadImage(image, placeholderHeight) {
+    var onLoaded = function() {
+        image.removeAttribute('data-src');
+
+        var rect = image.getBoundingClientRect();
+        if (rect.top < 0 && rect.height != placeholderHeight) {
+            window.scrollBy(0, rect.height - placeholderHeight);
+        }
+    };
+
+    image.addEventListener('load', onLoaded);
+    image.addEventListener('error', onLoaded);
+    image.src = image.getAttribute('data-src');
+}
+
+/**
+* Loads deferred images at most every 100 ms while scrolling
+*/
+function scheduleImagesLoading() {
+    if (!isImagesLoadingScheduled) {
+        isImagesLoadingScheduled = true;
+        setTimeout(loadVisibleImages, 100);
+    }
+}
+
+window.addEventListener('scroll', scheduleImagesLoading);
+window.addEventListener('resize', scheduleImagesLoading);
+
+/**
+* Loads an image on demand (data saver, see PostsTweaker) : the tapped placeholder is replaced
+* by the image following it
+*/
+function loadImageOnDemand(event, placeholder) {
+    event = event || window.event;
+    event.stopPropagation();
+
+    var image = placeholder.nextElementSibling;
+
+    if (image !== null && image.hasAttribute('data-on-demand-src')) {
+        image.setAttribute('data-src', image.getAttribute('data-on-demand-src'));
+        image.removeAttribute('data-on-demand-src');
+        loadImage(image, 0);
+    }
+
+    placeholder.parentNode.removeChild(placeholder);
+    onDataSaved(-1, -parseInt(placeholder.getAttribute('data-bytes'), 10));
+}
+
+/**
+* Reports images not loaded (data saver) within a page or posts just inserted, along with their
+* estimated size
+*/
+function reportDataSaved(root) {
+    var placeholders = root.querySelectorAll('.image-on-demand');
+    var bytes = 0;
+    var i;
+
+    for (i = 0; i < placeholders.length; i++) {
+        bytes += parseInt(placeholders[i].getAttribute('data-bytes'), 10);
+    }
+
+    if (placeholders.length > 0) {
+        onDataSaved(placeholders.length, bytes);
+    }
+}
+
+function onDataSaved(imagesCount, bytes) {
+    if (typeof Android !== 'undefined' && Android.onDataSaved && !isNaN(bytes)) {
+        Android.onDataSaved(imagesCount, bytes);
+    }
+}
+
+
+/**
+* Continuous scroll mode (page shell) : pages following the displayed one are appended below it
+* once the reader gets close to the bottom, each page in its own section. Pages are requested to
+* the app, which sends them back to showPage(). Sections far from the viewport are evicted from
+* the DOM, being replaced by an empty block of the same height so that the page doesn't move,
+* and are requested again once they get close to the viewport.
+*/
+var continuousScroll = null;
+var pendingPagePosition = null;
+var isContinuousScrollCheckScheduled = false;
+
+/**
+* Delay before a page which failed to load is requested again, in ms
+*/
+var PAGE_REQUEST_RETRY_DELAY = 5000;
+
+/**
+* Page positions, see PagePosition
+*/
+var PAGE_TOP = -1;
+var PAGE_BOTTOM = -2;
+
+function enableContinuousScroll(page, pagesCount, maxLoadedPages) {
+    var container = document.getElementById('posts');
+    container.classList.add('topic-page');
+    container.setAttribute('data-page', page);
+
+    continuousScroll = {
+        pagesCount: pagesCount,
+        maxLoadedPages: maxLoadedPages,
+        readPage: page,
+        requestedPage: null,
+        retryTime: 0
+    };
+
+    scheduleContinuousScrollCheck();
+}
+
+function setPagesCount(pagesCount) {
+    if (continuousScroll !== null) {
+        continuousScroll.pagesCount = pagesCount;
+    }
+}
+
+function getPageSection(page) {
+    return document.querySelector('.topic-page[data-page="' + page + '"]');
+}
+
+/**
+* Displays the posts of a page (continuous scroll mode), given as for setPosts(), in a new section
+* below the last one, or in place of the section of the page (evicted or refreshed page). The
+* displayed page has no separator label (null).
+*/
+function showPage(page, label, posts) {
+    if (continuousScroll === null) {
+        return;
+    }
+
+    var section = getPageSection(page);
+    var html = label === null ? [] : ['<div class="page-separator">' + label + '</div>'];
+    var i;
+
+    if (section === null) {
+        var sections = document.querySelectorAll('.topic-page');
+        var lastSection = sections[sections.length - 1];
+
+        section = document.createElement('div');
+        section.className = 'topic-page';
+        section.setAttribute('data-page', page);
+        lastSection.parentNode.insertBefore(section, lastSection.nextSibling);
+    }
+
+    for (i = 0; i < posts.length; i++) {
+        html.push(posts[i].html);
+    }
+
+    // Page is scrolled along with sections changing height above the viewport, so that
+    // displayed posts don't move
+    var previousRect = section.getBoundingClientRect();
+
+    section.innerHTML = html.join('');
+    section.classList.remove('evicted');
+    section.style.height = '';
+
+    if (previousRect.top < 0) {
+        window.scrollBy(0, section.getBoundingClientRect().height - previousRect.height);
+    }
+
+    addRippleEffect(section.querySelectorAll('[material]'));
+    reportDataSaved(section);
+
+    if (continuousScroll.requestedPage === page) {
+        continuousScroll.requestedPage = null;
+    }
+
+    if (pendingPagePosition !== null && pendingPagePosition.page === page) {
+        scrollToPagePosition(page, pendingPagePosition.position);
+    }
+
+    loadVisibleImages();
+    scheduleContinuousScrollCheck();
+}
+
+/**
+* Called by the app when a requested page can't be loaded, the page being requested again later
+*/
+function cancelPageRequest(page) {
+    if (continuousScroll !== null && continuousScroll.requestedPage === page) {
+        continuousScroll.requestedPage = null;
+        continuousScroll.retryTime = Date.now() + PAGE_REQUEST_RETRY_DELAY;
+    }
+}
+
+function requestPage(page) {
+    if (continuousScroll.requestedPage === null && Date.now() >= continuousScroll.retryTime) {
+        continuousScroll.requestedPage = page;
+        Android.onPageRequested(page);
+    }
+}
+
+/**
+* Scrolls to a post, or to the top or bottom of a page (continuous scroll mode). Evicted pages
+* are requested again, and scrolled to once displayed.
+*/
+function scrollToPagePosition(page, position) {
+    var section = getPageSection(page);
+    pendingPagePosition = null;
+
+    if (section === null) {
+        return;
+    }
+
+    if (section.classList.contains('evicted')) {
+        pendingPagePosition = {page: page, position: position};
+        window.scrollTo(0, getElementTop(section));
+        requestPage(page);
+    }
+    else if (position === PAGE_BOTTOM) {
+        window.scrollTo(0, getElementTop(section) + section.offsetHeight - window.innerHeight);
+    }
+    else if (position === PAGE_TOP) {
+        window.scrollTo(0, getElementTop(section));
+    }
+    else {
+        scrollToElement('post' + position);
+    }
+}
+
+/**
+* Reports the page read (section at the top of the viewport), requests evicted pages close to the
+* viewport or the next page when the reader gets close to the bottom, and evicts far pages
+*/
+function checkContinuousScroll() {
+    isContinuousScrollCheckScheduled = false;
+
+    if (continuousScroll === null) {
+        return;
+    }
+
+    var sections = document.querySelectorAll('.topic-page');
+    var lookAhead = window.innerHeight;
+    var readPage = null;
+    var i;
+
+    for (i = 0; i < sections.length; i++) {
+        var rect = sections[i].getBoundingClientRect();
+        var page = parseInt(sections[i].getAttribute('data-page'), 10);
+
+        if (readPage === null && rect.bottom > 0) {
+            readPage = page;
+        }
+
+        if (sections[i].classList.contains('evicted') && rect.bottom > -lookAhead && rect.top < window.innerHeight + lookAhead) {
+            requestPage(page);
+        }
+    }
+
+    var lastSection = sections[sections.length - 1];
+    var lastPage = parseInt(lastSection.getAttribute('data-page'), 10);
+
+    if (lastPage < continuousScroll.pagesCount && lastSection.getBoundingClientRect().bottom < window.innerHeight + 2 * lookAhead) {
+        requestPage(lastPage + 1);
+    }
+
+    if (readPage !== null && readPage !== continuousScroll.readPage) {
+        continuousScroll.readPage = readPage;
+        Android.onPageScrolled(readPage);
+    }
+
+    evictFarPages(sections);
+}
+
+/**
+* Evicts loaded pages more than two screens away from the viewport, while there are more than
+* the maximum number of loaded pages
+*/
+function evictFarPages(sections) {
+    var loadedSections = [];
+    var distance = 2 * window.innerHeight;
+    var i;
+
+    for (i = 0; i < sections.length; i++) {
+        if (!sections[i].classList.contains('evicted')) {
+            loadedSections.push(sections[i]);
+        }
+    }
+
+    var loadedCount = loadedSections.length;
+
+    for (i = 0; i < loadedSections.length && loadedCount > continuousScroll.maxLoadedPages; i++) {
+        var rect = loadedSections[i].getBoundingClientRect();
+
+        if (rect.bottom < -distance || rect.top > window.innerHeight + distance) {
+            loadedSections[i].style.height = rect.height + 'px';
+            loadedSections[i].innerHTML = '';
+            loadedSections[i].classList.add('evicted');
+            loadedCount--;
+
+            Android.onPageEvicted(parseInt(loadedSections[i].getAttribute('data-page'), 10));
+        }
+    }
+}
+
+/**
+* Checks continuous scroll at most every 200 ms while scrolling
+*/
+function scheduleContinuousScrollCheck() {
+    if (continuousScroll !== null && !isContinuousScrollCheckScheduled) {
+        isContinuousScrollCheckScheduled = true;
+        setTimeout(checkContinuousScroll, 200);
+    }
+}
+
+window.addEventListener('scroll', scheduleContinuousScrollCheck);
+window.addEventListener('resize', scheduleContinuousScrollCheck);
@@ -20,7 +20,6 @@ import android.util.Log;
 
 import com.ayuget.redface.data.api.MDService;
 import com.ayuget.redface.data.api.model.Category;
-import com.ayuget.redface.data.api.model.Post;
 import com.ayuget.redface.data.api.model.Profile;
 import com.ayuget.redface.data.api.model.Smiley;
 import com.ayuget.redface.data.api.model.Subcategory;
@@ -47,7 +46,6 @@ public class DataService {
     private SubscriptionHandler<User, List<Category>> categoriesSubscriptionHandler = new SubscriptionHandler<>();
     private SubscriptionHandler<CategoryPageKey, List<Topic>> topicsSubscriptionHandler = new SubscriptionHandler<>();
     private SubscriptionHandler<User, List<Topic>> metaPageSubscriptionHandler = new SubscriptionHandler<>();
-    private SubscriptionHandler<Topic, List<Post>> postsSubscriptionHandler = new SubscriptionHandler<>();
     private SubscriptionHandler<User, List<Smiley>> recentSmileysHandler = new SubscriptionHandler<>();
     private SubscriptionHandler<String, List<Smiley>> smileysSearchHandler = new SubscriptionHandler<>();
     private SubscriptionHandler<String, List<Smiley>> popularSmileysHandler = new SubscriptionHandler<>();
@@ -107,10 +105,6 @@ public class DataService {
         return metaPageSubscriptionHandler.load(user, mdService.listMetaPageTopics(user, topicFilter, sortByDate), observer);
     }
 
-    public Subscription loadPosts(final User user, final Topic topic, int page, Observer<List<Post>> observer) {
-        return postsSubscriptionHandler.load(topic, mdService.listPosts(user, topic, page), observer);
-    }
-
     public Subscription getRecentlyUsedSmileys(final User user, Observer<List<Smiley>> observer) {
         return recentSmileysHandler.loadAndCache(user, mdService.getRecentlyUsedSmileys(user), observer);
     }
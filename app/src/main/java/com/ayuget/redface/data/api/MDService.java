@@ -25,6 +25,7 @@ import com.ayuget.redface.data.api.model.Smiley;
 import com.ayuget.redface.data.api.model.Subcategory;
 import com.ayuget.redface.data.api.model.Topic;
 import com.ayuget.redface.data.api.model.TopicFilter;
+import com.ayuget.redface.data.api.model.TopicPage;
 import com.ayuget.redface.data.api.model.User;
 
 import java.util.List;
@@ -65,10 +66,34 @@ public interface MDService {
     Observable<List<PrivateMessage>> getNewPrivateMessages(User user);
 
     /**
-     * Returns a specific topic page
+     * Returns a specific topic page, with its metadata (hashcheck, pages count, ...)
+     */
+    Observable<TopicPage> getTopicPage(User user, Topic topic, int page);
+
+    /**
+     * Returns the posts of a specific topic page
      */
     Observable<List<Post>> listPosts(User user, Topic topic, int page);
 
+    /**
+     * Returns the posts of a topic page which is already known up to the last of
+     * {@code knownPosts} (refresh) : known posts which did not change are reused, only new or
+     * edited ones are parsed
+     */
+    Observable<List<Post>> listPosts(User user, Topic topic, int page, List<Post> knownPosts);
+
+    /**
+     * Returns a single post of a topic page, with an up-to-date content (post edited from the
+     * app), or null if the post is not on the page anymore
+     */
+    Observable<Post> getPost(User user, Topic topic, int page, long postId);
+
+    /**
+     * Streaming variant of {@link #listPosts(User, Topic, int)} : posts are emitted one by one,
+     * as soon as they are received from the network
+     */
+    Observable<Post> streamPosts(User user, Topic topic, int page);
+
     /**
      * Returns basic informations (subject and pages count) about a topic
      */
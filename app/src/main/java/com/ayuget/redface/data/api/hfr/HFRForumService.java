@@ -26,7 +26,7 @@ import com.ayuget.redface.data.api.MDMessageSender;
 import com.ayuget.redface.data.api.MDService;
 import com.ayuget.redface.data.api.SmileyService;
 import com.ayuget.redface.data.api.hfr.transforms.HTMLToBBCode;
-import com.ayuget.redface.data.api.hfr.transforms.HTMLToPostList;
+import com.ayuget.redface.data.api.hfr.transforms.HTMLToPostStream;
 import com.ayuget.redface.data.api.hfr.transforms.HTMLToPrivateMessageList;
 import com.ayuget.redface.data.api.hfr.transforms.HTMLToProfile;
 import com.ayuget.redface.data.api.hfr.transforms.HTMLToTopic;
@@ -40,6 +40,7 @@ import com.ayuget.redface.data.api.model.Smiley;
 import com.ayuget.redface.data.api.model.Subcategory;
 import com.ayuget.redface.data.api.model.Topic;
 import com.ayuget.redface.data.api.model.TopicFilter;
+import com.ayuget.redface.data.api.model.TopicPage;
 import com.ayuget.redface.data.api.model.User;
 import com.ayuget.redface.data.api.hfr.transforms.HTMLToCategoryList;
 import com.ayuget.redface.data.api.model.misc.SmileyResponse;
@@ -62,6 +63,7 @@ import retrofit.RestAdapter;
 import retrofit.http.GET;
 import retrofit.http.Path;
 import rx.Observable;
+import rx.functions.Action0;
 import rx.functions.Func1;
 import rx.functions.Func2;
 
@@ -71,9 +73,20 @@ import rx.functions.Func2;
 public class HFRForumService implements MDService {
     private static final String LOG_TAG = HFRForumService.class.getSimpleName();
 
+    private static final Func1<TopicPage, List<Post>> TOPIC_PAGE_POSTS = new Func1<TopicPage, List<Post>>() {
+        @Override
+        public List<Post> call(TopicPage topicPage) {
+            return topicPage.getPosts();
+        }
+    };
+
     @Inject PageFetcher pageFetcher;
 
-    @Inject PostsTweaker postsTweaker;
+    @Inject TweakedPostsCache tweakedPostsCache;
+
+    @Inject PostsMinifier postsMinifier;
+
+    @Inject ParallelPostsParser parallelPostsParser;
 
     @Inject MDEndpoints mdEndpoints;
 
@@ -93,6 +106,14 @@ public class HFRForumService implements MDService {
 
     private String currentHashcheck;
 
+    private final Action0 logTweakedPostsCacheStats = new Action0() {
+        @Override
+        public void call() {
+            Log.d(LOG_TAG, String.format("Tweaked posts cache stats : %s", tweakedPostsCache));
+            Log.d(LOG_TAG, String.format("Posts minifier stats : %s", postsMinifier));
+        }
+    };
+
     @Override
     public Observable<List<Category>> listCategories(final User user) {
         Log.d(LOG_TAG, String.format("Retrieving categories for user '%s'", user.getUsername()));
@@ -184,53 +205,128 @@ public class HFRForumService implements MDService {
     }
 
     @Override
-    public Observable<List<Post>> listPosts(User user, final Topic topic, final int page) {
+    public Observable<TopicPage> getTopicPage(User user, final Topic topic, final int page) {
         return pageFetcher.fetchSource(user, mdEndpoints.topic(topic, page))
-                .map(new Func1<String, String>() {
+                .flatMap(new Func1<String, Observable<TopicPage>>() {
                     @Override
-                    public String call(String htmlSource) {
-                        // Hashcheck is needed by the server to post new content
-                        currentHashcheck = HashcheckExtractor.extract(htmlSource);
-                        return htmlSource;
+                    public Observable<TopicPage> call(String htmlSource) {
+                        // Convert HTML source to objects, and tweak them
+                        return parallelPostsParser.parse(htmlSource);
                     }
                 })
-                .map(new HTMLToPostList()) // Convert HTML source to objects
-                .map(new Func1<List<Post>, List<Post>>() {
+                .map(handleTopicPage(topic, page));
+    }
+
+    @Override
+    public Observable<List<Post>> listPosts(User user, final Topic topic, final int page) {
+        if (! parallelPostsParser.isWorthIt()) {
+            return streamPosts(user, topic, page).toList();
+        }
+
+        return getTopicPage(user, topic, page)
+                .map(TOPIC_PAGE_POSTS)
+                .doOnCompleted(logTweakedPostsCacheStats);
+    }
+
+    @Override
+    public Observable<List<Post>> listPosts(User user, final Topic topic, final int page, final List<Post> knownPosts) {
+        if (knownPosts.isEmpty()) {
+            return listPosts(user, topic, page);
+        }
+
+        return pageFetcher.fetchSource(user, mdEndpoints.topic(topic, page))
+                .map(new Func1<String, TopicPage>() {
                     @Override
-                    public List<Post> call(List<Post> posts) {
-                        // Last post of previous page is automatically put in first position of
-                        // next page. This can be annoying...
-                        if (!appSettings.showPreviousPageLastPost() && page > 1 && posts.size() > 1) {
-                            posts.remove(0);
-                            return posts;
-                        }
-                        else {
-                            return posts;
-                        }
+                    public TopicPage call(String htmlSource) {
+                        return parallelPostsParser.parseAfter(htmlSource, knownPosts);
                     }
                 })
-                .map(new Func1<List<Post>, List<Post>>() {
+                .map(handleTopicPage(topic, page))
+                .map(TOPIC_PAGE_POSTS)
+                .doOnCompleted(logTweakedPostsCacheStats);
+    }
+
+    @Override
+    public Observable<Post> getPost(User user, final Topic topic, int page, final long postId) {
+        return pageFetcher.fetchSource(user, mdEndpoints.topic(topic, page))
+                .map(new Func1<String, Post>() {
                     @Override
-                    public List<Post> call(final List<Post> posts) {
-                        if (posts.size() > 0) {
-                            int newTopicPagesCount = posts.get(0).getTopicPagesCount();
-
-                            // If the topic pages count is known and different from the one we have,
-                            // it usually means new pages have been added since. The event emitted
-                            // below can be catched by the UI to update itself.
-                            if (newTopicPagesCount != UIConstants.UNKNOWN_PAGES_COUNT && newTopicPagesCount != topic.getPagesCount()) {
-                                new Handler(Looper.getMainLooper()).post(new Runnable() {
-                                    @Override
-                                    public void run() {
-                                        bus.post(new TopicPageCountUpdatedEvent(topic, posts.get(0).getTopicPagesCount()));
-                                    }
-                                });
-                            }
+                    public Post call(String htmlSource) {
+                        TopicPage topicPage = parallelPostsParser.parsePost(htmlSource, postId);
+
+                        if (topicPage == null) {
+                            return null;
                         }
-                        return posts;
+
+                        onPageHeader(topic, topicPage);
+                        return topicPage.getPosts().get(0);
+                    }
+                });
+    }
+
+    @Override
+    public Observable<Post> streamPosts(User user, final Topic topic, final int page) {
+        // Last post of previous page is automatically put in first position of
+        // next page. This can be annoying...
+        boolean skipFirstPost = !appSettings.showPreviousPageLastPost() && page > 1;
+
+        return pageFetcher.streamSource(user, mdEndpoints.topic(topic, page))
+                .lift(new HTMLToPostStream(new HTMLToPostStream.OnPageHeaderListener() {
+                    @Override
+                    public void onPageHeader(TopicPage header) {
+                        HFRForumService.this.onPageHeader(topic, header);
+                    }
+                }, skipFirstPost))
+                .map(new Func1<Post, Post>() {
+                    @Override
+                    public Post call(Post post) {
+                        return tweakedPostsCache.tweak(post);
                     }
                 })
-                .map(postsTweaker);
+                .doOnCompleted(logTweakedPostsCacheStats);
+    }
+
+    /**
+     * Handles page metadata, and removes the first post of the page if needed
+     */
+    private Func1<TopicPage, TopicPage> handleTopicPage(final Topic topic, final int page) {
+        return new Func1<TopicPage, TopicPage>() {
+            @Override
+            public TopicPage call(TopicPage topicPage) {
+                onPageHeader(topic, topicPage);
+
+                // Last post of previous page is automatically put in first position of
+                // next page. This can be annoying...
+                List<Post> posts = topicPage.getPosts();
+                if (!appSettings.showPreviousPageLastPost() && page > 1 && posts.size() > 1) {
+                    posts.remove(0);
+                }
+
+                return topicPage;
+            }
+        };
+    }
+
+    /**
+     * Handles page metadata, found before the first post of a topic page
+     */
+    private void onPageHeader(final Topic topic, TopicPage header) {
+        // Hashcheck is needed by the server to post new content
+        currentHashcheck = header.getHashcheck();
+
+        // If the topic pages count is known and different from the one we have,
+        // it usually means new pages have been added since. The event emitted
+        // below can be catched by the UI to update itself.
+        final int topicPagesCount = header.getPagesCount();
+
+        if (topicPagesCount != UIConstants.UNKNOWN_PAGES_COUNT && topicPagesCount != topic.getPagesCount()) {
+            new Handler(Looper.getMainLooper()).post(new Runnable() {
+                @Override
+                public void run() {
+                    bus.post(new TopicPageCountUpdatedEvent(topic, topicPagesCount));
+                }
+            });
+        }
     }
 
     @Override
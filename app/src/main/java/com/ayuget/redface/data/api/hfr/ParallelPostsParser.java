@@ -0,0 +1,194 @@
+/*
+ * Copyright 2015 Ayuget
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ayuget.redface.data.api.hfr;
+
+import com.ayuget.redface.data.api.hfr.transforms.HTMLToPostList;
+import com.ayuget.redface.data.api.hfr.transforms.HTMLToTopicPage;
+import com.ayuget.redface.data.api.model.Post;
+import com.ayuget.redface.data.api.model.TopicPage;
+import com.ayuget.redface.ui.UIConstants;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.inject.Inject;
+
+import rx.Observable;
+import rx.Scheduler;
+import rx.Subscriber;
+import rx.functions.Func1;
+import rx.schedulers.Schedulers;
+
+/**
+ * Parses and tweaks the posts of a topic page in parallel. Post blocks are independent from
+ * each other : the page is split at post boundaries, every block is handled on the computation
+ * scheduler (bounded by the number of cores), and posts are put back in page order.
+ *
+ * Output is the same as {@link #parseSequentially(String)}, which is used as a fallback when
+ * a block can't be parsed on its own. Contents of posts already tweaked are taken from the
+ * {@link TweakedPostsCache}. All posts of a page are tweaked with the same mode (data saver),
+ * even if the network changes in the meantime.
+ */
+public class ParallelPostsParser {
+    @Inject TweakedPostsCache tweakedPostsCache;
+
+    private final HTMLToPostList htmlToPostList = new HTMLToPostList();
+
+    private final HTMLToTopicPage htmlToTopicPage = new HTMLToTopicPage();
+
+    private final Scheduler scheduler = Schedulers.computation();
+
+    /**
+     * Parallel parsing is pointless on single core devices
+     */
+    public boolean isWorthIt() {
+        return Runtime.getRuntime().availableProcessors() > 1;
+    }
+
+    /**
+     * Parses and tweaks a whole topic page. Post blocks are handled in parallel if it is worth it,
+     * sequentially otherwise.
+     */
+    public Observable<TopicPage> parse(String source) {
+        if (isWorthIt()) {
+            return parseInParallel(source);
+        }
+        else {
+            return Observable.just(parseSequentially(source));
+        }
+    }
+
+    public Observable<TopicPage> parseInParallel(final String source) {
+        final int[] blocks = HTMLToPostList.findPostBlocks(source);
+        final TopicPage.Builder page = HTMLToTopicPage.parseHeader(source, blocks.length > 0 ? blocks[0] : source.length());
+        final int topicPagesCount = page.build().getPagesCount();
+        final PostsTweaker.Mode mode = tweakedPostsCache.getMode();
+
+        return Observable.range(0, blocks.length)
+                .flatMap(new Func1<Integer, Observable<IndexedPost>>() {
+                    @Override
+                    public Observable<IndexedPost> call(final Integer index) {
+                        return parseBlock(source, blocks, index, mode).subscribeOn(scheduler);
+                    }
+                })
+                .toList()
+                .map(new Func1<List<IndexedPost>, TopicPage>() {
+                    @Override
+                    public TopicPage call(List<IndexedPost> indexedPosts) {
+                        Post[] orderedPosts = new Post[blocks.length];
+
+                        for (IndexedPost indexedPost : indexedPosts) {
+                            if (indexedPost.post == null) {
+                                // Malformed block, the whole page has to be parsed at once
+                                return parseSequentially(source);
+                            }
+
+                            orderedPosts[indexedPost.index] = indexedPost.post;
+                        }
+
+                        List<Post> posts = new ArrayList<>(orderedPosts.length);
+
+                        for (Post post : orderedPosts) {
+                            if (topicPagesCount != UIConstants.UNKNOWN_PAGES_COUNT) {
+                                post.setTopicPagesCount(topicPagesCount);
+                            }
+                            posts.add(post);
+                        }
+
+                        return page.withPosts(posts).build();
+                    }
+                });
+    }
+
+    /**
+     * Reference implementation, parses and tweaks posts one after the other
+     */
+    public TopicPage parseSequentially(String source) {
+        TopicPage page = htmlToTopicPage.call(source);
+        PostsTweaker.Mode mode = tweakedPostsCache.getMode();
+
+        for (Post post : page.getPosts()) {
+            tweakedPostsCache.tweak(post, mode);
+        }
+
+        return page;
+    }
+
+    /**
+     * Parses a page already known up to the last of {@code knownPosts} (refresh), see
+     * {@link HTMLToTopicPage#parseAfter(String, List)}. Known posts which did not change are reused
+     * as is, only the other ones are tweaked.
+     */
+    public TopicPage parseAfter(String source, List<Post> knownPosts) {
+        TopicPage page = htmlToTopicPage.parseAfter(source, knownPosts);
+        PostsTweaker.Mode mode = tweakedPostsCache.getMode();
+
+        // Posts are compared by identity
+        Set<Post> knownPostsSet = new HashSet<>(knownPosts);
+
+        for (Post post : page.getPosts()) {
+            if (! knownPostsSet.contains(post)) {
+                tweakedPostsCache.tweak(post, mode);
+            }
+        }
+
+        return page;
+    }
+
+    /**
+     * Parses and tweaks a single post of the page (post edited from the app). Returns null if the
+     * post is not on the page anymore.
+     */
+    public TopicPage parsePost(String source, long postId) {
+        TopicPage page = htmlToTopicPage.parsePost(source, postId);
+
+        if (page != null) {
+            tweakedPostsCache.tweak(page.getPosts().get(0));
+        }
+
+        return page;
+    }
+
+    private Observable<IndexedPost> parseBlock(final String source, final int[] blocks, final int index, final PostsTweaker.Mode mode) {
+        return Observable.create(new Observable.OnSubscribe<IndexedPost>() {
+            @Override
+            public void call(Subscriber<? super IndexedPost> subscriber) {
+                int blockEnd = index + 1 < blocks.length ? blocks[index + 1] : source.length();
+                Post post = htmlToPostList.parsePostBlock(source, blocks[index], blockEnd);
+
+                if (post != null) {
+                    tweakedPostsCache.tweak(post, mode);
+                }
+
+                subscriber.onNext(new IndexedPost(index, post));
+                subscriber.onCompleted();
+            }
+        });
+    }
+
+    private static class IndexedPost {
+        private final int index;
+        private final Post post;
+
+        private IndexedPost(int index, Post post) {
+            this.index = index;
+            this.post = post;
+        }
+    }
+}
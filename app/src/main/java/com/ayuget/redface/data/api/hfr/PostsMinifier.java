@@ -0,0 +1,450 @@
+/*
+ * Copyright 2015 Ayuget
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ayuget.redface.data.api.hfr;
+
+import com.ayuget.redface.data.api.model.Post;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import rx.functions.Func1;
+
+/**
+ * Strips markup which is useless once posts are tweaked (see {@link PostsTweaker}), so that pages
+ * handed to the webview are smaller and faster to parse, while being rendered the same :
+ * <ul>
+ *     <li>comments, and whitespace runs of text (outside of {@code <pre>} blocks), collapsed into a single space</li>
+ *     <li>{@code rel} and {@code target} attributes of links, links being handled by the app</li>
+ *     <li>{@code onload} callbacks of images (forum scripts are not part of the page), and titles
+ *     repeating the alternative text</li>
+ *     <li>empty spans</li>
+ * </ul>
+ *
+ * Tags and attribute values are otherwise kept as is. Total length of contents before and after
+ * minification is recorded, see {@link #toString()}.
+ */
+@Singleton
+public class PostsMinifier implements Func1<List<Post>, List<Post>> {
+    private static final String COMMENT_START = "<!--";
+    private static final String COMMENT_END = "-->";
+
+    private static final String PRE = "<pre";
+    private static final String PRE_END = "</pre>";
+
+    private static final String EMPTY_SPAN = "<span></span>";
+
+    /**
+     * Attributes removed from links and images (no value meaning any value)
+     */
+    private static final String[] LINK_ATTRIBUTES = { "rel", "target" };
+    private static final String[] IMAGE_ATTRIBUTES = { "onload" };
+    private static final String IMAGE_ALT = "alt";
+    private static final String IMAGE_TITLE = "title";
+
+    /**
+     * Output buffers grown beyond this capacity (huge posts) are not kept for the next post
+     */
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+    private static final ThreadLocal<StringBuilder> OUTPUT_BUFFERS = new ThreadLocal<StringBuilder>() {
+        @Override
+        protected StringBuilder initialValue() {
+            return new StringBuilder(8 * 1024);
+        }
+    };
+
+    private final AtomicLong rawLength = new AtomicLong();
+
+    private final AtomicLong minifiedLength = new AtomicLong();
+
+    @Inject
+    public PostsMinifier() {
+    }
+
+    @Override
+    public List<Post> call(List<Post> posts) {
+        for (Post post : posts) {
+            minify(post);
+        }
+
+        return posts;
+    }
+
+    /**
+     * Minifies the content of a post, and its collapsed quotes
+     */
+    public Post minify(Post post) {
+        post.setHtmlContent(minify(post.getHtmlContent()));
+
+        List<String> collapsedQuotes = post.getCollapsedQuotes();
+
+        if (collapsedQuotes != null) {
+            List<String> minifiedQuotes = new ArrayList<>(collapsedQuotes.size());
+
+            for (String collapsedQuote : collapsedQuotes) {
+                minifiedQuotes.add(minify(collapsedQuote));
+            }
+
+            post.setCollapsedQuotes(minifiedQuotes);
+        }
+
+        return post;
+    }
+
+    /**
+     * Minifies HTML content, returns {@code html} itself if there is nothing to strip
+     */
+    public String minify(String html) {
+        StringBuilder output = OUTPUT_BUFFERS.get();
+        output.setLength(0);
+
+        int length = html.length();
+
+        // Index of the first char of the content not yet copied to the output
+        int copied = 0;
+        int position = 0;
+
+        while (position < length) {
+            char c = html.charAt(position);
+
+            if (isWhitespace(c)) {
+                int runEnd = position + 1;
+
+                while (runEnd < length && isWhitespace(html.charAt(runEnd))) {
+                    runEnd++;
+                }
+
+                if (c != ' ' || runEnd > position + 1) {
+                    output.append(html, copied, position).append(' ');
+                    copied = runEnd;
+                }
+
+                position = runEnd;
+            }
+            else if (c != '<') {
+                position++;
+            }
+            else if (html.startsWith(COMMENT_START, position)) {
+                int commentEnd = html.indexOf(COMMENT_END, position + COMMENT_START.length());
+
+                if (commentEnd < 0) {
+                    break;
+                }
+
+                output.append(html, copied, position);
+
+                // Whitespace around the comment is collapsed along with it
+                boolean isAfterWhitespace = position > 0 && isWhitespace(html.charAt(position - 1));
+                position = commentEnd + COMMENT_END.length();
+                copied = position = isAfterWhitespace ? skipWhitespace(html, position) : position;
+            }
+            else if (html.startsWith(EMPTY_SPAN, position)) {
+                output.append(html, copied, position);
+                copied = position = position + EMPTY_SPAN.length();
+            }
+            else if (isTag(html, position, PRE)) {
+                int preEnd = html.indexOf(PRE_END, position);
+                position = preEnd < 0 ? length : preEnd + PRE_END.length();
+            }
+            else if (isTag(html, position, "<a")) {
+                int tagEnd = minifyTag(html, position, 2, copied, output, LINK_ATTRIBUTES, false);
+                copied = tagEnd < 0 ? copied : tagEnd;
+                position = tagEnd < 0 ? findTagEnd(html, position) : tagEnd;
+            }
+            else if (isTag(html, position, "<img")) {
+                int tagEnd = minifyTag(html, position, 4, copied, output, IMAGE_ATTRIBUTES, true);
+                copied = tagEnd < 0 ? copied : tagEnd;
+                position = tagEnd < 0 ? findTagEnd(html, position) : tagEnd;
+            }
+            else {
+                position = findTagEnd(html, position);
+            }
+        }
+
+        rawLength.addAndGet(length);
+
+        // Nothing has been stripped, content is kept as is
+        if (copied == 0) {
+            minifiedLength.addAndGet(length);
+            return html;
+        }
+
+        output.append(html, copied, length);
+        String minified = output.toString();
+        minifiedLength.addAndGet(minified.length());
+
+        if (output.capacity() > MAX_RETAINED_CAPACITY) {
+            OUTPUT_BUFFERS.remove();
+        }
+
+        return minified;
+    }
+
+    /**
+     * Rewrites the tag at {@code tag} without its redundant attributes, returns the index
+     * following the tag, or -1 if the tag is kept as is (nothing to strip, malformed tag)
+     *
+     * @param nameLength length of the tag name, "<" included
+     * @param removedAttributes names of the attributes to strip
+     * @param removeTitle whether the title is stripped when it is the same as the alternative text
+     */
+    private static int minifyTag(String html, int tag, int nameLength, int copied, StringBuilder output, String[] removedAttributes, boolean removeTitle) {
+        String altValue = removeTitle ? findAttributeValue(html, tag + nameLength, IMAGE_ALT) : null;
+        int outputLength = output.length();
+        boolean isStripped = false;
+
+        output.append(html, copied, tag + nameLength);
+
+        // Each attribute is copied along with the whitespace preceding it
+        int attribute = tag + nameLength;
+
+        while (attribute < html.length()) {
+            int nameStart = skipWhitespace(html, attribute);
+
+            if (nameStart >= html.length()) {
+                break;
+            }
+
+            char c = html.charAt(nameStart);
+
+            if (c == '>' || html.startsWith("/>", nameStart)) {
+                int tagEnd = html.indexOf('>', nameStart) + 1;
+
+                if (isStripped) {
+                    output.append(html, attribute, tagEnd);
+                    return tagEnd;
+                }
+                break;
+            }
+
+            int nameEnd = findAttributeNameEnd(html, nameStart);
+            int attributeEnd = findAttributeEnd(html, nameEnd);
+
+            if (nameEnd == nameStart || attributeEnd < 0) {
+                break;
+            }
+
+            boolean isRemoved = isAnyName(html, nameStart, nameEnd, removedAttributes);
+
+            if (! isRemoved && removeTitle && altValue != null && isName(html, nameStart, nameEnd, IMAGE_TITLE)) {
+                isRemoved = altValue.equals(getAttributeValue(html, nameEnd, attributeEnd));
+            }
+
+            if (isRemoved) {
+                isStripped = true;
+            }
+            else {
+                output.append(html, attribute, attributeEnd);
+            }
+
+            attribute = attributeEnd;
+        }
+
+        output.setLength(outputLength);
+        return -1;
+    }
+
+    /**
+     * Value of the given attribute of the tag whose attributes start at {@code attributes}, or
+     * null if there is no such attribute
+     */
+    private static String findAttributeValue(String html, int attributes, String attributeName) {
+        int attribute = attributes;
+
+        while (attribute < html.length()) {
+            int nameStart = skipWhitespace(html, attribute);
+
+            if (nameStart >= html.length() || html.charAt(nameStart) == '>' || html.charAt(nameStart) == '/') {
+                return null;
+            }
+
+            int nameEnd = findAttributeNameEnd(html, nameStart);
+            int attributeEnd = findAttributeEnd(html, nameEnd);
+
+            if (nameEnd == nameStart || attributeEnd < 0) {
+                return null;
+            }
+
+            if (isName(html, nameStart, nameEnd, attributeName)) {
+                return getAttributeValue(html, nameEnd, attributeEnd);
+            }
+
+            attribute = attributeEnd;
+        }
+
+        return null;
+    }
+
+    private static int findAttributeNameEnd(String html, int nameStart) {
+        int nameEnd = nameStart;
+
+        while (nameEnd < html.length()) {
+            char c = html.charAt(nameEnd);
+
+            if (c == '=' || c == '>' || c == '/' || c == '"' || c == '\'' || isWhitespace(c)) {
+                break;
+            }
+
+            nameEnd++;
+        }
+
+        return nameEnd;
+    }
+
+    /**
+     * Returns the index following the value of the attribute whose name ends at {@code nameEnd}
+     * ({@code nameEnd} itself for attributes without value), or -1 if the value is not closed
+     */
+    private static int findAttributeEnd(String html, int nameEnd) {
+        if (nameEnd >= html.length() || html.charAt(nameEnd) != '=') {
+            return nameEnd;
+        }
+
+        int valueStart = nameEnd + 1;
+
+        if (valueStart >= html.length()) {
+            return -1;
+        }
+
+        char quote = html.charAt(valueStart);
+
+        if (quote == '"' || quote == '\'') {
+            int valueEnd = html.indexOf(quote, valueStart + 1);
+            return valueEnd < 0 ? -1 : valueEnd + 1;
+        }
+
+        int valueEnd = valueStart;
+
+        while (valueEnd < html.length() && html.charAt(valueEnd) != '>' && ! isWhitespace(html.charAt(valueEnd))) {
+            valueEnd++;
+        }
+
+        return valueEnd;
+    }
+
+    /**
+     * Value of the attribute, without its quotes
+     */
+    private static String getAttributeValue(String html, int nameEnd, int attributeEnd) {
+        if (attributeEnd == nameEnd) {
+            return "";
+        }
+
+        char quote = html.charAt(nameEnd + 1);
+        boolean isQuoted = quote == '"' || quote == '\'';
+
+        return html.substring(nameEnd + (isQuoted ? 2 : 1), attributeEnd - (isQuoted ? 1 : 0));
+    }
+
+    /**
+     * Returns the index following the tag at {@code tag} (quoted attribute values may contain
+     * '>'), or the next index if there is no tag there
+     */
+    private static int findTagEnd(String html, int tag) {
+        if (tag + 1 >= html.length() || ! isTagStart(html.charAt(tag + 1))) {
+            return tag + 1;
+        }
+
+        char quote = 0;
+
+        for (int position = tag + 1; position < html.length(); position++) {
+            char c = html.charAt(position);
+
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            }
+            else if (c == '"' || c == '\'') {
+                quote = c;
+            }
+            else if (c == '>') {
+                return position + 1;
+            }
+        }
+
+        return html.length();
+    }
+
+    private static boolean isTagStart(char c) {
+        return c == '/' || c == '!' || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    /**
+     * Whether there is a {@code name} tag at {@code position}, and not a tag whose name merely
+     * starts the same
+     */
+    private static boolean isTag(String html, int position, String name) {
+        int nameEnd = position + name.length();
+
+        if (! html.startsWith(name, position) || nameEnd >= html.length()) {
+            return false;
+        }
+
+        char c = html.charAt(nameEnd);
+        return c == '>' || c == '/' || isWhitespace(c);
+    }
+
+    /**
+     * Whether the attribute name between {@code nameStart} and {@code nameEnd} is {@code name}
+     */
+    private static boolean isName(String html, int nameStart, int nameEnd, String name) {
+        return nameEnd - nameStart == name.length() && html.regionMatches(nameStart, name, 0, name.length());
+    }
+
+    private static boolean isAnyName(String html, int nameStart, int nameEnd, String[] names) {
+        for (String name : names) {
+            if (isName(html, nameStart, nameEnd, name)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static int skipWhitespace(String html, int position) {
+        while (position < html.length() && isWhitespace(html.charAt(position))) {
+            position++;
+        }
+
+        return position;
+    }
+
+    /**
+     * HTML whitespace, rendered as a single space when outside of {@code <pre>} blocks
+     */
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\f' || c == '\r';
+    }
+
+    /**
+     * Share of the content stripped so far, between 0 and 1
+     */
+    public float getSavedRatio() {
+        long raw = rawLength.get();
+        return raw == 0 ? 0 : (float) (raw - minifiedLength.get()) / raw;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PostsMinifier[rawLength=%d, minifiedLength=%d, saved=%.1f%%]", rawLength.get(), minifiedLength.get(), getSavedRatio() * 100);
+    }
+}
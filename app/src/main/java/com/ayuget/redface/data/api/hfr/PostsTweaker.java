@@ -16,15 +16,13 @@
 
 package com.ayuget.redface.data.api.hfr;
 
-import android.util.Log;
-
 import com.ayuget.redface.data.api.MDEndpoints;
 import com.ayuget.redface.data.api.model.Post;
-import com.ayuget.redface.util.CallbackMatcher;
+import com.ayuget.redface.settings.RedfaceSettings;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.regex.MatchResult;
-import java.util.regex.Pattern;
 
 import javax.inject.Inject;
 
@@ -32,73 +30,648 @@ import rx.functions.Func1;
 
 /**
  * Adapts posts to the mobile app : converts internal links to be directly handled
- * by the app, handles images cache, images download settings, ...
+ * by the app, defers images loading, handles images download settings, ...
+ *
+ * Post content is rewritten in a single forward pass : every tag is checked against the rules
+ * below (regular links, quotes and spoilers, end of quotes, smileys, images), and the output is
+ * built in a per-thread {@link StringBuilder}. Output is the same as the previous regexes one
+ * (images aside), quotes without a link to the quoted post apart.
+ *
+ * In data saver mode (see {@link Mode}), images are replaced by tap-to-load placeholders, and
+ * smileys can be replaced by their code.
+ *
+ * Quotes nested deeper than the configured depth are collapsed : their content is moved out of
+ * the post content (see {@link Post#getCollapsedQuotes()}), and replaced by a stub the page
+ * expands on tap.
  */
 public final class PostsTweaker implements Func1<List<Post>, List<Post>> {
-    private static final String LOG_TAG = PostsTweaker.class.getSimpleName();
+    /**
+     * Regular links (within posts) : {@code <a href="http://forum.hardware.fr..." target="_blank" class="cLink">}
+     */
+    private static final String LINK_HREF = "href=\"";
+    private static final String LINK_URL = "http://forum.hardware.fr";
+    private static final String LINK_TARGET = "target=\"_blank\"";
+    private static final String LINK_CLASS = "class=\"cLink\">";
+
+    /**
+     * Quotes and spoilers : {@code <div class="container"><table class="citation ...">...<b class="s1"><a href="..." ...>}
+     */
+    private static final String QUOTE = "<div class=\"container\"><table class=\"";
+    private static final String SPOILER = "spoiler";
+    private static final String[] QUOTE_TYPES = { "oldcitation", "citation", SPOILER };
+    private static final String QUOTE_TITLE = "<b class=\"s1";
+    private static final String QUOTE_TITLE_END = "\">";
+    private static final String SPOILER_TITLE_END = "Topic\">";
+    private static final String QUOTE_LINK = "<a href=\"";
+
+    /**
+     * End of quotes removed from the output : {@code </td></tr></tbody></table>}. The closing div
+     * is kept, it closes the rewritten quote.
+     */
+    private static final String END_OF_QUOTES = "</td></tr></tbody></table>";
+
+    /**
+     * End of containers, used to follow the nesting of quotes : {@code </td></tr></table></div>},
+     * with an optional {@code </tbody>} (forum markup has none)
+     */
+    private static final String END_OF_CONTAINER = "</td></tr>";
+    private static final String END_OF_CONTAINER_TBODY = "</tbody>";
+    private static final String END_OF_CONTAINER_TABLE = "</table></div>";
+
+    /**
+     * Collapsed quotes keep their title : {@code <b class="s1">...</b>}
+     */
+    private static final String QUOTE_TITLE_CLOSE = "</b>";
+
+    /**
+     * Open quotes which are not collapsed (collapsed ones being the output length at their
+     * content start), and other containers ({@code [quote]}, ...) which are kept as is
+     */
+    private static final int OPEN_QUOTE = -1;
+    private static final int OPEN_SPOILER = -2;
+    private static final int OPEN_CONTAINER = -3;
+
+    /**
+     * Smileys : {@code <img src="http://forum-images.hardware.fr..." alt="..." ... />}
+     */
+    private static final String SMILEY_SRC = "src=\"http://forum-images.hardware.fr";
+    private static final String SMILEY_ALT = "alt=\"";
+    private static final String SMILEY_END = "/>";
+
+    /**
+     * Images (smileys included) : {@code <img src="..." ...>}, source being the first attribute
+     */
+    private static final String IMAGE = "<img";
+    private static final String IMAGE_SRC = "src=\"";
+    private static final String DEFERRED_IMAGE_SRC = "data-src=\"";
+    private static final String ON_DEMAND_IMAGE_SRC = "data-on-demand-src=\"";
+    private static final String IMAGE_WIDTH = "width=\"";
+    private static final String IMAGE_HEIGHT = "height=\"";
+
+    /**
+     * Estimated size of images loaded on demand (data saver) : compressed images weigh roughly
+     * two bits per pixel, images of unknown size are assumed to be average forum images (mostly
+     * photos and screenshots)
+     */
+    private static final int ESTIMATED_PIXELS_PER_BYTE = 4;
+    private static final int ESTIMATED_IMAGE_BYTES = 100 * 1024;
 
-    private static final String REGULAR_LINK_REGEX = "<a\\s*href=\"(http://forum\\.hardware\\.fr.*?)\"\\s*target=\"_blank\"\\s*class=\"cLink\">";
-    private static final CallbackMatcher SMILEYS_REGEX = new CallbackMatcher("<img\\s*src=\"(http://forum\\-images\\.hardware\\.fr.*?)\"\\s*alt=\"(.*?)\".*?/>");
-    private static final CallbackMatcher QUOTES_AND_SPOILERS = new CallbackMatcher("(?:<div class=\\\"container\\\"><table class=\\\")(oldcitation|citation|spoiler)(?:[^>]+)(?:>)(?:.*?)(?:<b class=\\\")(s1|s1Topic)(?:\\\">)(?:(?:<a href=\")([^\\\"]+)(?:\")(?:[^>]+)(?:>))?", Pattern.DOTALL);
-    private static final CallbackMatcher END_OF_QUOTES = new CallbackMatcher("(?:</td></tr></tbody></table>)", Pattern.DOTALL);
+    /**
+     * Output buffers grown beyond this capacity (huge posts) are not kept for the next post
+     */
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+    private static final ThreadLocal<StringBuilder> OUTPUT_BUFFERS = new ThreadLocal<StringBuilder>() {
+        @Override
+        protected StringBuilder initialValue() {
+            return new StringBuilder(8 * 1024);
+        }
+    };
+
+    /**
+     * How images and smileys are rendered
+     */
+    public enum Mode {
+        /**
+         * Images are loaded once they get close to the viewport
+         */
+        DEFAULT,
+
+        /**
+         * Data saver : images are loaded on demand, smileys as usual
+         */
+        DATA_SAVER,
+
+        /**
+         * Data saver : images are loaded on demand, smileys are replaced by their code
+         */
+        DATA_SAVER_SMILEYS_AS_TEXT
+    }
 
     @Inject MDEndpoints mdEndpoints;
 
+    @Inject RedfaceSettings appSettings;
+
     @Override
     public List<Post> call(List<Post> posts) {
-        for(final Post post : posts) {
-            String htmlContent = post.getHtmlContent();
+        Mode mode = getMode();
 
-            // Adds callbacks to directly handle all links (internal and external) within the app.
+        for(Post post : posts) {
+            tweak(post, mode);
+        }
 
-            // Regular links (within posts)
-            htmlContent = htmlContent.replaceAll(REGULAR_LINK_REGEX, "<a onclick=\"handleUrl(event, " + post.getId() + ", '$1');\" class=\"cLink\">");
+        return posts;
+    }
 
-            // Simplify quotes HTML
-            htmlContent = QUOTES_AND_SPOILERS.replaceAll(htmlContent, new CallbackMatcher.Callback() {
-                @Override
-                public String foundMatch(MatchResult matchResult) {
-                    boolean isQuote = matchResult.group(1).equals("citation") || matchResult.group(1).equals("oldcitation");
-                    String onClickEvent = isQuote ? "" : " onClick=\"toggleSpoiler(this)\"";
+    /**
+     * Mode posts are currently tweaked with, depending on data saver settings and active network
+     */
+    public Mode getMode() {
+        if (! appSettings.isDataSaverActive()) {
+            return Mode.DEFAULT;
+        }
 
-                    String output = "<div class=\"" + (isQuote ? "quote" : "spoiler") + "\"" + onClickEvent + "><b class=\"" + (isQuote ? "s1": "s1Topic") +"\">";
+        return appSettings.showSmileysAsText() ? Mode.DATA_SAVER_SMILEYS_AS_TEXT : Mode.DATA_SAVER;
+    }
+
+    /**
+     * Tweaks a single post content, with the current mode
+     */
+    public Post tweak(final Post post) {
+        return tweak(post, getMode());
+    }
+
+    public Post tweak(final Post post, Mode mode) {
+        String htmlContent = post.getHtmlContent();
+        int quotesMaxDepth = appSettings.getQuotesMaxDepth();
+
+        StringBuilder output = OUTPUT_BUFFERS.get();
+        output.setLength(0);
+
+        // Open containers, innermost last (see OPEN_QUOTE), and nesting depth of quotes
+        int[] openQuotes = null;
+        int openQuotesCount = 0;
+        int quoteDepth = 0;
+        List<String> collapsedQuotes = null;
 
-                    if (isQuote) {
-                        output += "<a onclick=\"handleUrl(event, " + post.getId() + ", '" + mdEndpoints.baseurl() + matchResult.group(3) + "')\">";
+        // Index of the first char of the content not yet copied to the output
+        int copied = 0;
+        int tag = htmlContent.indexOf('<');
+
+        while (tag >= 0 && tag + 1 < htmlContent.length()) {
+            int tagEnd;
+
+            switch (htmlContent.charAt(tag + 1)) {
+                case 'a':
+                    tagEnd = rewriteRegularLink(htmlContent, tag, copied, output, post.getId());
+                    break;
+                case 'd':
+                    if (! htmlContent.startsWith(QUOTE, tag)) {
+                        tagEnd = -1;
+                        break;
                     }
 
-                    return output;
-                }
-            });
-
-            htmlContent = END_OF_QUOTES.replaceAll(htmlContent, new CallbackMatcher.Callback() {
-                @Override
-                public String foundMatch(MatchResult matchResult) {
-                    return "";
-                }
-            });
-
-            // Handle smileys. Smileys can be disabled in the settings, and (if not disabled of course)
-            // can be cached to avoid unnecessary and expensive network requests.
-            final boolean areSmileysEnabled = true;
-
-            htmlContent = SMILEYS_REGEX.replaceAll(htmlContent, new CallbackMatcher.Callback() {
-                @Override
-                public String foundMatch(MatchResult matchResult) {
-                    if (areSmileysEnabled) {
-                        // todo handle smileys caching
-                        String smileyUrl = matchResult.group(1);
-                        return matchResult.group();
+                    tagEnd = rewriteQuote(htmlContent, tag, copied, output, post.getId());
+
+                    if (tagEnd < 0) {
+                        openQuotes = pushOpenQuote(openQuotes, openQuotesCount++, OPEN_CONTAINER);
                     }
                     else {
-                        return matchResult.group(2);
+                        int openQuote = OPEN_SPOILER;
+
+                        if (! htmlContent.startsWith(SPOILER, tag + QUOTE.length())) {
+                            quoteDepth++;
+                            openQuote = OPEN_QUOTE;
+                            int titleClose = quotesMaxDepth > 0 && quoteDepth > quotesMaxDepth ? htmlContent.indexOf(QUOTE_TITLE_CLOSE, tagEnd) : -1;
+
+                            if (titleClose >= 0) {
+                                int titleEnd = titleClose + QUOTE_TITLE_CLOSE.length();
+                                output.append(htmlContent, tagEnd, titleEnd);
+                                tagEnd = titleEnd;
+                                openQuote = output.length();
+                            }
+                        }
+
+                        openQuotes = pushOpenQuote(openQuotes, openQuotesCount++, openQuote);
+                    }
+                    break;
+                case '/':
+                    tagEnd = -1;
+                    int closedQuote = openQuotesCount > 0 && isEndOfContainer(htmlContent, tag) ? openQuotes[--openQuotesCount] : OPEN_CONTAINER;
+
+                    if (closedQuote == OPEN_QUOTE || closedQuote >= 0) {
+                        if (quoteDepth > 0) {
+                            quoteDepth--;
+                        }
+
+                        if (closedQuote >= 0) {
+                            output.append(htmlContent, copied, tag);
+                            copied = tag;
+
+                            if (collapsedQuotes == null) {
+                                collapsedQuotes = new ArrayList<>();
+                            }
+
+                            collapsedQuotes.add(output.substring(closedQuote));
+                            output.setLength(closedQuote);
+                            output.append("<span class=\"collapsed-quote\" onclick=\"expandQuote(event, this, ")
+                                    .append(post.getId()).append(", ").append(collapsedQuotes.size() - 1)
+                                    .append(")\"><i class=\"fa fa-ellipsis-h\"></i></span>");
+                        }
                     }
-                }
-            });
 
-            post.setHtmlContent(htmlContent);
+                    if (htmlContent.startsWith(END_OF_QUOTES, tag)) {
+                        output.append(htmlContent, copied, tag);
+                        tagEnd = tag + END_OF_QUOTES.length();
+                    }
+                    break;
+                case 'i':
+                    tagEnd = mode == Mode.DATA_SAVER_SMILEYS_AS_TEXT ? rewriteSmiley(htmlContent, tag, copied, output) : -1;
+
+                    if (tagEnd < 0) {
+                        tagEnd = mode == Mode.DEFAULT ? deferImage(htmlContent, tag, copied, output) : deferImageOnDemand(htmlContent, tag, copied, output);
+                    }
+                    break;
+                default:
+                    tagEnd = -1;
+            }
+
+            if (tagEnd < 0) {
+                tag = htmlContent.indexOf('<', tag + 1);
+            }
+            else {
+                copied = tagEnd;
+                tag = htmlContent.indexOf('<', tagEnd);
+            }
         }
 
-        return posts;
+        // Nothing has been rewritten, content is kept as is
+        if (copied > 0) {
+            output.append(htmlContent, copied, htmlContent.length());
+            post.setHtmlContent(output.toString());
+        }
+
+        post.setCollapsedQuotes(collapsedQuotes);
+
+        if (output.capacity() > MAX_RETAINED_CAPACITY) {
+            OUTPUT_BUFFERS.remove();
+        }
+
+        return post;
+    }
+
+    /**
+     * Adds callbacks to directly handle all links (internal and external) within the app.
+     */
+    private int rewriteRegularLink(String html, int tag, int copied, StringBuilder output, long postId) {
+        int urlEnd = findRegularLinkUrlEnd(html, tag);
+
+        if (urlEnd < 0) {
+            return -1;
+        }
+
+        int urlStart = skipWhitespace(html, tag + 2) + LINK_HREF.length();
+        int linkClass = skipWhitespace(html, skipWhitespace(html, urlEnd + 1) + LINK_TARGET.length());
+
+        output.append(html, copied, tag)
+                .append("<a onclick=\"handleUrl(event, ").append(postId).append(", '")
+                .append(html, urlStart, urlEnd)
+                .append("');\" class=\"cLink\">");
+
+        return linkClass + LINK_CLASS.length();
+    }
+
+    /**
+     * Returns the index of the quote ending the URL of the regular link at {@code tag}, or -1 if
+     * there is no regular link there
+     */
+    private static int findRegularLinkUrlEnd(String html, int tag) {
+        int urlStart = skipWhitespace(html, tag + 2) + LINK_HREF.length();
+
+        if (! html.startsWith(LINK_HREF, urlStart - LINK_HREF.length()) || ! html.startsWith(LINK_URL, urlStart)) {
+            return -1;
+        }
+
+        // URL ends at the first quote followed by the expected attributes, on the same line
+        for (int urlEnd = urlStart + LINK_URL.length(); urlEnd < html.length(); urlEnd++) {
+            char c = html.charAt(urlEnd);
+
+            if (isLineTerminator(c)) {
+                return -1;
+            }
+
+            if (c != '"') {
+                continue;
+            }
+
+            int target = skipWhitespace(html, urlEnd + 1);
+
+            if (html.startsWith(LINK_TARGET, target) && html.startsWith(LINK_CLASS, skipWhitespace(html, target + LINK_TARGET.length()))) {
+                return urlEnd;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Simplify quotes HTML
+     */
+    private int rewriteQuote(String html, int tag, int copied, StringBuilder output, long postId) {
+        if (! html.startsWith(QUOTE, tag)) {
+            return -1;
+        }
+
+        int typeStart = tag + QUOTE.length();
+        String type = null;
+
+        for (String quoteType : QUOTE_TYPES) {
+            if (html.startsWith(quoteType, typeStart)) {
+                type = quoteType;
+                break;
+            }
+        }
+
+        // Type must be followed by at least one attribute char
+        int typeEnd = type == null ? -1 : typeStart + type.length();
+
+        if (typeEnd < 0 || typeEnd >= html.length() || html.charAt(typeEnd) == '>') {
+            return -1;
+        }
+
+        int tableEnd = html.indexOf('>', typeEnd);
+
+        if (tableEnd < 0) {
+            return -1;
+        }
+
+        // First quote title following the table, either <b class="s1"> or <b class="s1Topic">
+        int title = html.indexOf(QUOTE_TITLE, tableEnd + 1);
+        int titleEnd = -1;
+
+        while (title >= 0) {
+            int titleClassEnd = title + QUOTE_TITLE.length();
+
+            if (html.startsWith(QUOTE_TITLE_END, titleClassEnd)) {
+                titleEnd = titleClassEnd + QUOTE_TITLE_END.length();
+                break;
+            }
+            else if (html.startsWith(SPOILER_TITLE_END, titleClassEnd)) {
+                titleEnd = titleClassEnd + SPOILER_TITLE_END.length();
+                break;
+            }
+
+            title = html.indexOf(QUOTE_TITLE, title + 1);
+        }
+
+        if (titleEnd < 0) {
+            return -1;
+        }
+
+        // Link to the quoted post is optional : <a href="url" ...>. Regular links are not, they
+        // are rewritten on their own.
+        String quotedPostUrl = null;
+        int quoteEnd = titleEnd;
+
+        if (html.startsWith(QUOTE_LINK, titleEnd) && findRegularLinkUrlEnd(html, titleEnd) < 0) {
+            int urlStart = titleEnd + QUOTE_LINK.length();
+            int urlEnd = html.indexOf('"', urlStart);
+            int linkEnd = urlEnd < 0 ? -1 : html.indexOf('>', urlEnd);
+
+            if (urlEnd > urlStart && linkEnd > urlEnd + 1) {
+                quotedPostUrl = html.substring(urlStart, urlEnd);
+                quoteEnd = linkEnd + 1;
+            }
+        }
+
+        boolean isQuote = ! type.equals(SPOILER);
+        output.append(html, copied, tag);
+
+        if (isQuote) {
+            output.append("<div class=\"quote\"><b class=\"s1\">");
+
+            if (quotedPostUrl != null) {
+                output.append("<a onclick=\"handleUrl(event, ").append(postId)
+                        .append(", '").append(mdEndpoints.baseurl()).append(quotedPostUrl).append("')\">");
+            }
+        }
+        else {
+            output.append("<div class=\"spoiler\" onClick=\"toggleSpoiler(this)\"><b class=\"s1Topic\">");
+        }
+
+        return quoteEnd;
+    }
+
+    private static int[] pushOpenQuote(int[] openQuotes, int openQuotesCount, int openQuote) {
+        if (openQuotes == null) {
+            openQuotes = new int[8];
+        }
+        else if (openQuotesCount == openQuotes.length) {
+            openQuotes = Arrays.copyOf(openQuotes, 2 * openQuotesCount);
+        }
+
+        openQuotes[openQuotesCount] = openQuote;
+        return openQuotes;
+    }
+
+    /**
+     * Returns whether a container (quote, spoiler, ...) ends at {@code tag}
+     */
+    private static boolean isEndOfContainer(String html, int tag) {
+        if (! html.startsWith(END_OF_CONTAINER, tag)) {
+            return false;
+        }
+
+        int tableEnd = tag + END_OF_CONTAINER.length();
+
+        if (html.startsWith(END_OF_CONTAINER_TBODY, tableEnd)) {
+            tableEnd += END_OF_CONTAINER_TBODY.length();
+        }
+
+        return html.startsWith(END_OF_CONTAINER_TABLE, tableEnd);
+    }
+
+    /**
+     * Replaces smileys by their code (data saver mode)
+     */
+    private int rewriteSmiley(String html, int tag, int copied, StringBuilder output) {
+        if (! html.startsWith("<img", tag)) {
+            return -1;
+        }
+
+        int srcStart = skipWhitespace(html, tag + 4);
+
+        if (! html.startsWith(SMILEY_SRC, srcStart)) {
+            return -1;
+        }
+
+        // Smiley URL ends at the first quote followed by the alt attribute, on the same line
+        for (int srcEnd = srcStart + SMILEY_SRC.length(); srcEnd < html.length(); srcEnd++) {
+            char c = html.charAt(srcEnd);
+
+            if (isLineTerminator(c)) {
+                return -1;
+            }
+
+            if (c != '"') {
+                continue;
+            }
+
+            int alt = skipWhitespace(html, srcEnd + 1);
+
+            if (! html.startsWith(SMILEY_ALT, alt)) {
+                continue;
+            }
+
+            int altStart = alt + SMILEY_ALT.length();
+            int altEnd = indexOfOnLine(html, "\"", altStart);
+            int smileyEnd = altEnd < 0 ? -1 : indexOfOnLine(html, SMILEY_END, altEnd + 1);
+
+            if (smileyEnd < 0) {
+                return -1;
+            }
+
+            output.append(html, copied, tag).append(html, altStart, altEnd);
+            return smileyEnd + SMILEY_END.length();
+        }
+
+        return -1;
+    }
+
+    /**
+     * Defers images loading : image source is moved to a {@code data-src} attribute, and images
+     * are loaded by the page scripts once they get close to the viewport. Other attributes are
+     * kept, size ones giving placeholders the size of their images.
+     */
+    private static int deferImage(String html, int tag, int copied, StringBuilder output) {
+        int srcStart = findImageSrc(html, tag);
+
+        if (srcStart < 0) {
+            return -1;
+        }
+
+        output.append(html, copied, srcStart).append(DEFERRED_IMAGE_SRC);
+        return srcStart + IMAGE_SRC.length();
+    }
+
+    /**
+     * Loads images on demand (data saver mode) : images are hidden behind a placeholder showing
+     * their host (and size if known), and are only loaded once the placeholder is tapped. The
+     * placeholder holds the estimated size of the image, which the page reports as saved data.
+     *
+     * Smileys are small and cached, they are deferred as usual.
+     */
+    private static int deferImageOnDemand(String html, int tag, int copied, StringBuilder output) {
+        int srcStart = findImageSrc(html, tag);
+
+        if (srcStart < 0) {
+            return -1;
+        }
+
+        if (html.startsWith(SMILEY_SRC, srcStart)) {
+            return deferImage(html, tag, copied, output);
+        }
+
+        int urlStart = srcStart + IMAGE_SRC.length();
+        int urlEnd = indexOfOnLine(html, "\"", urlStart);
+        int imageEnd = urlEnd < 0 ? -1 : indexOfOnLine(html, ">", urlEnd);
+
+        if (imageEnd < 0) {
+            return -1;
+        }
+
+        int width = findSizeAttribute(html, IMAGE_WIDTH, urlEnd, imageEnd);
+        int height = findSizeAttribute(html, IMAGE_HEIGHT, urlEnd, imageEnd);
+        boolean isSizeKnown = width > 0 && height > 0;
+        long estimatedBytes = isSizeKnown ? (long) width * height / ESTIMATED_PIXELS_PER_BYTE : ESTIMATED_IMAGE_BYTES;
+
+        output.append(html, copied, tag)
+                .append("<span class=\"image-on-demand\" data-bytes=\"").append(estimatedBytes)
+                .append("\" onclick=\"loadImageOnDemand(event, this)\"><i class=\"fa fa-picture-o\"></i> ");
+
+        // Host of absolute URLs : http://host/...
+        int hostStart = html.indexOf("://", urlStart);
+
+        if (hostStart > 0 && hostStart < urlEnd) {
+            hostStart += 3;
+            int hostEnd = hostStart;
+
+            while (hostEnd < urlEnd && html.charAt(hostEnd) != '/' && html.charAt(hostEnd) != ':') {
+                hostEnd++;
+            }
+
+            output.append(html, hostStart, hostEnd);
+        }
+
+        if (isSizeKnown) {
+            output.append(' ').append(width).append('\u00D7').append(height);
+        }
+
+        output.append("</span>").append(html, tag, srcStart).append(ON_DEMAND_IMAGE_SRC);
+        return urlStart;
+    }
+
+    /**
+     * Returns the index of the source attribute of the image at {@code tag}, or -1 if there is no
+     * image there or if source is not its first attribute
+     */
+    private static int findImageSrc(String html, int tag) {
+        int srcStart = tag + IMAGE.length();
+
+        if (! html.startsWith(IMAGE, tag) || srcStart >= html.length() || ! isWhitespace(html.charAt(srcStart))) {
+            return -1;
+        }
+
+        srcStart = skipWhitespace(html, srcStart);
+        return html.startsWith(IMAGE_SRC, srcStart) ? srcStart : -1;
+    }
+
+    /**
+     * Value of a size attribute ({@code width="42"}) between {@code from} and {@code to}, or -1
+     * if there is no such attribute or if its value is not a plain number of pixels
+     */
+    private static int findSizeAttribute(String html, String attribute, int from, int to) {
+        int attributeStart = html.indexOf(attribute, from);
+
+        while (attributeStart >= 0 && attributeStart < to && ! isWhitespace(html.charAt(attributeStart - 1))) {
+            attributeStart = html.indexOf(attribute, attributeStart + 1);
+        }
+
+        if (attributeStart < 0 || attributeStart >= to) {
+            return -1;
+        }
+
+        int size = 0;
+        int valueStart = attributeStart + attribute.length();
+        int valueEnd = valueStart;
+
+        // Bounded length, keeps the size from overflowing
+        while (valueEnd < to && valueEnd - valueStart < 5 && html.charAt(valueEnd) >= '0' && html.charAt(valueEnd) <= '9') {
+            size = 10 * size + html.charAt(valueEnd) - '0';
+            valueEnd++;
+        }
+
+        return valueEnd > valueStart && html.charAt(valueEnd) == '"' ? size : -1;
+    }
+
+    private static int skipWhitespace(String html, int position) {
+        while (position < html.length() && isWhitespace(html.charAt(position))) {
+            position++;
+        }
+
+        return position;
+    }
+
+    /**
+     * Same as {@code \\s} in a regex
+     */
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    /**
+     * Chars not matched by {@code .} in a regex
+     */
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    /**
+     * Index of {@code token} from {@code from}, or -1 if there is a line terminator before it
+     */
+    private static int indexOfOnLine(String html, String token, int from) {
+        int index = html.indexOf(token, from);
+
+        if (index < 0) {
+            return -1;
+        }
+
+        for (int i = from; i < index; i++) {
+            if (isLineTerminator(html.charAt(i))) {
+                return -1;
+            }
+        }
+
+        return index;
     }
 }
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2015 Ayuget
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ayuget.redface.data.api.hfr;
+
+import android.util.LruCache;
+
+import com.ayuget.redface.data.api.model.Post;
+
+import java.util.Date;
+import java.util.List;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Keeps the content of already tweaked posts, so that posts seen again (last post of the previous
+ * page, pages reloaded when swiping back and forth) are not rewritten again by the {@link PostsTweaker}.
+ *
+ * Posts are identified by their id, last edition date and the mode they were tweaked with
+ * (data saver) : editing a post changes its date, and thus its key. Cache size is bounded by the
+ * total length of cached contents.
+ *
+ * Tweaked posts are minified (see {@link PostsMinifier}) before being cached.
+ */
+@Singleton
+public class TweakedPostsCache {
+    /**
+     * Share of the VM max memory (in bytes) used by the cache
+     */
+    private static final int MEMORY_SHARE = 32;
+
+    @Inject PostsTweaker postsTweaker;
+
+    @Inject PostsMinifier postsMinifier;
+
+    private final LruCache<Key, Entry> entries;
+
+    @Inject
+    public TweakedPostsCache() {
+        // Java chars are two bytes long
+        this((int) Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / MEMORY_SHARE / 2));
+    }
+
+    /**
+     * @param maxLength maximum total length (in chars) of cached contents
+     */
+    public TweakedPostsCache(int maxLength) {
+        this.entries = new LruCache<Key, Entry>(maxLength) {
+            @Override
+            protected int sizeOf(Key key, Entry entry) {
+                return entry.length;
+            }
+        };
+    }
+
+    /**
+     * Mode posts are currently tweaked with, see {@link PostsTweaker#getMode()}
+     */
+    public PostsTweaker.Mode getMode() {
+        return postsTweaker.getMode();
+    }
+
+    /**
+     * Tweaks the post with the current mode, see {@link #tweak(Post, PostsTweaker.Mode)}
+     */
+    public Post tweak(Post post) {
+        return tweak(post, postsTweaker.getMode());
+    }
+
+    /**
+     * Replaces the content of the post by its cached tweaked content if any, tweaks and minifies
+     * the post and caches the result otherwise.
+     */
+    public Post tweak(Post post, PostsTweaker.Mode mode) {
+        Key key = new Key(post.getId(), post.getLastEditionDate(), mode);
+        int rawLength = post.getHtmlContent().length();
+        Entry entry = entries.get(key);
+
+        // Raw content length is a cheap guard against posts changed without being edited
+        // (moderation, ...)
+        if (entry != null && entry.rawLength == rawLength) {
+            post.setHtmlContent(entry.tweakedContent);
+            post.setCollapsedQuotes(entry.collapsedQuotes);
+            return post;
+        }
+
+        postsTweaker.tweak(post, mode);
+        postsMinifier.minify(post);
+        entries.put(key, new Entry(rawLength, post.getHtmlContent(), post.getCollapsedQuotes()));
+
+        return post;
+    }
+
+    public void clear() {
+        entries.evictAll();
+    }
+
+    /**
+     * Share of lookups which were served from the cache, between 0 and 1
+     */
+    public float getHitRate() {
+        int hitCount = entries.hitCount();
+        int lookupsCount = hitCount + entries.missCount();
+
+        return lookupsCount == 0 ? 0 : (float) hitCount / lookupsCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TweakedPostsCache[size=%d, maxSize=%d, hits=%d, misses=%d, hitRate=%.1f%%]",
+                entries.size(), entries.maxSize(), entries.hitCount(), entries.missCount(), getHitRate() * 100);
+    }
+
+    private static final class Key {
+        private final long postId;
+
+        private final long lastEditionTime;
+
+        private final PostsTweaker.Mode mode;
+
+        private Key(long postId, Date lastEditionDate, PostsTweaker.Mode mode) {
+            this.postId = postId;
+            this.lastEditionTime = lastEditionDate == null ? -1 : lastEditionDate.getTime();
+            this.mode = mode;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            Key key = (Key) o;
+
+            return postId == key.postId && lastEditionTime == key.lastEditionTime && mode == key.mode;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = (int) (postId ^ (postId >>> 32));
+            result = 31 * result + (int) (lastEditionTime ^ (lastEditionTime >>> 32));
+            result = 31 * result + mode.hashCode();
+            return result;
+        }
+    }
+
+    private static final class Entry {
+        private final int rawLength;
+
+        private final String tweakedContent;
+
+        private final List<String> collapsedQuotes;
+
+        /**
+         * Total length of tweaked content and collapsed quotes
+         */
+        private final int length;
+
+        private Entry(int rawLength, String tweakedContent, List<String> collapsedQuotes) {
+            this.rawLength = rawLength;
+            this.tweakedContent = tweakedContent;
+            this.collapsedQuotes = collapsedQuotes;
+
+            int length = tweakedContent.length();
+            if (collapsedQuotes != null) {
+                for (String collapsedQuote : collapsedQuotes) {
+                    length += collapsedQuote.length();
+                }
+            }
+            this.length = length;
+        }
+    }
+}
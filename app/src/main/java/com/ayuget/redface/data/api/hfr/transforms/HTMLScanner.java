@@ -0,0 +1,210 @@
+/*
+ * Copyright 2015 Ayuget
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ayuget.redface.data.api.hfr.transforms;
+
+/**
+ * Forward-only cursor over an HTML source.
+ *
+ * Lookups are plain {@link String#indexOf(String, int)} calls bounded by a limit, so a full scan
+ * of a page is linear in its size (no backtracking, unlike the lazy regex we used to rely on).
+ * Failed lookups never move the cursor.
+ */
+public final class HTMLScanner {
+    private final String source;
+
+    private int position;
+
+    private int limit;
+
+    public HTMLScanner(String source) {
+        this(source, 0, source.length());
+    }
+
+    public HTMLScanner(String source, int start, int end) {
+        this.source = source;
+        this.position = start;
+        this.limit = end;
+    }
+
+    public String source() {
+        return source;
+    }
+
+    public int position() {
+        return position;
+    }
+
+    public int limit() {
+        return limit;
+    }
+
+    public void moveTo(int position) {
+        this.position = position;
+    }
+
+    /**
+     * Restricts all subsequent lookups to the source before {@code limit}
+     */
+    public void limitTo(int limit) {
+        this.limit = Math.min(limit, source.length());
+    }
+
+    public boolean hasRemaining() {
+        return position < limit;
+    }
+
+    /**
+     * Returns the index of the next occurrence of {@code token}, or -1 if it is not found
+     * before the current limit.
+     */
+    public int indexOf(String token) {
+        return indexOf(token, position);
+    }
+
+    public int indexOf(String token, int from) {
+        if (limit == source.length()) {
+            return source.indexOf(token, from);
+        }
+
+        // Don't let a failed lookup run through the rest of the source
+        int last = limit - token.length();
+        char first = token.charAt(0);
+
+        for (int i = from; i <= last; i++) {
+            if (source.charAt(i) == first && source.startsWith(token, i)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    public boolean startsWith(String token) {
+        return position + token.length() <= limit && source.startsWith(token, position);
+    }
+
+    /**
+     * Moves the cursor to the beginning of the next occurrence of {@code token}
+     */
+    public boolean skipTo(String token) {
+        int index = indexOf(token);
+
+        if (index < 0) {
+            return false;
+        }
+
+        position = index;
+        return true;
+    }
+
+    /**
+     * Moves the cursor right after the next occurrence of {@code token}
+     */
+    public boolean skipPast(String token) {
+        int index = indexOf(token);
+
+        if (index < 0) {
+            return false;
+        }
+
+        position = index + token.length();
+        return true;
+    }
+
+    /**
+     * Returns the content between the cursor and the next occurrence of {@code token}, and moves
+     * the cursor after it. Returns null (cursor untouched) if the token is not found.
+     */
+    public String readUntil(String token) {
+        int index = indexOf(token);
+
+        if (index < 0) {
+            return null;
+        }
+
+        String value = source.substring(position, index);
+        position = index + token.length();
+        return value;
+    }
+
+    public void skipWhitespace() {
+        while (position < limit && Character.isWhitespace(source.charAt(position))) {
+            position++;
+        }
+    }
+
+    /**
+     * Moves the cursor to the next digit
+     */
+    public boolean skipToDigit() {
+        int i = position;
+
+        while (i < limit) {
+            if (isDigit(source.charAt(i))) {
+                position = i;
+                return true;
+            }
+            i++;
+        }
+
+        return false;
+    }
+
+    /**
+     * Consumes the given character if it is the one under the cursor
+     */
+    public boolean consume(char c) {
+        if (position < limit && source.charAt(position) == c) {
+            position++;
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Reads an unsigned integer at the cursor position, returns -1 if there is no digit to read.
+     */
+    public int readInt() {
+        long value = readLong();
+        return value > Integer.MAX_VALUE ? -1 : (int) value;
+    }
+
+    /**
+     * Reads an unsigned long at the cursor position, returns -1 if there is no digit to read.
+     */
+    public long readLong() {
+        int i = position;
+        long value = 0;
+
+        while (i < limit && isDigit(source.charAt(i))) {
+            value = value * 10 + (source.charAt(i) - '0');
+            i++;
+        }
+
+        if (i == position) {
+            return -1;
+        }
+
+        position = i;
+        return value;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -16,32 +16,101 @@
 
 package com.ayuget.redface.data.api.hfr.transforms;
 
-import android.text.Html;
-
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import com.ayuget.redface.util.HTMLUtils;
 
 import rx.functions.Func1;
 
+/**
+ * Extracts the BBCode of a post from the content textarea of the post form (quote or edit page).
+ */
 public class HTMLToBBCode implements Func1<String, String> {
-    public static final Pattern POST_CONTENT_PATTERN = Pattern.compile("(?:<textarea)(?:.*)(?:name=\"content_form\")(?:[^>]*)(?:>)(.*?)(?:</textarea>)", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final String TEXTAREA = "<textarea";
+    private static final String CONTENT_NAME = "name=\"content_form\"";
+    private static final String TEXTAREA_END = "</textarea>";
 
     @Override
     public String call(String source) {
-        StringBuilder builder = new StringBuilder();
-        Matcher matcher = POST_CONTENT_PATTERN.matcher(source);
+        int contentName = source.indexOf(CONTENT_NAME);
+
+        if (contentName < 0) {
+            return "";
+        }
+
+        // Attribute must belong to a textarea tag
+        int textarea = source.lastIndexOf(TEXTAREA, contentName);
+
+        if (textarea < 0 || source.lastIndexOf('>', contentName) > textarea) {
+            return "";
+        }
+
+        int contentStart = source.indexOf('>', contentName);
+        int contentEnd = contentStart < 0 ? -1 : source.indexOf(TEXTAREA_END, contentStart);
+
+        if (contentEnd < 0) {
+            return "";
+        }
+
+        return decodeContent(source, contentStart + 1, contentEnd);
+    }
+
+    /**
+     * Decodes textarea content in a single pass, line by line, with the same output as
+     * {@code Html.fromHtml()} on every line : entities are decoded, spaces are collapsed and
+     * removed at the start of lines, every line ends with a newline and trailing empty lines
+     * are dropped.
+     */
+    private static String decodeContent(String source, int start, int end) {
+        StringBuilder bbCode = new StringBuilder(end - start + 1);
+
+        int lineStart = 0;
+        boolean isLineEmpty = true;
 
-        if (matcher.find()) {
-            String bbCode = matcher.group(1);
+        // Length of the content up to the last non empty line
+        int length = 0;
 
-            if (bbCode != null) {
-                for (String line : bbCode.split("\n")) {
-                    builder.append(Html.fromHtml(line));
-                    builder.append("\n");
+        int position = start;
+
+        while (position < end) {
+            char c = source.charAt(position);
+
+            if (c == '\n') {
+                bbCode.append('\n');
+                length = isLineEmpty ? length : bbCode.length();
+                lineStart = bbCode.length();
+                isLineEmpty = true;
+                position++;
+                continue;
+            }
+
+            isLineEmpty = false;
+
+            if (c == '&') {
+                int entityEnd = HTMLUtils.appendEntity(bbCode, source, position, end);
+
+                if (entityEnd >= 0) {
+                    position = entityEnd;
+                    continue;
                 }
             }
+
+            if (c == ' ') {
+                if (bbCode.length() > lineStart && bbCode.charAt(bbCode.length() - 1) != ' ') {
+                    bbCode.append(' ');
+                }
+            }
+            else if (c != '\r') {
+                bbCode.append(c);
+            }
+
+            position++;
+        }
+
+        if (! isLineEmpty) {
+            bbCode.append('\n');
+            length = bbCode.length();
         }
 
-        return builder.toString();
+        bbCode.setLength(length);
+        return bbCode.toString();
     }
 }
@@ -53,7 +53,7 @@ public final class HTMLToCategoryList implements Func1<String, List<Category>> {
 
         while (m.find()) {
             int categoryId = Integer.parseInt(m.group(1));
-            String categoryName = HTMLUtils.escapeHTML(m.group(3).trim());
+            String categoryName = HTMLUtils.decodeEntities(m.group(3).trim());
             String categorySlug = m.group(2);
 
             // Parse subcategories directly, and save an HTTP request !
@@ -62,7 +62,7 @@ public final class HTMLToCategoryList implements Func1<String, List<Category>> {
 
             Matcher submatchs = subcategoryPattern.matcher(subcatsHTML);
             while (submatchs.find()) {
-                Subcategory subcategory = Subcategory.create(HTMLUtils.escapeHTML(submatchs.group(2)), submatchs.group(1));
+                Subcategory subcategory = Subcategory.create(HTMLUtils.decodeEntities(submatchs.group(2)), submatchs.group(1));
                 subcategories.add(subcategory);
             }
 
@@ -17,14 +17,12 @@
 package com.ayuget.redface.data.api.hfr.transforms;
 
 import com.ayuget.redface.data.api.model.Post;
-import com.ayuget.redface.ui.UIConstants;
 import com.ayuget.redface.util.DateUtils;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Map;
 
 import rx.functions.Func1;
 
@@ -35,70 +33,284 @@ public class HTMLToPostList implements Func1<String, List<Post>> {
      */
     private static final int DEFAULT_POSTS_COUNT = 40;
 
-    private static final Pattern descriptionPattern = Pattern.compile(
-            "(?:<meta name=\"Description\" content=\")(?:.*)(?:Pages : )(\\d+)(?:[^\"])"
-    );
-
-    private static final Pattern postPattern = Pattern.compile(
-            "(<table\\s*cellspacing.*?class=\"([a-z]+)\">.*?" +
-            "<tr.*?class=\"message.*?" +
-            "<a.*?href=\"#t([0-9]+)\".*?" +
-            "<b.*?class=\"s2\">(?:<a.*?>)?(.*?)(?:</a>)?</b>.*?" +
-            "(?:(?:<div\\s*class=\"avatar_center\".*?><img src=\"(.*?)\"\\s*alt=\".*?\"\\s*/></div>)|</td>).*?" +
-            "<div.*?class=\"left\">Posté le ([0-9]+)-([0-9]+)-([0-9]+).*?([0-9]+):([0-9]+):([0-9]+).*?" +
-            "<div.*?id=\"para[0-9]+\">(.*?)<div style=\"clear: both;\">\\s*</div></p>" +
-            "(?:<div\\s*class=\"edited\">)?(?:<a.*?>Message cité ([0-9]+) fois</a>)?(?:<br\\s*/>Message édité par .*? le ([0-9]+)-([0-9]+)-([0-9]+).*?([0-9]+):([0-9]+):([0-9]+)</div>)?.*?" +
-            "</div></td></tr></table>)"
-            , Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    /**
+     * Markers used by the post scanner, in the order in which they appear in a post block
+     */
+    static final String POST_START = "class=\"messagetable\"";
+    private static final String POST_ID = "href=\"#t";
+    private static final String POST_AUTHOR = "class=\"s2\">";
+    private static final String POST_AUTHOR_END = "</b>";
+    private static final String AVATAR = "<div class=\"avatar_center\"";
+    private static final String AVATAR_URL = "<img src=\"";
+    private static final String END_OF_CELL = "</td>";
+    private static final String POST_DATE = "class=\"left\">Posté le ";
+    private static final String POST_CONTENT = "id=\"para";
+    private static final String POST_CONTENT_END = "<div style=\"clear: both;\">";
+    private static final String POST_CONTENT_END_TAIL = "</div></p>";
+    private static final String POST_EDITED = "<div class=\"edited\">";
+    private static final String POST_EDITED_END = "</div>";
+    private static final String QUOTE_COUNT = ">Message cité ";
+    private static final String LAST_EDITION = "Message édité par ";
+    private static final String LAST_EDITION_DATE = " le ";
+    private static final String POST_END = "</div></td></tr></table>";
 
     @Override
     public List<Post> call(String source) {
-        List<Post> posts = new ArrayList<>(DEFAULT_POSTS_COUNT);
+        return new HTMLToTopicPage().call(source).getPosts();
+    }
+
+    /**
+     * Returns the start index of every post block in the source. Post blocks are independent
+     * from each other, and can be parsed separately with {@link #parsePostBlock(String, int, int)}
+     */
+    public static int[] findPostBlocks(String source) {
+        int[] blocks = new int[DEFAULT_POSTS_COUNT];
+        int count = 0;
+        int index = source.indexOf(POST_START);
+
+        while (index >= 0) {
+            if (count == blocks.length) {
+                blocks = Arrays.copyOf(blocks, count * 2);
+            }
+
+            blocks[count++] = index;
+            index = source.indexOf(POST_START, index + POST_START.length());
+        }
+
+        return Arrays.copyOf(blocks, count);
+    }
+
+    /**
+     * Parses a single post block, located between {@code start} and {@code end}. Returns null
+     * if the block does not hold a complete post.
+     */
+    public Post parsePostBlock(String source, int start, int end) {
+        return nextPost(new HTMLScanner(source, start, end));
+    }
+
+    /**
+     * Checks the next post block against the posts already known for the page : returns the known
+     * post with the same id if its edition date and quote count did not change, leaving the scanner
+     * right after the block. Only these markers are read, the post content is skipped. Returns null
+     * otherwise, the scanner being left where it was.
+     */
+    Post skipKnownPost(HTMLScanner scanner, Map<Long, Post> knownPosts) {
+        int position = scanner.position();
+
+        if (! scanner.skipPast(POST_START) || ! scanner.skipPast(POST_ID)) {
+            scanner.moveTo(position);
+            return null;
+        }
+
+        Post knownPost = knownPosts.get(scanner.readLong());
+
+        if (knownPost == null || ! scanner.skipPast(POST_CONTENT) || ! scanner.skipPast("\">") || findContentEnd(scanner) < 0) {
+            scanner.moveTo(position);
+            return null;
+        }
+
+        int blockEnd = scanner.indexOf(POST_END);
+
+        if (blockEnd < 0 || ! readEditMarkers(scanner, blockEnd).matches(knownPost)) {
+            scanner.moveTo(position);
+            return null;
+        }
+
+        scanner.moveTo(blockEnd + POST_END.length());
+        return knownPost;
+    }
+
+    /**
+     * Parses the next post block, leaving the scanner right after it. Returns null when there
+     * are no more (complete) posts in the source.
+     */
+    Post nextPost(HTMLScanner scanner) {
+        while (scanner.skipPast(POST_START)) {
+            int blockStart = scanner.position();
+            Post post = parsePost(scanner);
+
+            if (post != null) {
+                return post;
+            }
+
+            // Malformed block, resume the search from the next one
+            scanner.moveTo(blockStart);
+        }
+
+        return null;
+    }
+
+    private Post parsePost(HTMLScanner scanner) {
+        if (! scanner.skipPast(POST_ID)) {
+            return null;
+        }
+
+        long postId = scanner.readLong();
+
+        if (postId < 0 || ! scanner.skipPast(POST_AUTHOR)) {
+            return null;
+        }
+
+        String author = readAuthor(scanner);
+
+        if (author == null) {
+            return null;
+        }
+
+        // Avatar is optional, and only belongs to this post if it is found in the first cell
+        String avatarUrl = null;
+        int avatarIndex = scanner.indexOf(AVATAR);
+        int endOfCellIndex = scanner.indexOf(END_OF_CELL);
+
+        if (avatarIndex >= 0 && (endOfCellIndex < 0 || avatarIndex < endOfCellIndex)) {
+            scanner.moveTo(avatarIndex);
+
+            if (scanner.skipPast(AVATAR_URL)) {
+                avatarUrl = scanner.readUntil("\"");
+            }
+        }
 
-        // Description tag parsing to find the total number of pages. If
-        int topicPagesCount = UIConstants.UNKNOWN_PAGES_COUNT;
-        Matcher pagesMatcher = descriptionPattern.matcher(source);
+        if (! scanner.skipPast(POST_DATE)) {
+            return null;
+        }
+
+        Date postDate = readDate(scanner);
 
-        if (pagesMatcher.find()) {
-            topicPagesCount = Integer.valueOf(pagesMatcher.group(1));
+        if (postDate == null || ! scanner.skipPast(POST_CONTENT) || ! scanner.skipPast("\">")) {
+            return null;
         }
 
-        Matcher m = postPattern.matcher(source);
+        int contentStart = scanner.position();
+        int contentEnd = findContentEnd(scanner);
+
+        if (contentEnd < 0) {
+            return null;
+        }
+
+        int blockEnd = scanner.indexOf(POST_END);
+
+        if (blockEnd < 0) {
+            return null;
+        }
+
+        EditMarkers editMarkers = readEditMarkers(scanner, blockEnd);
+        scanner.moveTo(blockEnd + POST_END.length());
+
+        Post post = new Post(postId);
+        post.setHtmlContent(scanner.source().substring(contentStart, contentEnd));
+        post.setAuthor(author);
+        post.setAvatarUrl(avatarUrl);
+        post.setLastEditionDate(editMarkers.lastEditDate);
+        post.setPostDate(postDate);
+        post.setQuoteCount(editMarkers.quoteCount);
+        return post;
+    }
+
+    /**
+     * Quote count and edition date are both optional, and are located in a dedicated div right
+     * after the post content (where the scanner is expected to be)
+     */
+    private EditMarkers readEditMarkers(HTMLScanner scanner, int blockEnd) {
+        EditMarkers editMarkers = new EditMarkers();
+
+        if (scanner.startsWith(POST_EDITED)) {
+            scanner.skipPast(POST_EDITED);
 
-        while (m.find()) {
-            long postId = Long.parseLong(m.group(3));
-            String postHTMLContent = m.group(12);
-            Date postDate = DateUtils.fromHTMLDate(m.group(8), m.group(7), m.group(6), m.group(9), m.group(10), m.group(11));
-            Date lastEditDate = null;
-            int quoteCount = 0;
-            String author = m.group(4);
-            String avatarUrl = m.group(5);
-            boolean wasEdited = m.group(14) != null;
-            boolean wasQuoted = m.group(13) != null;
+            int editedEnd = scanner.indexOf(POST_EDITED_END);
+            HTMLScanner edited = new HTMLScanner(scanner.source(), scanner.position(), editedEnd < 0 ? blockEnd : editedEnd);
 
-            if (wasEdited) {
-                lastEditDate = DateUtils.fromHTMLDate(m.group(16), m.group(15), m.group(14), m.group(17), m.group(18), m.group(19));
+            if (edited.skipPast(QUOTE_COUNT)) {
+                editMarkers.quoteCount = Math.max(0, edited.readInt());
             }
 
-            if (wasQuoted) {
-                quoteCount = Integer.parseInt(m.group(13));
+            if (edited.skipPast(LAST_EDITION) && skipToEditionDate(edited)) {
+                editMarkers.lastEditDate = readDate(edited);
             }
+        }
 
-            Post post = new Post(postId);
-            post.setHtmlContent(postHTMLContent);
-            post.setAuthor(author);
-            post.setAvatarUrl(avatarUrl);
-            post.setLastEditionDate(lastEditDate);
-            post.setPostDate(postDate);
-            post.setQuoteCount(quoteCount);
+        return editMarkers;
+    }
 
-            if (topicPagesCount != UIConstants.UNKNOWN_PAGES_COUNT) {
-                post.setTopicPagesCount(topicPagesCount);
+    /**
+     * Author name can be wrapped in a link (to the profile page)
+     */
+    private String readAuthor(HTMLScanner scanner) {
+        String author = scanner.readUntil(POST_AUTHOR_END);
+
+        if (author == null) {
+            return null;
+        }
+
+        if (author.startsWith("<a")) {
+            int tagEnd = author.indexOf('>');
+            author = tagEnd < 0 ? author : author.substring(tagEnd + 1);
+        }
+
+        if (author.endsWith("</a>")) {
+            author = author.substring(0, author.length() - 4);
+        }
+
+        return author;
+    }
+
+    /**
+     * Post content ends with an empty "clear: both" div, which closes the content paragraph.
+     * Returns the index of this div, the scanner being moved right after the closed paragraph.
+     */
+    private int findContentEnd(HTMLScanner scanner) {
+        int from = scanner.position();
+
+        while (true) {
+            int index = scanner.indexOf(POST_CONTENT_END, from);
+
+            if (index < 0) {
+                return -1;
             }
 
-            posts.add(post);
+            scanner.moveTo(index + POST_CONTENT_END.length());
+            scanner.skipWhitespace();
+
+            if (scanner.startsWith(POST_CONTENT_END_TAIL)) {
+                scanner.skipPast(POST_CONTENT_END_TAIL);
+                return index;
+            }
+
+            from = index + 1;
         }
+    }
 
-        return posts;
+    /**
+     * Moves to the " le dd-mm-yyyy" part of the edition details. Usernames can contain " le ",
+     * so we look for the first occurrence directly followed by a digit.
+     */
+    private boolean skipToEditionDate(HTMLScanner scanner) {
+        while (scanner.skipPast(LAST_EDITION_DATE)) {
+            if (scanner.hasRemaining() && Character.isDigit(scanner.source().charAt(scanner.position()))) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Reads a date formatted as "dd-mm-yyyy[...]hh:mm:ss"
+     */
+    private Date readDate(HTMLScanner scanner) {
+        long date = DateUtils.parseHTMLDate(scanner.source(), scanner.position(), scanner.limit());
+        return date == DateUtils.INVALID_DATE ? null : new Date(date);
+    }
+
+    /**
+     * Edition details of a post, compared with the known post on refresh
+     */
+    private static final class EditMarkers {
+        private int quoteCount;
+
+        private Date lastEditDate;
+
+        private boolean matches(Post post) {
+            return quoteCount == post.getQuoteCount() && (lastEditDate == null ? post.getLastEditionDate() == null : lastEditDate.equals(post.getLastEditionDate()));
+        }
     }
 }
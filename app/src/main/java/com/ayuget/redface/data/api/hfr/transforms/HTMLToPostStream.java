@@ -0,0 +1,188 @@
+/*
+ * Copyright 2015 Ayuget
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ayuget.redface.data.api.hfr.transforms;
+
+import com.ayuget.redface.data.api.model.Post;
+import com.ayuget.redface.data.api.model.TopicPage;
+import com.ayuget.redface.ui.UIConstants;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import rx.Observable;
+import rx.Subscriber;
+
+/**
+ * Incremental version of {@link HTMLToPostList} : consumes a topic page as a stream of text chunks
+ * (as they are decoded from the network) and emits every post as soon as its block is complete.
+ */
+public class HTMLToPostStream implements Observable.Operator<Post, String> {
+    /**
+     * Parsing is only attempted when a table is closed in the received chunk, because a post
+     * block can't be complete otherwise.
+     */
+    private static final String END_OF_TABLE = "</table>";
+
+    /**
+     * Callback invoked once with the page metadata (hashcheck, pages count, ...) found before the
+     * first post. Posts are emitted afterwards, the given page has none.
+     */
+    public interface OnPageHeaderListener {
+        void onPageHeader(TopicPage header);
+    }
+
+    private final OnPageHeaderListener onPageHeaderListener;
+
+    private final boolean skipFirstPost;
+
+    /**
+     * @param skipFirstPost drops the first post of the page, unless it is the only one (first
+     *                      post of a page is the last post of the previous one)
+     */
+    public HTMLToPostStream(OnPageHeaderListener onPageHeaderListener, boolean skipFirstPost) {
+        this.onPageHeaderListener = onPageHeaderListener;
+        this.skipFirstPost = skipFirstPost;
+    }
+
+    @Override
+    public Subscriber<? super String> call(final Subscriber<? super Post> subscriber) {
+        final Parser parser = new Parser();
+
+        return new Subscriber<String>(subscriber) {
+            @Override
+            public void onNext(String chunk) {
+                emit(parser.feed(chunk));
+            }
+
+            @Override
+            public void onCompleted() {
+                emit(parser.finish());
+
+                if (! subscriber.isUnsubscribed()) {
+                    subscriber.onCompleted();
+                }
+            }
+
+            @Override
+            public void onError(Throwable e) {
+                subscriber.onError(e);
+            }
+
+            private void emit(List<Post> posts) {
+                for (Post post : posts) {
+                    if (subscriber.isUnsubscribed()) {
+                        return;
+                    }
+                    subscriber.onNext(post);
+                }
+            }
+        };
+    }
+
+    /**
+     * Parsing state of a single page
+     */
+    private class Parser {
+        private final HTMLToPostList htmlToPostList = new HTMLToPostList();
+
+        /**
+         * Received source which has not been consumed yet (page header or incomplete post)
+         */
+        private final StringBuilder pending = new StringBuilder();
+
+        private boolean headerParsed = false;
+
+        private int topicPagesCount = UIConstants.UNKNOWN_PAGES_COUNT;
+
+        private int parsedPostsCount = 0;
+
+        /**
+         * First post, held back until we know if it is followed by other posts
+         */
+        private Post heldBackPost;
+
+        public List<Post> feed(String chunk) {
+            int searchFrom = Math.max(0, pending.length() - END_OF_TABLE.length() + 1);
+            pending.append(chunk);
+
+            if (pending.indexOf(END_OF_TABLE, searchFrom) < 0) {
+                return new ArrayList<>(0);
+            }
+            else {
+                return parsePending();
+            }
+        }
+
+        public List<Post> finish() {
+            List<Post> posts = parsePending();
+
+            if (heldBackPost != null) {
+                posts.add(heldBackPost);
+                heldBackPost = null;
+            }
+
+            return posts;
+        }
+
+        private List<Post> parsePending() {
+            List<Post> posts = new ArrayList<>();
+            String source = pending.toString();
+
+            if (! headerParsed) {
+                int firstPostIndex = source.indexOf(HTMLToPostList.POST_START);
+
+                if (firstPostIndex < 0) {
+                    return posts;
+                }
+
+                TopicPage header = HTMLToTopicPage.parseHeader(source, firstPostIndex).build();
+                topicPagesCount = header.getPagesCount();
+                headerParsed = true;
+
+                if (onPageHeaderListener != null) {
+                    onPageHeaderListener.onPageHeader(header);
+                }
+            }
+
+            HTMLScanner scanner = new HTMLScanner(source);
+            int consumed = 0;
+            Post post;
+
+            while ((post = htmlToPostList.nextPost(scanner)) != null) {
+                consumed = scanner.position();
+
+                if (topicPagesCount != UIConstants.UNKNOWN_PAGES_COUNT) {
+                    post.setTopicPagesCount(topicPagesCount);
+                }
+
+                parsedPostsCount++;
+
+                if (skipFirstPost && parsedPostsCount == 1) {
+                    heldBackPost = post;
+                }
+                else {
+                    // A second post has been found, the held back one can be dropped
+                    heldBackPost = null;
+                    posts.add(post);
+                }
+            }
+
+            pending.delete(0, consumed);
+            return posts;
+        }
+    }
+}
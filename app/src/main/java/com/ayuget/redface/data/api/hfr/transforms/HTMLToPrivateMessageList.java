@@ -17,17 +17,14 @@
 package com.ayuget.redface.data.api.hfr.transforms;
 
 import com.ayuget.redface.data.api.model.PrivateMessage;
-import com.ayuget.redface.util.DateUtils;
 import com.ayuget.redface.util.HTMLUtils;
 
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
-import java.util.regex.Matcher;
 
 import rx.functions.Func1;
 
-public class HTMLToPrivateMessageList extends TopicTransform implements Func1<String, List<PrivateMessage>> {
+public class HTMLToPrivateMessageList implements Func1<String, List<PrivateMessage>> {
     private boolean hasNewMessages(String imageName) {
         return imageName.equals("closedbp");
     }
@@ -36,26 +33,23 @@ public class HTMLToPrivateMessageList extends TopicTransform implements Func1<St
     public List<PrivateMessage> call(String source) {
         List<PrivateMessage> privateMessages = new ArrayList<>();
 
-        Matcher m = TOPIC_PATTERN.matcher(source);
+        TopicRowScanner scanner = new TopicRowScanner(source);
+        TopicRow row;
 
-        while (m.find()) {
-            long privateMessageId = Long.parseLong(m.group(7));
-            String subject = HTMLUtils.escapeHTML(m.group(8));
-            String recipient = m.group(13);
-            String lastResponseAuthor = m.group(20);
-            Date lastResponseDate = DateUtils.fromHTMLDate(m.group(17), m.group(16), m.group(15), m.group(18), m.group(19));
-            int totalMessages = Integer.parseInt(m.group(14));
-            int pagesCount = m.group(9) != null ? Integer.parseInt(m.group(9)) : 1;
+        while ((row = scanner.next()) != null) {
+            if (row.isCategoryHeader || ! TopicRowScanner.decode(row)) {
+                continue;
+            }
 
             PrivateMessage privateMessage = new PrivateMessage.Builder()
-                    .forRecipient(recipient)
-                    .withId(privateMessageId)
-                    .withSubject(subject)
-                    .withLastResponse(lastResponseAuthor, lastResponseDate)
-                    .withTotalMessages(totalMessages)
-                    .withUnreadMessages(hasNewMessages(m.group(11) != null ? m.group(11) : m.group(5)))
-                    .asReadByRecipient(m.group(6) == null)
-                    .withPagesCount(pagesCount)
+                    .forRecipient(row.author)
+                    .withId(row.id)
+                    .withSubject(HTMLUtils.decodeEntities(row.subject))
+                    .withLastResponse(row.lastPostAuthor, row.lastPostDate)
+                    .withTotalMessages(row.messagesCount)
+                    .withUnreadMessages(hasNewMessages(row.statusImageName()))
+                    .asReadByRecipient(! row.isUnreadByRecipient)
+                    .withPagesCount(row.pagesCount)
                     .build();
 
             privateMessages.add(privateMessage);
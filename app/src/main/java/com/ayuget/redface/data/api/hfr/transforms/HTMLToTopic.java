@@ -17,31 +17,26 @@
 package com.ayuget.redface.data.api.hfr.transforms;
 
 import com.ayuget.redface.data.api.model.Topic;
-
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import com.ayuget.redface.data.api.model.TopicPage;
+import com.ayuget.redface.ui.UIConstants;
 
 import rx.functions.Func1;
 
 public class HTMLToTopic implements Func1<String, Topic> {
-    public static final Pattern TOPIC_DETAILS_PATTERN = Pattern.compile("(?:<input type=\"hidden\" name=\"post\")(?:\\s*)(?:value=\")(\\d+)(?:\")(?:.*?)(?:<h3>)(.*?)(?:</h3>)(?:.*)(?:class=\"cHeader\">)(.*?)(?:</a></div>)", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
-
     @Override
     public Topic call(String s) {
-        Matcher m = TOPIC_DETAILS_PATTERN.matcher(s);
+        int firstPost = s.indexOf(HTMLToPostList.POST_START);
+        TopicPage page = HTMLToTopicPage.parseHeader(s, firstPost < 0 ? s.length() : firstPost).build();
 
-        if (m.find()) {
-            int topicId = Integer.valueOf(m.group(1));
-            String topicSubject = m.group(2);
-            int pagesCount = Integer.valueOf(m.group(3));
+        if (page.getTopicId() == TopicPage.UNKNOWN_ID || page.getSubject() == null) {
+            return null;
+        }
 
-            // Sets up a topic with all vital informations for it to be displayed
-            Topic topic = new Topic(topicId);
-            topic.setSubject(topicSubject);
-            topic.setPagesCount(pagesCount);
+        // Sets up a topic with all vital informations for it to be displayed
+        Topic topic = new Topic(page.getTopicId());
+        topic.setSubject(page.getSubject());
+        topic.setPagesCount(page.getPagesCount() == UIConstants.UNKNOWN_PAGES_COUNT ? 1 : page.getPagesCount());
 
-            return topic;
-        }
-        return null;
+        return topic;
     }
 }
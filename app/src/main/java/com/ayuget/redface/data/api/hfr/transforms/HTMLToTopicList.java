@@ -20,17 +20,14 @@ import com.ayuget.redface.data.api.model.Category;
 import com.ayuget.redface.data.api.model.Topic;
 import com.ayuget.redface.data.api.model.TopicStatus;
 import com.ayuget.redface.data.state.CategoriesStore;
-import com.ayuget.redface.util.DateUtils;
 import com.ayuget.redface.util.HTMLUtils;
 
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
-import java.util.regex.Matcher;
 
 import rx.functions.Func1;
 
-public class HTMLToTopicList extends TopicTransform implements Func1<String, List<Topic>> {
+public class HTMLToTopicList implements Func1<String, List<Topic>> {
     /**
      * Default number of topics per page. Used to initialize default capacity
      * for the list of topics (small performance improvement ?)
@@ -43,7 +40,7 @@ public class HTMLToTopicList extends TopicTransform implements Func1<String, Lis
         this.categoriesStore = categoriesStore;
     }
 
-    private TopicStatus extractTopicStatusFromImageName(String imageName) {
+    private static TopicStatus extractTopicStatusFromImageName(String imageName) {
         if (imageName == null) {
             return TopicStatus.NONE;
         }
@@ -64,46 +61,56 @@ public class HTMLToTopicList extends TopicTransform implements Func1<String, Lis
         }
     }
 
+    /**
+     * Decodes the rest of the row when the topic details are first accessed, so that topics
+     * which are filtered out or never shown are not decoded
+     */
+    private static class RowDecoder implements Topic.DetailsDecoder {
+        private final TopicRow row;
+
+        private RowDecoder(TopicRow row) {
+            this.row = row;
+        }
+
+        @Override
+        public void decode(Topic topic) {
+            TopicRowScanner.decode(row);
+
+            topic.setSubject(row.subject != null ? HTMLUtils.decodeEntities(row.subject) : "");
+            topic.setPagesCount(row.pagesCount);
+            topic.setAuthor(row.author);
+            topic.setStatus(row.isLocked ? TopicStatus.LOCKED : extractTopicStatusFromImageName(row.statusImageName()));
+            topic.setLastPostAuthor(row.lastPostAuthor);
+            topic.setLastPostDate(row.lastPostDate);
+            topic.setLastReadPostPage(row.lastReadPage);
+            topic.setLastReadPostId(row.lastReadPostId);
+        }
+    }
+
+    /**
+     * Rows missing a cell are skipped while scanning. Topic details are only decoded on first
+     * access (see {@link RowDecoder}).
+     */
     @Override
     public List<Topic> call(String source) {
         List<Topic> topics = new ArrayList<>(DEFAULT_TOPICS_COUNT);
 
-        Matcher m = TOPIC_PATTERN.matcher(source);
+        TopicRowScanner scanner = new TopicRowScanner(source);
         Category currentCategory = null;
+        TopicRow row;
 
-        while (m.find()) {
-            if (m.group(1) != null) {
-                int categoryId = Integer.parseInt(m.group(1));
-
+        while ((row = scanner.next()) != null) {
+            if (row.isCategoryHeader) {
                 if (categoriesStore != null) {
-                    currentCategory = categoriesStore.getCategoryById(categoryId);
+                    currentCategory = categoriesStore.getCategoryById(row.categoryId);
                 }
             }
             else {
-                int topicId = Integer.parseInt(m.group(7));
-                String subject = HTMLUtils.escapeHTML(m.group(8));
-                String author = m.group(13);
-                int pagesCount = m.group(9) != null ? Integer.parseInt(m.group(9)) : 1;
-                String lastPostAuthor = m.group(20);
-                Date lastPostDate = DateUtils.fromHTMLDate(m.group(17), m.group(16), m.group(15), m.group(18), m.group(19));
-                boolean isSticky = m.group(4) != null;
-                boolean isLocked = isTopicLocked(m.group(3));
-                TopicStatus status = isLocked ? TopicStatus.LOCKED : extractTopicStatusFromImageName(m.group(11) != null ? m.group(11) : m.group(5));
-                int lastReadPage = m.group(12) != null ? Integer.parseInt(m.group(12)) : -1;
-                long lastReadPostId = m.group(10) != null ? Long.parseLong(m.group(10)) : -1;
-
-                Topic topic = new Topic(topicId);
-                topic.setSubject(subject);
-                topic.setPagesCount(pagesCount);
-                topic.setAuthor(author);
-                topic.setStatus(status);
-                topic.setLastPostAuthor(lastPostAuthor);
-                topic.setLastPostDate(lastPostDate);
-                topic.setSticky(isSticky);
-                topic.setLocked(isLocked);
-                topic.setLastReadPostPage(lastReadPage);
-                topic.setLastReadPostId(lastReadPostId);
-                topic.setHasUnreadPosts(hasUnreadPosts(m.group(3)));
+                Topic topic = new Topic((int) row.id);
+                topic.setSticky(row.isSticky);
+                topic.setLocked(row.isLocked);
+                topic.setHasUnreadPosts(row.hasUnreadPosts);
+                topic.setDetailsDecoder(new RowDecoder(row));
 
                 if (currentCategory != null) {
                     topic.setCategory(currentCategory);
@@ -113,7 +120,6 @@ public class HTMLToTopicList extends TopicTransform implements Func1<String, Lis
             }
         }
 
-
         return topics;
     }
 }
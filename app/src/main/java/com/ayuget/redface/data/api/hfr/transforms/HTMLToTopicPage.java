@@ -0,0 +1,252 @@
+/*
+ * Copyright 2015 Ayuget
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ayuget.redface.data.api.hfr.transforms;
+
+import com.ayuget.redface.data.api.model.Post;
+import com.ayuget.redface.data.api.model.TopicPage;
+import com.ayuget.redface.ui.UIConstants;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import rx.functions.Func1;
+
+/**
+ * Parses a whole topic page (metadata and posts) in a single forward pass.
+ */
+public class HTMLToTopicPage implements Func1<String, TopicPage> {
+    /**
+     * Default number of posts per topic page. Used to initialize default capacity
+     * for the list of posts
+     */
+    private static final int DEFAULT_POSTS_COUNT = 40;
+
+    /**
+     * Markers of the page header, in the order in which they appear before the first post
+     */
+    private static final String DESCRIPTION = "<meta name=\"Description\" content=\"";
+    private static final String DESCRIPTION_PAGES_COUNT = "Pages : ";
+    private static final String HASHCHECK = "name=\"hash_check\" value=\"";
+    private static final String TOPIC_ID = "name=\"post\"";
+    private static final String CATEGORY_ID = "name=\"cat\"";
+    private static final String INPUT_VALUE = "value=\"";
+    private static final String PAGINATION = "&nbsp;Page&nbsp;: </b>";
+    private static final String PAGINATION_END = "</div>";
+    private static final String PAGE_LINK_END = "</a>";
+    private static final String CURRENT_PAGE_END = "</b>";
+    private static final String SUBJECT = "<h3>";
+    private static final String SUBJECT_END = "</h3>";
+
+    /**
+     * Anchor of a post, followed by its id
+     */
+    private static final String POST_ANCHOR = "<a name=\"t";
+
+    private final HTMLToPostList htmlToPostList = new HTMLToPostList();
+
+    @Override
+    public TopicPage call(String source) {
+        int firstPost = source.indexOf(HTMLToPostList.POST_START);
+        int headerEnd = firstPost < 0 ? source.length() : firstPost;
+
+        return parse(source, headerEnd);
+    }
+
+    /**
+     * Parses a page already known up to the last of {@code knownPosts} (refresh). Posts up to the
+     * anchor of the last known post are only checked : known posts are reused as is if their
+     * edition date and quote count did not change, and parsed again otherwise. Following posts
+     * are parsed. Deleted posts are not part of the returned page.
+     */
+    public TopicPage parseAfter(String source, List<Post> knownPosts) {
+        int firstPost = source.indexOf(HTMLToPostList.POST_START);
+        int headerEnd = firstPost < 0 ? source.length() : firstPost;
+
+        Map<Long, Post> knownPostsById = new HashMap<>(knownPosts.size());
+        for (Post knownPost : knownPosts) {
+            knownPostsById.put(knownPost.getId(), knownPost);
+        }
+
+        // All posts are checked if the last known post has been deleted
+        int postAnchor = knownPosts.isEmpty() ? -1 : source.indexOf(POST_ANCHOR + knownPosts.get(knownPosts.size() - 1).getId() + "\"");
+        int knownPostsEnd = knownPosts.isEmpty() ? headerEnd : postAnchor < 0 ? source.length() : postAnchor;
+
+        TopicPage.Builder page = parseHeader(source, headerEnd);
+        int topicPagesCount = page.build().getPagesCount();
+
+        List<Post> posts = new ArrayList<>(DEFAULT_POSTS_COUNT);
+        HTMLScanner scanner = new HTMLScanner(source, headerEnd, source.length());
+
+        while (true) {
+            Post post = scanner.position() < knownPostsEnd ? htmlToPostList.skipKnownPost(scanner, knownPostsById) : null;
+
+            if (post == null && (post = htmlToPostList.nextPost(scanner)) == null) {
+                break;
+            }
+
+            if (topicPagesCount != UIConstants.UNKNOWN_PAGES_COUNT) {
+                post.setTopicPagesCount(topicPagesCount);
+            }
+
+            posts.add(post);
+        }
+
+        return page.withPosts(posts).build();
+    }
+
+    /**
+     * Parses page metadata and only post {@code postId} (post edited from the app). Returns null
+     * if the post is not on the page anymore.
+     */
+    public TopicPage parsePost(String source, long postId) {
+        int postAnchor = source.indexOf(POST_ANCHOR + postId + "\"");
+        int postStart = postAnchor < 0 ? -1 : source.lastIndexOf(HTMLToPostList.POST_START, postAnchor);
+
+        if (postStart < 0) {
+            return null;
+        }
+
+        int nextPostStart = source.indexOf(HTMLToPostList.POST_START, postAnchor);
+        int firstPost = source.indexOf(HTMLToPostList.POST_START);
+
+        Post post = htmlToPostList.parsePostBlock(source, postStart, nextPostStart < 0 ? source.length() : nextPostStart);
+
+        if (post == null || post.getId() != postId) {
+            return null;
+        }
+
+        TopicPage.Builder page = parseHeader(source, firstPost);
+        int topicPagesCount = page.build().getPagesCount();
+
+        if (topicPagesCount != UIConstants.UNKNOWN_PAGES_COUNT) {
+            post.setTopicPagesCount(topicPagesCount);
+        }
+
+        List<Post> posts = new ArrayList<>(1);
+        posts.add(post);
+
+        return page.withPosts(posts).build();
+    }
+
+    private TopicPage parse(String source, int headerEnd) {
+        TopicPage.Builder page = parseHeader(source, headerEnd);
+        int topicPagesCount = page.build().getPagesCount();
+
+        List<Post> posts = new ArrayList<>(DEFAULT_POSTS_COUNT);
+        HTMLScanner scanner = new HTMLScanner(source, headerEnd, source.length());
+        Post post;
+
+        while ((post = htmlToPostList.nextPost(scanner)) != null) {
+            if (topicPagesCount != UIConstants.UNKNOWN_PAGES_COUNT) {
+                post.setTopicPagesCount(topicPagesCount);
+            }
+
+            posts.add(post);
+        }
+
+        return page.withPosts(posts).build();
+    }
+
+    /**
+     * Extracts page metadata from the source before {@code end} (usually the start of the first
+     * post). Metadata which can't be found is left to its default value.
+     */
+    public static TopicPage.Builder parseHeader(String source, int end) {
+        TopicPage.Builder page = new TopicPage.Builder();
+        HTMLScanner scanner = new HTMLScanner(source, 0, end);
+        int pagesCount = UIConstants.UNKNOWN_PAGES_COUNT;
+
+        if (scanner.skipPast(DESCRIPTION)) {
+            int descriptionEnd = scanner.indexOf("\"");
+            int descriptionPagesCount = scanner.indexOf(DESCRIPTION_PAGES_COUNT);
+
+            if (descriptionPagesCount >= 0 && descriptionPagesCount < descriptionEnd) {
+                scanner.moveTo(descriptionPagesCount + DESCRIPTION_PAGES_COUNT.length());
+                pagesCount = scanner.readInt();
+            }
+        }
+
+        if (scanner.skipPast(HASHCHECK)) {
+            page.withHashcheck(scanner.readUntil("\""));
+        }
+
+        if (scanner.skipPast(TOPIC_ID)) {
+            page.forTopic(readInputValue(scanner));
+        }
+
+        if (scanner.skipPast(CATEGORY_ID)) {
+            page.inCategory(readInputValue(scanner));
+        }
+
+        if (scanner.skipPast(PAGINATION)) {
+            int paginationEnd = scanner.indexOf(PAGINATION_END);
+
+            if (paginationEnd >= 0) {
+                int lastPage = readLastPage(source, paginationEnd);
+                pagesCount = lastPage < 0 ? pagesCount : lastPage;
+                scanner.moveTo(paginationEnd);
+            }
+        }
+
+        if (scanner.skipPast(SUBJECT)) {
+            page.withSubject(scanner.readUntil(SUBJECT_END));
+        }
+
+        return page.withPagesCount(pagesCount);
+    }
+
+    /**
+     * Reads the numeric value of an hidden input, returns {@link TopicPage#UNKNOWN_ID} if the
+     * value is not a number.
+     */
+    private static int readInputValue(HTMLScanner scanner) {
+        scanner.skipWhitespace();
+
+        if (! scanner.startsWith(INPUT_VALUE)) {
+            return TopicPage.UNKNOWN_ID;
+        }
+
+        scanner.skipPast(INPUT_VALUE);
+        int value = scanner.readInt();
+        return value < 0 ? TopicPage.UNKNOWN_ID : value;
+    }
+
+    /**
+     * Pagination ends with the last page number, either as a link ({@code >42</a>}) or in bold
+     * when it is the current page ({@code <b>42</b>}). Reads it backwards from {@code end}.
+     */
+    private static int readLastPage(String source, int end) {
+        int digitsEnd = end - PAGE_LINK_END.length();
+
+        if (digitsEnd < 0 || ! (source.startsWith(PAGE_LINK_END, digitsEnd) || source.startsWith(CURRENT_PAGE_END, digitsEnd))) {
+            return UIConstants.UNKNOWN_PAGES_COUNT;
+        }
+
+        int digitsStart = digitsEnd;
+        while (digitsStart > 0 && Character.isDigit(source.charAt(digitsStart - 1))) {
+            digitsStart--;
+        }
+
+        if (digitsStart == digitsEnd || source.charAt(digitsStart - 1) != '>') {
+            return UIConstants.UNKNOWN_PAGES_COUNT;
+        }
+
+        return Integer.parseInt(source.substring(digitsStart, digitsEnd));
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2015 Ayuget
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ayuget.redface.data.api.hfr.transforms;
+
+import java.util.Date;
+
+/**
+ * Raw content of a row of a topics table, as read by {@link TopicRowScanner}. Topic lists, the
+ * meta page and private messages lists share the same table layout, a row being either a
+ * category header or a topic (or private message).
+ *
+ * Only the row bounds, cells, id and flags are read while scanning, other fields are filled in
+ * by {@link TopicRowScanner#decode(TopicRow)}.
+ */
+final class TopicRow {
+    final String source;
+
+    final int start;
+
+    final int end;
+
+    /**
+     * Content bounds of the topic cells (start and end of each), topic rows only
+     */
+    int[] cells;
+
+    boolean isDecoded;
+
+    boolean isCategoryHeader;
+
+    int categoryId;
+
+    long id;
+
+    String subject;
+
+    boolean isSticky;
+
+    boolean isLocked;
+
+    boolean hasUnreadPosts;
+
+    /**
+     * Private messages only, message has not been read by its recipient yet
+     */
+    boolean isUnreadByRecipient;
+
+    /**
+     * Name of the status icon (first cell), without extension
+     */
+    String statusImage;
+
+    /**
+     * Name of the flag icon (last read post cell), without extension
+     */
+    String flagImage;
+
+    int pagesCount = 1;
+
+    long lastReadPostId = -1;
+
+    int lastReadPage = -1;
+
+    String author;
+
+    int messagesCount;
+
+    Date lastPostDate;
+
+    String lastPostAuthor;
+
+    TopicRow(String source, int start, int end) {
+        this.source = source;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Flag icon when the topic is followed, status icon otherwise
+     */
+    String statusImageName() {
+        return flagImage != null ? flagImage : statusImage;
+    }
+}
@@ -0,0 +1,353 @@
+/*
+ * Copyright 2015 Ayuget
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ayuget.redface.data.api.hfr.transforms;
+
+import com.ayuget.redface.util.DateUtils;
+
+import java.util.Date;
+
+/**
+ * Walks the rows of a topics table (category, meta page or private messages list), in page order.
+ *
+ * Every row is bounded first ({@code <tr class="sujet ...">} to {@code </tr>}), then its
+ * {@code sujetCaseN} cells are located one after the other, so a malformed row never makes the
+ * scanner run into the next one. Rows missing a cell or the topic id are skipped. Only the id and
+ * flags are read while scanning, the content of the cells is read on {@link #decode(TopicRow)}.
+ */
+final class TopicRowScanner {
+    private static final String CATEGORY_HEADER_START = "<th class=\"padding\"";
+    private static final String CATEGORY_HEADER_END = "</th>";
+    private static final String CATEGORY_LINK = "<a href=\"/forum1.php?config=hfr.inc&amp;cat=";
+    private static final String CATEGORY_NAME = "class=\"cHeader\">";
+
+    private static final String ROW_START = "<tr class=\"sujet ligne_booleen";
+    private static final String ROW_END = "</tr>";
+    private static final String STICKY = "ligne_sticky";
+    private static final String LOCKED_ICON = "lock.gif";
+    private static final String UNREAD_POSTS_ICON = "closedb.gif";
+    private static final String NEW_UNREAD_POSTS_ICON = "closedb_new.gif";
+
+    private static final String CELL_END = "</td>";
+    private static final String STATUS_CELL = "class=\"sujetCase1";
+    private static final String SUBJECT_CELL = "class=\"sujetCase3\"";
+    private static final String PAGES_CELL = "class=\"sujetCase4\"";
+    private static final String LAST_READ_POST_CELL = "class=\"sujetCase5\"";
+    private static final String AUTHOR_CELL = "class=\"sujetCase6";
+    private static final String MESSAGES_COUNT_CELL = "class=\"sujetCase7\"";
+    private static final String LAST_POST_CELL = "class=\"sujetCase9";
+
+    /**
+     * Cells of a topic row, in page order (see {@link TopicRow#cells})
+     */
+    private static final String[] CELLS = { STATUS_CELL, SUBJECT_CELL, PAGES_CELL, LAST_READ_POST_CELL, AUTHOR_CELL, MESSAGES_COUNT_CELL, LAST_POST_CELL };
+    private static final int STATUS = 0;
+    private static final int SUBJECT = 1;
+    private static final int PAGES = 2;
+    private static final int LAST_READ_POST = 3;
+    private static final int AUTHOR = 4;
+    private static final int MESSAGES_COUNT = 5;
+    private static final int LAST_POST = 6;
+
+    private static final String IMAGE_SOURCE = "src=\"";
+    private static final String GIF_EXTENSION = ".gif";
+    private static final String UNREAD_BY_RECIPIENT = "<span class=\"red\"";
+    private static final String UNREAD_BY_RECIPIENT_END = "\">[non lu]</span>";
+    private static final String TOPIC_ID = "class=\"cCatTopic\" title=\"Sujet n°";
+    private static final String SUBJECT_END = "</a>";
+    private static final String PAGES_COUNT = "class=\"cCatTopic\">";
+    private static final String LAST_READ_POST_ID = "#t";
+    private static final String LAST_READ_PAGE = "(p.";
+    private static final String AUTHOR_PROFILE_LINK = "<a rel=\"nofollow\" href=\"/profilebdd";
+    private static final String LINK_END = "</a>";
+    private static final String LAST_POST_DATE = "class=\"Tableau\">";
+    private static final String LAST_POST_AUTHOR = "<br /><b>";
+    private static final String LAST_POST_AUTHOR_END = "</b>";
+
+    private static final int NOT_SEARCHED = -2;
+
+    private final HTMLScanner scanner;
+
+    /**
+     * Index of the next category header, looked up once and kept until the scanner goes past it
+     */
+    private int nextCategoryHeader = NOT_SEARCHED;
+
+    public TopicRowScanner(String source) {
+        this.scanner = new HTMLScanner(source);
+    }
+
+    /**
+     * Returns the next row of the table, or null if there is none
+     */
+    public TopicRow next() {
+        while (true) {
+            if (nextCategoryHeader == NOT_SEARCHED || (nextCategoryHeader >= 0 && nextCategoryHeader < scanner.position())) {
+                nextCategoryHeader = scanner.indexOf(CATEGORY_HEADER_START);
+            }
+
+            int rowStart = scanner.indexOf(ROW_START);
+
+            if (nextCategoryHeader >= 0 && (rowStart < 0 || nextCategoryHeader < rowStart)) {
+                TopicRow categoryHeader = parseCategoryHeader(nextCategoryHeader);
+
+                if (categoryHeader != null) {
+                    return categoryHeader;
+                }
+            }
+            else if (rowStart >= 0) {
+                TopicRow topicRow = parseTopicRow(rowStart);
+
+                if (topicRow != null) {
+                    return topicRow;
+                }
+            }
+            else {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Parses the category header starting at {@code start}, and moves the scanner after it.
+     * Returns null if the header has no category link.
+     */
+    private TopicRow parseCategoryHeader(int start) {
+        int end = scanner.indexOf(CATEGORY_HEADER_END, start);
+        scanner.moveTo(end < 0 ? start + CATEGORY_HEADER_START.length() : end + CATEGORY_HEADER_END.length());
+
+        if (end < 0) {
+            return null;
+        }
+
+        HTMLScanner header = new HTMLScanner(scanner.source(), start, end);
+
+        if (! header.skipPast(CATEGORY_LINK)) {
+            return null;
+        }
+
+        int categoryId = header.readInt();
+
+        if (categoryId < 0 || ! header.skipPast(CATEGORY_NAME)) {
+            return null;
+        }
+
+        TopicRow row = new TopicRow(scanner.source(), start, end);
+        row.isDecoded = true;
+        row.isCategoryHeader = true;
+        row.categoryId = categoryId;
+        return row;
+    }
+
+    /**
+     * Reads the bounds, cells, id and flags of the topic row starting at {@code start}, and moves
+     * the scanner after it. Returns null if a cell is missing, or if the row has no topic id.
+     */
+    private TopicRow parseTopicRow(int start) {
+        int end = scanner.indexOf(ROW_END, start);
+        scanner.moveTo(end < 0 ? scanner.limit() : end + ROW_END.length());
+
+        if (end < 0) {
+            return null;
+        }
+
+        HTMLScanner tr = new HTMLScanner(scanner.source(), start, end);
+        TopicRow row = new TopicRow(scanner.source(), start, end);
+
+        int rowTagEnd = tr.indexOf(">");
+        int sticky = tr.indexOf(STICKY);
+        row.isSticky = sticky >= 0 && sticky < rowTagEnd;
+        row.isLocked = tr.indexOf(LOCKED_ICON) >= 0;
+        row.hasUnreadPosts = tr.indexOf(UNREAD_POSTS_ICON) >= 0 || tr.indexOf(NEW_UNREAD_POSTS_ICON) >= 0;
+
+        row.cells = new int[2 * CELLS.length];
+
+        for (int i = 0; i < CELLS.length; i++) {
+            if (! findCell(tr, CELLS[i], row.cells, i)) {
+                return null;
+            }
+        }
+
+        HTMLScanner subject = cell(row, SUBJECT);
+
+        if (! subject.skipPast(TOPIC_ID) || (row.id = subject.readLong()) < 0) {
+            return null;
+        }
+
+        return row;
+    }
+
+    /**
+     * Reads all cells of a topic row. Returns false if the row is malformed, in which case
+     * some fields may be left to their default value.
+     */
+    static boolean decode(TopicRow row) {
+        if (row.isDecoded) {
+            return true;
+        }
+
+        row.isDecoded = true;
+
+        String source = row.source;
+
+        // Status icon
+        HTMLScanner cell = cell(row, STATUS);
+        if (! cell.skipPast(IMAGE_SOURCE) || (row.statusImage = readImageName(cell)) == null) {
+            return false;
+        }
+
+        // Subject and topic id
+        cell = cell(row, SUBJECT);
+        row.isUnreadByRecipient = cell.startsWith(UNREAD_BY_RECIPIENT) && cell.indexOf(UNREAD_BY_RECIPIENT_END) >= 0;
+
+        if (! cell.skipPast(TOPIC_ID) || cell.readLong() < 0 || ! cell.consume('"') || ! cell.consume('>')) {
+            return false;
+        }
+
+        int subjectEnd = cell.limit() - SUBJECT_END.length();
+        if (subjectEnd <= cell.position() || ! source.startsWith(SUBJECT_END, subjectEnd)) {
+            return false;
+        }
+        row.subject = source.substring(cell.position(), subjectEnd);
+
+        // Pages count, a link to the last page is only shown for multi-pages topics
+        cell = cell(row, PAGES);
+
+        if (cell.skipPast(PAGES_COUNT)) {
+            row.pagesCount = cell.readInt();
+
+            if (row.pagesCount < 0) {
+                return false;
+            }
+        }
+
+        // Last read post, for followed topics only
+        cell = cell(row, LAST_READ_POST);
+
+        if (cell.skipPast(LAST_READ_POST_ID)) {
+            long lastReadPostId = cell.readLong();
+            String flagImage = cell.skipPast(IMAGE_SOURCE) ? readImageName(cell) : null;
+            int lastReadPage = cell.skipPast(LAST_READ_PAGE) ? cell.readInt() : -1;
+
+            if (lastReadPostId >= 0 && flagImage != null && lastReadPage >= 0) {
+                row.lastReadPostId = lastReadPostId;
+                row.flagImage = flagImage;
+                row.lastReadPage = lastReadPage;
+            }
+        }
+
+        // Author, usually a link to the author profile
+        cell = cell(row, AUTHOR);
+
+        if (cell.startsWith(AUTHOR_PROFILE_LINK)) {
+            cell.skipPast(">");
+        }
+
+        int authorEnd = cell.limit();
+        if (authorEnd - LINK_END.length() >= cell.position() && source.startsWith(LINK_END, authorEnd - LINK_END.length())) {
+            authorEnd -= LINK_END.length();
+        }
+
+        if (authorEnd <= cell.position()) {
+            return false;
+        }
+        row.author = source.substring(cell.position(), authorEnd);
+
+        // Messages count
+        cell = cell(row, MESSAGES_COUNT);
+        row.messagesCount = cell.readInt();
+
+        // Last post date (dd-mm-yyyy&nbsp;à&nbsp;hh:mm) and author
+        cell = cell(row, LAST_POST);
+        if (! cell.skipPast(LAST_POST_DATE)) {
+            return false;
+        }
+
+        long lastPostDate = DateUtils.parseHTMLDate(source, cell.position(), cell.limit());
+
+        if (lastPostDate == DateUtils.INVALID_DATE || ! cell.skipPast(LAST_POST_AUTHOR)) {
+            return false;
+        }
+
+        row.lastPostDate = new Date(lastPostDate);
+        row.lastPostAuthor = cell.readUntil(LAST_POST_AUTHOR_END);
+
+        if (row.lastPostAuthor == null || row.lastPostAuthor.isEmpty()) {
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Moves the row scanner after the next cell with the given class, and stores the bounds of
+     * that cell content at {@code index} in {@code cells}. Returns false if there is no such cell.
+     */
+    private static boolean findCell(HTMLScanner row, String cellClass, int[] cells, int index) {
+        if (! row.skipPast(cellClass) || ! row.skipPast(">")) {
+            return false;
+        }
+
+        int contentStart = row.position();
+        int contentEnd = row.indexOf(CELL_END);
+
+        if (contentEnd < 0) {
+            return false;
+        }
+
+        row.moveTo(contentEnd + CELL_END.length());
+        cells[2 * index] = contentStart;
+        cells[2 * index + 1] = contentEnd;
+        return true;
+    }
+
+    /**
+     * Returns a scanner restricted to the content of a cell located while scanning
+     */
+    private static HTMLScanner cell(TopicRow row, int index) {
+        return new HTMLScanner(row.source, row.cells[2 * index], row.cells[2 * index + 1]);
+    }
+
+    /**
+     * Reads the name of the next GIF image (trailing alphanumeric part of the file name, without
+     * extension), and moves the scanner after it.
+     */
+    private static String readImageName(HTMLScanner scanner) {
+        String source = scanner.source();
+        int extension = scanner.indexOf(GIF_EXTENSION);
+
+        while (extension >= 0) {
+            int nameStart = extension;
+
+            while (nameStart > scanner.position() && isAlphanumeric(source.charAt(nameStart - 1))) {
+                nameStart--;
+            }
+
+            if (nameStart < extension) {
+                scanner.moveTo(extension + GIF_EXTENSION.length());
+                return source.substring(nameStart, extension);
+            }
+
+            extension = scanner.indexOf(GIF_EXTENSION, extension + GIF_EXTENSION.length());
+        }
+
+        return null;
+    }
+
+    private static boolean isAlphanumeric(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+    }
+}
@@ -22,6 +22,7 @@ import android.os.Parcelable;
 import com.ayuget.redface.ui.UIConstants;
 
 import java.util.Date;
+import java.util.List;
 
 public class Post implements Parcelable {
     private final long id;
@@ -47,6 +48,12 @@ public class Post implements Parcelable {
      */
     private String htmlContent;
 
+    /**
+     * Contents of the deeply nested quotes collapsed out of {@link #htmlContent}, null if there
+     * is none.
+     */
+    private List<String> collapsedQuotes;
+
     public Post(long id) {
         this.id = id;
     }
@@ -111,6 +118,21 @@ public class Post implements Parcelable {
         this.htmlContent = htmlContent;
     }
 
+    public List<String> getCollapsedQuotes() {
+        return collapsedQuotes;
+    }
+
+    public void setCollapsedQuotes(List<String> collapsedQuotes) {
+        this.collapsedQuotes = collapsedQuotes;
+    }
+
+    /**
+     * Content of a collapsed quote, or null if there is no such quote
+     */
+    public String getCollapsedQuote(int index) {
+        return collapsedQuotes == null || index < 0 || index >= collapsedQuotes.size() ? null : collapsedQuotes.get(index);
+    }
+
     public int getQuoteCount() {
         return quoteCount;
     }
@@ -155,6 +177,7 @@ public class Post implements Parcelable {
         dest.writeInt(this.quoteCount);
         dest.writeString(this.htmlContent);
         dest.writeInt(this.topicPagesCount);
+        dest.writeStringList(this.collapsedQuotes);
     }
 
     private Post(Parcel in) {
@@ -170,6 +193,7 @@ public class Post implements Parcelable {
         this.quoteCount = in.readInt();
         this.htmlContent = in.readString();
         this.topicPagesCount = in.readInt();
+        this.collapsedQuotes = in.createStringArrayList();
     }
 
     public static final Creator<Post> CREATOR = new Creator<Post>() {
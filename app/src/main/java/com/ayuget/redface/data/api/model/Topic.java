@@ -59,6 +59,19 @@ public class Topic implements Parcelable {
 
     private boolean hasUnreadPosts;
 
+    /**
+     * Fills in topic details (subject, authors, dates, ...) on first access. Topic lists are
+     * mostly filtered on their flags, so decoding everything upfront is a waste for topics which
+     * are never displayed.
+     */
+    public interface DetailsDecoder {
+        void decode(Topic topic);
+    }
+
+    private volatile DetailsDecoder detailsDecoder;
+
+    private boolean isDecodingDetails;
+
     public Topic(int id) {
         this.id = id;
     }
@@ -80,26 +93,32 @@ public class Topic implements Parcelable {
     }
 
     public String getSubject() {
+        decodeDetails();
         return subject;
     }
 
     public void setSubject(String subject) {
+        decodeDetails();
         this.subject = subject;
     }
 
     public String getAuthor() {
+        decodeDetails();
         return author;
     }
 
     public void setAuthor(String author) {
+        decodeDetails();
         this.author = author;
     }
 
     public int getPagesCount() {
+        decodeDetails();
         return pagesCount;
     }
 
     public void setPagesCount(int pagesCount) {
+        decodeDetails();
         this.pagesCount = pagesCount;
     }
 
@@ -112,26 +131,32 @@ public class Topic implements Parcelable {
     }
 
     public Date getLastPostDate() {
+        decodeDetails();
         return lastPostDate;
     }
 
     public void setLastPostDate(Date lastPostDate) {
+        decodeDetails();
         this.lastPostDate = lastPostDate;
     }
 
     public String getLastPostAuthor() {
+        decodeDetails();
         return lastPostAuthor;
     }
 
     public void setLastPostAuthor(String lastPostAuthor) {
+        decodeDetails();
         this.lastPostAuthor = lastPostAuthor;
     }
 
     public TopicStatus getStatus() {
+        decodeDetails();
         return status;
     }
 
     public void setStatus(TopicStatus status) {
+        decodeDetails();
         this.status = status;
     }
 
@@ -152,6 +177,7 @@ public class Topic implements Parcelable {
     }
 
     public int getUnreadPagesCount() {
+        decodeDetails();
         return pagesCount - lastReadPostPage;
     }
 
@@ -172,23 +198,51 @@ public class Topic implements Parcelable {
     }
 
     public int getLastReadPostPage() {
+        decodeDetails();
         return lastReadPostPage;
     }
 
     public void setLastReadPostPage(int lastReadPostPage) {
+        decodeDetails();
         this.lastReadPostPage = lastReadPostPage;
     }
 
     public long getLastReadPostId() {
+        decodeDetails();
         return lastReadPostId;
     }
 
     public void setLastReadPostId(long lastReadPostId) {
+        decodeDetails();
         this.lastReadPostId = lastReadPostId;
     }
 
+    public void setDetailsDecoder(DetailsDecoder detailsDecoder) {
+        this.detailsDecoder = detailsDecoder;
+    }
+
+    private void decodeDetails() {
+        if (detailsDecoder != null) {
+            synchronized (this) {
+                // Decoder uses setters, which end up here too
+                if (detailsDecoder != null && ! isDecodingDetails) {
+                    isDecodingDetails = true;
+
+                    try {
+                        detailsDecoder.decode(this);
+                    }
+                    finally {
+                        isDecodingDetails = false;
+                        detailsDecoder = null;
+                    }
+                }
+            }
+        }
+    }
+
     @Override
     public String toString() {
+        decodeDetails();
         final StringBuffer sb = new StringBuffer("Topic{");
         sb.append("id=").append(id);
         sb.append(", subject='").append(subject).append('\'');
@@ -205,6 +259,7 @@ public class Topic implements Parcelable {
 
     @Override
     public void writeToParcel(Parcel dest, int flags) {
+        decodeDetails();
         dest.writeInt(this.id);
         dest.writeString(this.slug);
         dest.writeString(this.subject);
@@ -259,6 +314,9 @@ public class Topic implements Parcelable {
 
         Topic topic = (Topic) o;
 
+        decodeDetails();
+        topic.decodeDetails();
+
         if (hasUnreadPosts != topic.hasUnreadPosts) return false;
         if (id != topic.id) return false;
         if (isLocked != topic.isLocked) return false;
@@ -283,6 +341,7 @@ public class Topic implements Parcelable {
 
     @Override
     public int hashCode() {
+        decodeDetails();
         int result = id;
         result = 31 * result + (slug != null ? slug.hashCode() : 0);
         result = 31 * result + subject.hashCode();
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2015 Ayuget
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ayuget.redface.data.api.model;
+
+import com.ayuget.redface.ui.UIConstants;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A topic page : page metadata (found before the first post) and its posts.
+ */
+public class TopicPage {
+    public static final int UNKNOWN_ID = -1;
+
+    private final int topicId;
+
+    private final String subject;
+
+    private final int pagesCount;
+
+    private final int categoryId;
+
+    /**
+     * Hashcheck is needed by the server to post new content
+     */
+    private final String hashcheck;
+
+    private final List<Post> posts;
+
+    private TopicPage(int topicId, String subject, int pagesCount, int categoryId, String hashcheck, List<Post> posts) {
+        this.topicId = topicId;
+        this.subject = subject;
+        this.pagesCount = pagesCount;
+        this.categoryId = categoryId;
+        this.hashcheck = hashcheck;
+        this.posts = posts;
+    }
+
+    public int getTopicId() {
+        return topicId;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    /**
+     * Topic pages count, or {@link UIConstants#UNKNOWN_PAGES_COUNT} if the page doesn't tell
+     */
+    public int getPagesCount() {
+        return pagesCount;
+    }
+
+    /**
+     * Category identifier, or {@link #UNKNOWN_ID} for private messages
+     */
+    public int getCategoryId() {
+        return categoryId;
+    }
+
+    public String getHashcheck() {
+        return hashcheck;
+    }
+
+    public List<Post> getPosts() {
+        return posts;
+    }
+
+    public static class Builder {
+        private int topicId;
+
+        private String subject;
+
+        private int pagesCount;
+
+        private int categoryId;
+
+        private String hashcheck;
+
+        private List<Post> posts;
+
+        public Builder() {
+            this.topicId = UNKNOWN_ID;
+            this.pagesCount = UIConstants.UNKNOWN_PAGES_COUNT;
+            this.categoryId = UNKNOWN_ID;
+            this.posts = new ArrayList<>();
+        }
+
+        public Builder forTopic(int topicId) {
+            this.topicId = topicId;
+            return this;
+        }
+
+        public Builder withSubject(String subject) {
+            this.subject = subject;
+            return this;
+        }
+
+        public Builder withPagesCount(int pagesCount) {
+            this.pagesCount = pagesCount;
+            return this;
+        }
+
+        public Builder inCategory(int categoryId) {
+            this.categoryId = categoryId;
+            return this;
+        }
+
+        public Builder withHashcheck(String hashcheck) {
+            this.hashcheck = hashcheck;
+            return this;
+        }
+
+        public Builder withPosts(List<Post> posts) {
+            this.posts = posts;
+            return this;
+        }
+
+        public TopicPage build() {
+            return new TopicPage(topicId, subject, pagesCount, categoryId, hashcheck, posts);
+        }
+    }
+}
@@ -23,6 +23,7 @@ import com.squareup.okhttp.Request;
 import com.squareup.okhttp.Response;
 
 import java.io.IOException;
+import java.io.Reader;
 
 import javax.inject.Inject;
 
@@ -30,6 +31,11 @@ import rx.Observable;
 import rx.Subscriber;
 
 public class PageFetcher {
+    /**
+     * Size of the chunks emitted when streaming a page
+     */
+    private static final int STREAM_BUFFER_SIZE = 8192;
+
     private final HTTPClientProvider httpClientProvider;
 
     @Inject
@@ -41,25 +47,66 @@ public class PageFetcher {
         return Observable.create(new Observable.OnSubscribe<String>() {
             @Override
             public void call(Subscriber<? super String> subscriber) {
-                // Obtain the HttpClient associated with the current User. Having different clients for
-                // each user allows us to easily deal with cookies and to support multi-users in the app
-                OkHttpClient client = httpClientProvider.getClientForUser(user);
-
-                CacheControl cacheControl = new CacheControl.Builder().noTransform().build();
+                try {
+                    Response response = execute(user, pageUrl);
+                    subscriber.onNext(response.body().string());
+                    subscriber.onCompleted();
+                } catch (IOException e) {
+                    subscriber.onError(e);
+                }
+            }
+        });
+    }
 
-                Request request = new Request.Builder()
-                        .cacheControl(cacheControl)
-                        .url(pageUrl)
-                        .build();
+    /**
+     * Streaming variant of {@link #fetchSource(User, String)} : the page is decoded incrementally
+     * and emitted in consecutive chunks, as soon as they are received.
+     */
+    public Observable<String> streamSource(final User user, final String pageUrl) {
+        return Observable.create(new Observable.OnSubscribe<String>() {
+            @Override
+            public void call(Subscriber<? super String> subscriber) {
+                Reader reader = null;
 
                 try {
-                    Response response = client.newCall(request).execute();
-                    subscriber.onNext(response.body().string());
+                    Response response = execute(user, pageUrl);
+                    reader = response.body().charStream();
+
+                    char[] buffer = new char[STREAM_BUFFER_SIZE];
+                    int read;
+
+                    while (! subscriber.isUnsubscribed() && (read = reader.read(buffer)) != -1) {
+                        subscriber.onNext(new String(buffer, 0, read));
+                    }
+
                     subscriber.onCompleted();
                 } catch (IOException e) {
                     subscriber.onError(e);
+                } finally {
+                    if (reader != null) {
+                        try {
+                            reader.close();
+                        } catch (IOException e) {
+                            // Nothing we can do here
+                        }
+                    }
                 }
             }
         });
     }
+
+    private Response execute(User user, String pageUrl) throws IOException {
+        // Obtain the HttpClient associated with the current User. Having different clients for
+        // each user allows us to easily deal with cookies and to support multi-users in the app
+        OkHttpClient client = httpClientProvider.getClientForUser(user);
+
+        CacheControl cacheControl = new CacheControl.Builder().noTransform().build();
+
+        Request request = new Request.Builder()
+                .cacheControl(cacheControl)
+                .url(pageUrl)
+                .build();
+
+        return client.newCall(request).execute();
+    }
 }
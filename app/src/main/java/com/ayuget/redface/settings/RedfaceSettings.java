@@ -18,6 +18,8 @@ package com.ayuget.redface.settings;
 
 import android.content.Context;
 import android.content.SharedPreferences;
+import android.net.ConnectivityManager;
+import android.util.Log;
 
 import com.ayuget.redface.R;
 import com.ayuget.redface.data.api.model.TopicFilter;
@@ -26,6 +28,8 @@ import com.ayuget.redface.ui.theme.RedfaceTheme;
 import com.ayuget.redface.ui.misc.MetaPageOrdering;
 
 public class RedfaceSettings {
+    private static final String LOG_TAG = RedfaceSettings.class.getSimpleName();
+
     private final Context context;
     private final SharedPreferences sharedPreferences;
 
@@ -105,4 +109,78 @@ public class RedfaceSettings {
     public boolean isDoubleTapToRefreshEnabled() {
         return sharedPreferences.getBoolean(SettingsConstants.KEY_DOUBLE_TAP_TO_REFRESH_ENABLED, true);
     }
+
+    public boolean isPageShellEnabled() {
+        return sharedPreferences.getBoolean(SettingsConstants.KEY_PAGE_SHELL_ENABLED, true);
+    }
+
+    /**
+     * Following pages of a topic are appended below the displayed one while scrolling, which
+     * requires the page shell
+     */
+    public boolean isContinuousScrollEnabled() {
+        return isPageShellEnabled() && sharedPreferences.getBoolean(SettingsConstants.KEY_CONTINUOUS_SCROLL, false);
+    }
+
+    /**
+     * Distance from the viewport at which images of topic pages start loading, as a percentage
+     * of the screen height
+     */
+    public int getImagesLookAhead() {
+        return Integer.valueOf(sharedPreferences.getString(SettingsConstants.KEY_IMAGES_LOOK_AHEAD, context.getResources().getString(R.string.pref_images_look_ahead_default)));
+    }
+
+    /**
+     * Nesting depth beyond which quotes are collapsed, 0 if quotes are never collapsed
+     */
+    public int getQuotesMaxDepth() {
+        return Integer.valueOf(sharedPreferences.getString(SettingsConstants.KEY_QUOTES_MAX_DEPTH, context.getResources().getString(R.string.pref_quotes_max_depth_default)));
+    }
+
+    public DataSaverMode getDataSaverMode() {
+        String dataSaverModeValue = sharedPreferences.getString(SettingsConstants.KEY_DATA_SAVER_MODE, context.getResources().getString(R.string.pref_data_saver_mode_default));
+        return DataSaverMode.valueOf(dataSaverModeValue);
+    }
+
+    /**
+     * Whether topic pages are currently rendered in data saver mode, depending on the setting and
+     * on the active network
+     */
+    public boolean isDataSaverActive() {
+        switch (getDataSaverMode()) {
+            case ALWAYS:
+                return true;
+            case ON_METERED_NETWORKS:
+                ConnectivityManager connectivityManager = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+
+                try {
+                    return connectivityManager == null || connectivityManager.isActiveNetworkMetered();
+                }
+                catch (SecurityException e) {
+                    // Network state can't be read, network is assumed to be metered
+                    Log.w(LOG_TAG, "Unable to check if active network is metered", e);
+                    return true;
+                }
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Whether smileys are replaced by their code in data saver mode
+     */
+    public boolean showSmileysAsText() {
+        return sharedPreferences.getBoolean(SettingsConstants.KEY_SMILEYS_AS_TEXT, false);
+    }
+
+    /**
+     * Estimated amount of data (in bytes) saved so far by the data saver mode
+     */
+    public long getDataSavedBytes() {
+        return sharedPreferences.getLong(SettingsConstants.KEY_DATA_SAVED_BYTES, 0);
+    }
+
+    public synchronized void addDataSavedBytes(long bytes) {
+        sharedPreferences.edit().putLong(SettingsConstants.KEY_DATA_SAVED_BYTES, Math.max(0, getDataSavedBytes() + bytes)).apply();
+    }
 }
@@ -51,5 +51,19 @@ public class SettingsConstants {
 
     public static final String KEY_DOUBLE_TAP_TO_REFRESH_ENABLED = "double_tap_to_refresh_enabled";
 
+    public static final String KEY_PAGE_SHELL_ENABLED = "page_shell_enabled";
+
+    public static final String KEY_CONTINUOUS_SCROLL = "continuous_scroll";
+
     public static final String KEY_FONT_SIZE = "font_size";
+
+    public static final String KEY_IMAGES_LOOK_AHEAD = "images_look_ahead";
+
+    public static final String KEY_DATA_SAVER_MODE = "data_saver_mode";
+
+    public static final String KEY_SMILEYS_AS_TEXT = "smileys_as_text";
+
+    public static final String KEY_DATA_SAVED_BYTES = "data_saved_bytes";
+
+    public static final String KEY_QUOTES_MAX_DEPTH = "quotes_max_depth";
 }
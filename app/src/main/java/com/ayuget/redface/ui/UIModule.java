@@ -19,6 +19,7 @@ package com.ayuget.redface.ui;
 import com.ayuget.redface.RedfaceApp;
 import com.ayuget.redface.account.AccountModule;
 import com.ayuget.redface.account.UserManager;
+import com.ayuget.redface.data.api.hfr.PostsMinifier;
 import com.ayuget.redface.settings.RedfaceSettings;
 import com.ayuget.redface.ui.activity.AccountActivity;
 import com.ayuget.redface.ui.activity.EditPostActivity;
@@ -41,12 +42,14 @@ import com.ayuget.redface.ui.template.AvatarTemplate;
 import com.ayuget.redface.ui.template.PostActionsTemplate;
 import com.ayuget.redface.ui.template.PostExtraDetailsTemplate;
 import com.ayuget.redface.ui.template.PostTemplate;
+import com.ayuget.redface.ui.template.PostsShellTemplate;
 import com.ayuget.redface.ui.template.PostsTemplate;
 import com.ayuget.redface.ui.template.QuickActionsTemplate;
 import com.ayuget.redface.ui.template.SmileyTemplate;
 import com.ayuget.redface.ui.template.SmileysTemplate;
 import com.ayuget.redface.ui.view.SmileySelectorView;
 import com.ayuget.redface.ui.view.TopicPageView;
+import com.ayuget.redface.ui.view.TopicPageViewPool;
 
 import javax.inject.Singleton;
 
@@ -81,37 +84,45 @@ import dagger.Provides;
         complete = false
 )
 public class UIModule {
-    @Provides @Singleton AvatarTemplate provideAvatarTemplate(RedfaceApp app) {
-        return new AvatarTemplate(app.getApplicationContext());
+    @Provides @Singleton AvatarTemplate provideAvatarTemplate(RedfaceApp app, PostsMinifier postsMinifier) {
+        return new AvatarTemplate(app.getApplicationContext(), postsMinifier);
     }
 
-    @Provides @Singleton SmileyTemplate provideSmileyTemplate(RedfaceApp app) {
-        return new SmileyTemplate(app.getApplicationContext());
+    @Provides @Singleton SmileyTemplate provideSmileyTemplate(RedfaceApp app, PostsMinifier postsMinifier) {
+        return new SmileyTemplate(app.getApplicationContext(), postsMinifier);
     }
 
-    @Provides @Singleton QuickActionsTemplate provideQuickActions(RedfaceApp app, UserManager userManager) {
-        return new QuickActionsTemplate(app.getApplicationContext(), userManager);
+    @Provides @Singleton QuickActionsTemplate provideQuickActions(RedfaceApp app, PostsMinifier postsMinifier, UserManager userManager) {
+        return new QuickActionsTemplate(app.getApplicationContext(), postsMinifier, userManager);
     }
 
-    @Provides @Singleton PostTemplate providePostTemplate(RedfaceApp app, UserManager userManager, AvatarTemplate avatarTemplate, PostExtraDetailsTemplate extraDetailsTemplate, PostActionsTemplate postActionsTemplate, QuickActionsTemplate quickActionsTemplate) {
-        return new PostTemplate(app.getApplicationContext(), userManager, avatarTemplate, extraDetailsTemplate, postActionsTemplate, quickActionsTemplate);
+    @Provides @Singleton PostTemplate providePostTemplate(RedfaceApp app, PostsMinifier postsMinifier, UserManager userManager, AvatarTemplate avatarTemplate, PostExtraDetailsTemplate extraDetailsTemplate, PostActionsTemplate postActionsTemplate, QuickActionsTemplate quickActionsTemplate) {
+        return new PostTemplate(app.getApplicationContext(), postsMinifier, userManager, avatarTemplate, extraDetailsTemplate, postActionsTemplate, quickActionsTemplate);
     }
 
-    @Provides @Singleton PostsTemplate providePostsTemplate(RedfaceApp app, PostTemplate postTemplate, ThemeManager themeManager) {
-        return new PostsTemplate(app.getApplicationContext(), postTemplate, themeManager);
+    @Provides @Singleton PostsTemplate providePostsTemplate(RedfaceApp app, PostsMinifier postsMinifier, PostTemplate postTemplate, ThemeManager themeManager) {
+        return new PostsTemplate(app.getApplicationContext(), postsMinifier, postTemplate, themeManager);
     }
 
-    @Provides @Singleton SmileysTemplate provideSmileysTemplate(RedfaceApp app, SmileyTemplate smileyTemplate, ThemeManager themeManager) {
-        return new SmileysTemplate(app.getApplicationContext(), smileyTemplate, themeManager);
+    @Provides @Singleton PostsShellTemplate providePostsShellTemplate(RedfaceApp app, PostsMinifier postsMinifier, PostTemplate postTemplate, ThemeManager themeManager) {
+        return new PostsShellTemplate(app.getApplicationContext(), postsMinifier, postTemplate, themeManager);
     }
 
-    @Provides @Singleton PostActionsTemplate providePostActionsTemplate(RedfaceApp app, UserManager userManager) {
-        return new PostActionsTemplate(app.getApplicationContext(), userManager);
+    @Provides @Singleton SmileysTemplate provideSmileysTemplate(RedfaceApp app, PostsMinifier postsMinifier, SmileyTemplate smileyTemplate, ThemeManager themeManager) {
+        return new SmileysTemplate(app.getApplicationContext(), postsMinifier, smileyTemplate, themeManager);
+    }
+
+    @Provides @Singleton PostActionsTemplate providePostActionsTemplate(RedfaceApp app, PostsMinifier postsMinifier, UserManager userManager) {
+        return new PostActionsTemplate(app.getApplicationContext(), postsMinifier, userManager);
     }
 
     @Provides @Singleton
-    PostExtraDetailsTemplate providePostExtraDetailsTemplate(RedfaceApp app) {
-        return new PostExtraDetailsTemplate(app.getApplicationContext());
+    PostExtraDetailsTemplate providePostExtraDetailsTemplate(RedfaceApp app, PostsMinifier postsMinifier) {
+        return new PostExtraDetailsTemplate(app.getApplicationContext(), postsMinifier);
+    }
+
+    @Provides @Singleton TopicPageViewPool provideTopicPageViewPool(RedfaceApp app, RedfaceSettings settings) {
+        return new TopicPageViewPool(app.getApplicationContext(), settings);
     }
 
     @Provides @Singleton ThemeManager provideThemeManager(RedfaceSettings settings) {
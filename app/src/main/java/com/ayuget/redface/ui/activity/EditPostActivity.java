@@ -95,6 +95,13 @@ public class EditPostActivity extends ReplyActivity {
         replyToActivity(RESULT_OK, true);
     }
 
+    @Override
+    protected Intent buildReturnIntent(boolean wasEdit) {
+        Intent returnIntent = super.buildReturnIntent(wasEdit);
+        returnIntent.putExtra(UIConstants.ARG_EDITED_POST_ID, editedPostId);
+        return returnIntent;
+    }
+
     protected void onReplyFailure() {
         replyToActivity(UIConstants.REPLY_RESULT_KO, true);
     }
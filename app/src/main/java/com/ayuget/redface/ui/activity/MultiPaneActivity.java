@@ -26,6 +26,8 @@ import com.ayuget.redface.data.api.model.Topic;
 import com.ayuget.redface.data.rx.EndlessObserver;
 import com.ayuget.redface.ui.UIConstants;
 import com.ayuget.redface.ui.event.PageRefreshRequestEvent;
+import com.ayuget.redface.ui.event.PostDeletedEvent;
+import com.ayuget.redface.ui.event.PostEditedEvent;
 import com.ayuget.redface.ui.misc.SnackbarHelper;
 
 import javax.inject.Inject;
@@ -53,8 +55,9 @@ public class MultiPaneActivity extends BaseDrawerActivity {
 
     /**
      * Event which will be fired once a reply / edit is successfully posted to the server
+     * ({@link PageRefreshRequestEvent} or {@link PostEditedEvent})
      */
-    private PageRefreshRequestEvent refreshRequestEvent;
+    private Object refreshRequestEvent;
 
     @Inject
     MDService mdService;
@@ -106,7 +109,15 @@ public class MultiPaneActivity extends BaseDrawerActivity {
 
                     // Deferring event posting until onResume() is called, otherwise inner fragments
                     // won't get the event.
-                    refreshRequestEvent = new PageRefreshRequestEvent(topic);
+                    int editedPostId = data.getIntExtra(UIConstants.ARG_EDITED_POST_ID, 0);
+
+                    if (wasEdit && editedPostId != 0) {
+                        // Only the edited post has to be reloaded
+                        refreshRequestEvent = new PostEditedEvent(topic, editedPostId);
+                    }
+                    else {
+                        refreshRequestEvent = new PageRefreshRequestEvent(topic);
+                    }
                 }
             }
             else if (resultCode == UIConstants.REPLY_RESULT_KO) {
@@ -168,7 +179,7 @@ public class MultiPaneActivity extends BaseDrawerActivity {
     /**
      * Deletes a post
      */
-    public void deletePost(final Topic topic, int postId) {
+    public void deletePost(final Topic topic, final int postId) {
         Toast.makeText(this, R.string.delete_post_in_progress, Toast.LENGTH_SHORT).show();
 
         subscribe(mdService.deletePost(userManager.getActiveUser(), topic, postId)
@@ -178,7 +189,7 @@ public class MultiPaneActivity extends BaseDrawerActivity {
                     @Override
                     public void onNext(Boolean success) {
                         if (success) {
-                            bus.post(new PageRefreshRequestEvent(topic));
+                            bus.post(new PostDeletedEvent(topic, postId));
                         }
                         else {
                             Toast.makeText(MultiPaneActivity.this, R.string.delete_post_failed, Toast.LENGTH_SHORT).show();
@@ -747,11 +747,15 @@ public class ReplyActivity extends BaseActivity implements Toolbar.OnMenuItemCli
     }
 
     protected void replyToActivity(int returnCode, boolean wasEdit) {
+        setResult(returnCode, buildReturnIntent(wasEdit));
+        finish();
+    }
+
+    protected Intent buildReturnIntent(boolean wasEdit) {
         Intent returnIntent = new Intent();
         returnIntent.putExtra(UIConstants.ARG_REPLY_TOPIC, currentTopic);
         returnIntent.putExtra(UIConstants.ARG_REPLY_WAS_EDIT, wasEdit);
-        setResult(returnCode, returnIntent);
-        finish();
+        return returnIntent;
     }
 
     /**
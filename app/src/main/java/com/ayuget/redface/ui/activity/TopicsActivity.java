@@ -385,7 +385,7 @@ public class TopicsActivity extends MultiPaneActivity implements TopicListFragme
     @Subscribe
     public void onInternalLinkClicked(InternalLinkClickedEvent event) {
         TopicFragment topicFragment = (TopicFragment) getSupportFragmentManager().findFragmentByTag(TOPIC_FRAGMENT_TAG);
-        if (topicFragment != null && event.getTopic() == topicFragment.getTopic() && event.getPage() == topicFragment.getCurrentPage()) {
+        if (topicFragment != null && event.getTopic() == topicFragment.getTopic() && topicFragment.isPageDisplayed(event.getPage())) {
             topicFragment.setCurrentPagePosition(event.getPagePosition());
         }
     }
@@ -23,16 +23,20 @@ import android.preference.ListPreference;
 import android.preference.Preference;
 import android.preference.PreferenceCategory;
 import android.preference.PreferenceFragment;
+import android.text.format.Formatter;
 import android.util.Log;
 
 import com.ayuget.redface.RedfaceApp;
 import com.ayuget.redface.R;
 import com.ayuget.redface.account.UserManager;
+import com.ayuget.redface.data.api.hfr.TweakedPostsCache;
 import com.ayuget.redface.data.api.model.Category;
 import com.ayuget.redface.data.state.CategoriesStore;
 import com.ayuget.redface.settings.ProxySettingsChangedEvent;
+import com.ayuget.redface.settings.RedfaceSettings;
 import com.ayuget.redface.settings.SettingsConstants;
 import com.ayuget.redface.ui.event.ThemeChangedEvent;
+import com.ayuget.redface.ui.template.RenderedPagesCache;
 import com.google.common.collect.ObjectArrays;
 import com.hannesdorfmann.fragmentargs.FragmentArgs;
 import com.hannesdorfmann.fragmentargs.annotation.Arg;
@@ -54,6 +58,15 @@ public class NestedPreferenceFragment extends PreferenceFragment implements Shar
     @Inject
     UserManager userManager;
 
+    @Inject
+    RedfaceSettings appSettings;
+
+    @Inject
+    TweakedPostsCache tweakedPostsCache;
+
+    @Inject
+    RenderedPagesCache renderedPagesCache;
+
     @Arg
     String fragmentKey;
 
@@ -149,7 +162,13 @@ public class NestedPreferenceFragment extends PreferenceFragment implements Shar
 
         if (pref instanceof ListPreference) {
             ListPreference listPref = (ListPreference) pref;
-            listPref.setSummary(listPref.getEntry());
+
+            if (SettingsConstants.KEY_DATA_SAVER_MODE.equals(pref.getKey())) {
+                listPref.setSummary(getString(R.string.pref_data_saver_mode_summary, listPref.getEntry(), Formatter.formatShortFileSize(getActivity(), appSettings.getDataSavedBytes())));
+            }
+            else {
+                listPref.setSummary(listPref.getEntry());
+            }
         }
         else if (pref instanceof EditTextPreference) {
             EditTextPreference editTextPref = (EditTextPreference) pref;
@@ -171,6 +190,17 @@ public class NestedPreferenceFragment extends PreferenceFragment implements Shar
             bus.post(new ThemeChangedEvent());
         }
 
+        if (key.equals(SettingsConstants.KEY_QUOTES_MAX_DEPTH)) {
+            Log.d(LOG_TAG, "Clearing tweaked posts and rendered pages, quotes are collapsed differently");
+            tweakedPostsCache.clear();
+            renderedPagesCache.clear();
+        }
+
+        if (key.equals(SettingsConstants.KEY_SHOW_PREVIOUS_PAGE_LAST_POST)) {
+            Log.d(LOG_TAG, "Clearing rendered pages, first post of pages is shown differently");
+            renderedPagesCache.clear();
+        }
+
         updatePreferenceSummary(sharedPreferences, findPreference(key));
     }
 
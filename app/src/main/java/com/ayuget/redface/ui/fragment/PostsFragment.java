@@ -34,7 +34,6 @@ import android.widget.Toast;
 import com.ayuget.redface.R;
 import com.ayuget.redface.RedfaceApp;
 import com.ayuget.redface.account.UserManager;
-import com.ayuget.redface.data.DataService;
 import com.ayuget.redface.data.api.MDService;
 import com.ayuget.redface.data.api.model.Post;
 import com.ayuget.redface.data.api.model.Topic;
@@ -46,9 +45,14 @@ import com.ayuget.redface.ui.activity.ReplyActivity;
 import com.ayuget.redface.ui.event.NewPostEvent;
 import com.ayuget.redface.ui.event.PageRefreshRequestEvent;
 import com.ayuget.redface.ui.event.PageSelectedEvent;
+import com.ayuget.redface.ui.event.PostDeletedEvent;
+import com.ayuget.redface.ui.event.PostEditedEvent;
 import com.ayuget.redface.ui.event.ScrollToPostEvent;
 import com.ayuget.redface.ui.misc.UiUtils;
+import com.ayuget.redface.ui.template.RenderedPage;
+import com.ayuget.redface.ui.template.RenderedPagesLoader;
 import com.ayuget.redface.ui.view.TopicPageView;
+import com.ayuget.redface.ui.view.TopicPageViewPool;
 import com.getbase.floatingactionbutton.FloatingActionButton;
 import com.google.common.base.Joiner;
 import com.hannesdorfmann.fragmentargs.annotation.Arg;
@@ -90,7 +94,6 @@ public class PostsFragment extends BaseFragment {
     @InjectView(R.id.error_reload_button)
     Button errorReloadButton;
 
-    @InjectView(R.id.postsView)
     TopicPageView topicPageView;
 
     @InjectView(R.id.topic_list_swipe_refresh_layout)
@@ -101,13 +104,15 @@ public class PostsFragment extends BaseFragment {
 
     private ArrayList<Post> displayedPosts = new ArrayList<>();
 
-    @Inject DataService dataService;
+    @Inject RenderedPagesLoader renderedPagesLoader;
 
     @Inject
     UserManager userManager;
 
     @Inject MDService mdService;
 
+    @Inject TopicPageViewPool topicPageViewPool;
+
     /**
      * Current scroll position in the webview.
      */
@@ -141,6 +146,12 @@ public class PostsFragment extends BaseFragment {
 
         final View rootView = inflateRootView(R.layout.fragment_posts, inflater, container);
 
+        // Webview is borrowed from the pool (with the themed context of the fragment), and
+        // neighbour pages will get prewarmed ones
+        topicPageView = topicPageViewPool.acquire(rootView.getContext());
+        swipeRefreshLayout.addView(topicPageView, new ViewGroup.LayoutParams(ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT));
+        topicPageViewPool.prewarm();
+
         // Default view is the loading indicator
         showLoadingIndicator();
 
@@ -155,7 +166,8 @@ public class PostsFragment extends BaseFragment {
 
                 topicPageView.setTopic(topic);
                 topicPageView.setPage(currentPage);
-                topicPageView.setPosts(displayedPosts);
+                topicPageView.setPosts(new ArrayList<>(displayedPosts));
+                topicPageView.setContinuousScroll();
 
                 restoredPosts = displayedPosts.size() > 0;
                 showPosts();
@@ -172,7 +184,7 @@ public class PostsFragment extends BaseFragment {
             public void onRefresh() {
                 savePageScrollPosition();
                 Log.d(LOG_TAG, String.format("Refreshing topic page '%d' for topic %s", currentPage, topic));
-                loadPage(currentPage);
+                refreshPage(currentPage);
             }
         });
         swipeRefreshLayout.setColorSchemeResources(R.color.theme_primary, R.color.theme_primary_dark);
@@ -217,6 +229,23 @@ public class PostsFragment extends BaseFragment {
             }
         });
 
+        topicPageView.setOnContinuousScrollListener(new TopicPageView.OnContinuousScrollListener() {
+            @Override
+            public void onPageRequested(int page) {
+                Log.d(LOG_TAG, String.format("@%d -> Loading page '%d' below page '%d'", System.identityHashCode(PostsFragment.this), page, currentPage));
+                subscribe(renderedPagesLoader.loadPage(userManager.getActiveUser(), topic, page, new ContinuousPageObserver(page)));
+            }
+
+            @Override
+            public void onPageScrolled(int page) {
+                Fragment parent = getParentFragment();
+
+                if (parent != null && getUserVisibleHint()) {
+                    ((TopicFragment) parent).onContinuousScroll(page);
+                }
+            }
+        });
+
         topicPageView.setOnMultiQuoteModeListener(new TopicPageView.OnMultiQuoteModeListener() {
             @Override
             public void onMultiQuoteModeToggled(boolean active) {
@@ -268,6 +297,9 @@ public class PostsFragment extends BaseFragment {
     public void onResume() {
         super.onResume();
 
+        // Font size may have been changed from settings, and is applied to the displayed page
+        topicPageView.applyTheme();
+
         // Page is loaded instantly only if it's the initial page requested on topic load. Other
         // pages will be loaded once selected in the ViewPager
         if (isInitialPage() && displayedPosts != null && displayedPosts.size() == 0) {
@@ -284,11 +316,15 @@ public class PostsFragment extends BaseFragment {
             topicPageView.setOnScrollListener(null);
             topicPageView.setOnMultiQuoteModeListener(null);
             topicPageView.setOnPageLoadedListener(null);
-            topicPageView.removeAllViews();
-            topicPageView.destroy();
+            topicPageView.setOnContinuousScrollListener(null);
 
-            RefWatcher refWatcher = RedfaceApp.getRefWatcher(getActivity());
-            refWatcher.watch(topicPageView);
+            // Pooled views are still alive, only destroyed ones should be garbage collected
+            if (!topicPageViewPool.release(topicPageView)) {
+                RefWatcher refWatcher = RedfaceApp.getRefWatcher(getActivity());
+                refWatcher.watch(topicPageView);
+            }
+
+            topicPageView = null;
         }
 
         swipeRefreshLayout.setOnRefreshListener(null);
@@ -404,20 +440,120 @@ public class PostsFragment extends BaseFragment {
         if (event.getTopic().getId() == topic.getId() && isVisible()) {
             Log.d(LOG_TAG, String.format("@%d -> Fragment(currentPage=%d) -> Refresh requested event", System.identityHashCode(this), currentPage));
 
-            savePageScrollPosition();
+            reloadPage();
+        }
+    }
+
+    /**
+     * Edited post is reloaded alone and patched into the displayed page. Whole page is reloaded
+     * if the post can't be patched (page shell disabled, post not found, ...).
+     */
+    @Subscribe public void onPostEdited(PostEditedEvent event) {
+        if (event.getTopic().getId() == topic.getId() && isVisible()) {
+            Log.d(LOG_TAG, String.format("@%d -> Fragment(currentPage=%d) -> Post '%d' edited", System.identityHashCode(this), currentPage, event.getPostId()));
+            int postPage = topicPageView.getPageOfPost(event.getPostId());
+
+            if (postPage > currentPage) {
+                reloadAppendedPage(postPage);
+                return;
+            }
+
+            if (findDisplayedPost(event.getPostId()) >= 0 && topicPageView.isUpdatingPostsInPlace()) {
+                swipeRefreshLayout.setRefreshing(true);
+                subscribe(renderedPagesLoader.reloadPost(userManager.getActiveUser(), topic, currentPage, event.getPostId(), new EditedPostObserver()));
+            }
+            else {
+                reloadPage();
+            }
+        }
+    }
+
+    /**
+     * Deleted post (deletion being confirmed by the forum) is removed from the displayed page and
+     * from cached pages, without rendering or loading it again. The page is reloaded if the post
+     * can't be removed in place.
+     */
+    @Subscribe public void onPostDeleted(PostDeletedEvent event) {
+        if (event.getTopic().getId() == topic.getId() && isVisible()) {
+            Log.d(LOG_TAG, String.format("@%d -> Fragment(currentPage=%d) -> Post '%d' deleted", System.identityHashCode(this), currentPage, event.getPostId()));
+            int postPage = topicPageView.getPageOfPost(event.getPostId());
+
+            if (postPage > currentPage) {
+                reloadAppendedPage(postPage);
+                return;
+            }
+
+            int postIndex = findDisplayedPost(event.getPostId());
+
+            if (postIndex >= 0 && topicPageView.removePost(event.getPostId())) {
+                displayedPosts.remove(postIndex);
+                renderedPagesLoader.removePost(topic, currentPage, event.getPostId());
+            }
+            else {
+                reloadPage();
+            }
+        }
+    }
+
+    /**
+     * Returns the index of a post in displayed posts, -1 if it's not displayed
+     */
+    private int findDisplayedPost(long postId) {
+        for (int i = 0; i < displayedPosts.size(); i++) {
+            if (displayedPosts.get(i).getId() == postId) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Reloads the whole page from the network, keeping the scroll position. In continuous scroll
+     * mode, the page being read is reloaded, which may be appended below the displayed one.
+     */
+    private void reloadPage() {
+        int readPage = topicPageView.getReadPage();
+
+        if (readPage > currentPage) {
+            reloadAppendedPage(readPage);
+            return;
+        }
+
+        savePageScrollPosition();
+        renderedPagesLoader.invalidatePage(topic, currentPage);
+
+        // Changed posts are patched into the displayed page, which can then stay visible
+        if (topicPageView.isUpdatingPostsInPlace()) {
+            swipeRefreshLayout.setRefreshing(true);
+        }
+        else {
             showLoadingIndicator();
-            loadPage(currentPage);
         }
+
+        loadPage(currentPage);
+    }
+
+    /**
+     * Reloads a page appended below the displayed one in continuous scroll mode, which replaces
+     * its section once loaded
+     */
+    private void reloadAppendedPage(int page) {
+        Log.d(LOG_TAG, String.format("@%d -> Reloading page '%d' below page '%d'", System.identityHashCode(this), page, currentPage));
+        renderedPagesLoader.invalidatePage(topic, page);
+        swipeRefreshLayout.setRefreshing(true);
+        subscribe(renderedPagesLoader.loadPage(userManager.getActiveUser(), topic, page, new ContinuousPageObserver(page)));
     }
 
     /**
      * Since we can't (without hacks) retrieve the currently displayed fragment in the viewpager,
      * another choice is to use the event bus to subscribe to scrolling "events" and change the
-     * scroll position like this.
+     * scroll position like this. Pages appended in continuous scroll mode are only scrolled to
+     * in the visible fragment.
      */
     @Subscribe public void onScrollToPost(ScrollToPostEvent event) {
-        if (event.getTopic() == topic && event.getPage() == currentPage) {
-            topicPageView.setPagePosition(event.getPagePosition());
+        if (event.getTopic() == topic && (event.getPage() == currentPage || (getUserVisibleHint() && topicPageView.isPageDisplayed(event.getPage())))) {
+            topicPageView.setPagePosition(event.getPage(), event.getPagePosition());
         }
     }
 
@@ -450,33 +586,113 @@ public class PostsFragment extends BaseFragment {
         if (swipeRefreshLayout != null) { swipeRefreshLayout.setVisibility(View.VISIBLE); }
     }
 
+    /**
+     * Loads a page. Unless displayed posts are to be patched, posts are shown as soon as they are
+     * received, see {@link RenderedPagesLoader#streamPage}
+     */
     public void loadPage(int page) {
         Log.d(LOG_TAG, String.format("@%d -> Loading page '%d'", System.identityHashCode(this), page));
-        subscribe(dataService.loadPosts(userManager.getActiveUser(), topic, page, new EndlessObserver<List<Post>>() {
-            @Override
-            public void onNext(List<Post> posts) {
-                swipeRefreshLayout.setRefreshing(false);
 
-                displayedPosts.clear();
-                displayedPosts.addAll(posts);
+        if (topicPageView.isShowingPartialPages()) {
+            subscribe(renderedPagesLoader.streamPage(userManager.getActiveUser(), topic, page, new PostsObserver()));
+        }
+        else {
+            subscribe(renderedPagesLoader.loadPage(userManager.getActiveUser(), topic, page, new PostsObserver()));
+        }
+    }
 
-                topicPageView.setTopic(topic);
-                topicPageView.setPage(currentPage);
+    /**
+     * Reloads the page, only parsing posts which are new or changed since they were displayed :
+     * added, edited and removed posts are then patched into the displayed page, see
+     * {@link TopicPageView#setRenderedPage(RenderedPage)}
+     */
+    private void refreshPage(int page) {
+        Log.d(LOG_TAG, String.format("@%d -> Refreshing page '%d' (%d displayed posts)", System.identityHashCode(this), page, displayedPosts.size()));
+        subscribe(renderedPagesLoader.refreshPage(userManager.getActiveUser(), topic, page, new ArrayList<>(displayedPosts), new PostsObserver()));
+    }
 
-                Log.d(LOG_TAG, String.format("@%d -> Done loading page, settings posts", System.identityHashCode(PostsFragment.this)));
-                topicPageView.setPosts(posts);
-                showPosts();
+    private class PostsObserver extends EndlessObserver<RenderedPage> {
+        @Override
+        public void onNext(RenderedPage renderedPage) {
+            swipeRefreshLayout.setRefreshing(false);
+
+            displayedPosts.clear();
+            displayedPosts.addAll(renderedPage.getPosts());
+
+            topicPageView.setTopic(topic);
+            topicPageView.setPage(currentPage);
+
+            Log.d(LOG_TAG, String.format("@%d -> Done loading page, settings posts (complete=%b)", System.identityHashCode(PostsFragment.this), renderedPage.isComplete()));
+            topicPageView.setRenderedPage(renderedPage);
+
+            if (renderedPage.isComplete()) {
+                topicPageView.setContinuousScroll();
             }
 
-            @Override
-            public void onError(Throwable throwable) {
-                swipeRefreshLayout.setRefreshing(false);
+            showPosts();
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            swipeRefreshLayout.setRefreshing(false);
+
+            Log.e(LOG_TAG, String.format("Error displaying topic '%s'", topic), throwable);
+            showErrorView();
+        }
+    }
+
+    /**
+     * Shows a page requested in continuous scroll mode, see {@link TopicPageView#showPage(int, RenderedPage)}
+     */
+    private class ContinuousPageObserver extends EndlessObserver<RenderedPage> {
+        private final int page;
+
+        private ContinuousPageObserver(int page) {
+            this.page = page;
+        }
 
-                Log.e(LOG_TAG, String.format("Error displaying topic '%s'", topic), throwable);
-                showErrorView();
+        @Override
+        public void onNext(RenderedPage renderedPage) {
+            swipeRefreshLayout.setRefreshing(false);
+
+            if (page == currentPage) {
+                // Displayed page, evicted and loaded again
+                displayedPosts.clear();
+                displayedPosts.addAll(renderedPage.getPosts());
             }
-        }));
+
+            topicPageView.showPage(page, renderedPage);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            swipeRefreshLayout.setRefreshing(false);
+
+            Log.e(LOG_TAG, String.format("Error loading page '%d' below page '%d' of topic '%s'", page, currentPage, topic), throwable);
+            topicPageView.cancelPageRequest(page);
+        }
     }
 
+    private class EditedPostObserver extends EndlessObserver<RenderedPage> {
+        @Override
+        public void onNext(RenderedPage renderedPost) {
+            Post post = renderedPost == null ? null : renderedPost.getPosts().get(0);
+            int postIndex = post == null ? -1 : findDisplayedPost(post.getId());
 
+            if (postIndex < 0 || !topicPageView.replacePost(renderedPost)) {
+                Log.w(LOG_TAG, String.format("@%d -> Edited post can't be patched, reloading page", System.identityHashCode(PostsFragment.this)));
+                reloadPage();
+                return;
+            }
+
+            swipeRefreshLayout.setRefreshing(false);
+            displayedPosts.set(postIndex, post);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            Log.e(LOG_TAG, String.format("Error reloading edited post, reloading page for topic '%s'", topic), throwable);
+            reloadPage();
+        }
+    }
 }
@@ -55,6 +55,7 @@ import com.ayuget.redface.ui.misc.PagePosition;
 import com.ayuget.redface.ui.misc.SnackbarHelper;
 import com.ayuget.redface.ui.misc.TopicPosition;
 import com.ayuget.redface.ui.misc.UiUtils;
+import com.ayuget.redface.ui.template.RenderedPagesLoader;
 import com.ayuget.redface.util.JsExecutor;
 import com.hannesdorfmann.fragmentargs.annotation.Arg;
 import com.rengwuxian.materialedittext.MaterialEditText;
@@ -86,6 +87,15 @@ public class TopicFragment extends ToolbarFragment implements ViewPager.OnPageCh
 
     private boolean userScrolledViewPager = false;
 
+    /**
+     * Page being read in continuous scroll mode (see {@link #onContinuousScroll(int)}), and last
+     * page read since the current page has been selected : pages read stay displayed below the
+     * page selected in the viewPager.
+     */
+    private int readPage;
+
+    private int lastReadPage;
+
     /**
      * Map of currently quoted messages and their corresponding content,
      * used for multi-quote feature
@@ -102,6 +112,9 @@ public class TopicFragment extends ToolbarFragment implements ViewPager.OnPageCh
     @Inject
     MDEndpoints mdEndpoints;
 
+    @Inject
+    RenderedPagesLoader renderedPagesLoader;
+
 
     @InjectView(R.id.pager)
     ViewPager pager;
@@ -135,7 +148,11 @@ public class TopicFragment extends ToolbarFragment implements ViewPager.OnPageCh
             topicPageAdapter = new TopicPageAdapter(getChildFragmentManager(), topic, currentPage);
         }
 
-        if (savedInstanceState != null) {
+        if (savedInstanceState == null) {
+            // Topic has just been opened, its pages are loaded from the network
+            renderedPagesLoader.invalidateTopic(topic);
+        }
+        else {
             topicPositionsStack = savedInstanceState.getParcelableArrayList(ARG_TOPIC_POSITIONS_STACK);
             quotedMessages = new LinkedHashMap<>((Map)savedInstanceState.getSerializable(ARG_TOPIC_QUOTED_MESSAGES));
         }
@@ -148,6 +165,9 @@ public class TopicFragment extends ToolbarFragment implements ViewPager.OnPageCh
             quotedMessages = new LinkedHashMap<>();
         }
 
+        readPage = currentPage;
+        lastReadPage = currentPage;
+
         setHasOptionsMenu(true);
     }
 
@@ -198,6 +218,8 @@ public class TopicFragment extends ToolbarFragment implements ViewPager.OnPageCh
     @Override
     public void onPageSelected(int position) {
         currentPage = position + 1;
+        readPage = currentPage;
+        lastReadPage = currentPage;
         bus.post(new PageSelectedEvent(topic, currentPage));
     }
 
@@ -296,12 +318,12 @@ public class TopicFragment extends ToolbarFragment implements ViewPager.OnPageCh
 
     @Subscribe
     public void onGoToPost(GoToPostEvent event) {
-        topicPositionsStack.add(new TopicPosition(currentPage, currentPagePosition));
+        topicPositionsStack.add(new TopicPosition(readPage, currentPagePosition));
 
         currentPagePosition = event.getPagePosition();
 
-        if (currentPage == event.getPage()) {
-            event.getTopicPageView().setPagePosition(currentPagePosition);
+        if (event.getTopicPageView().isPageDisplayed(event.getPage())) {
+            event.getTopicPageView().setPagePosition(event.getPage(), currentPagePosition);
         }
         else {
             currentPage = event.getPage();
@@ -325,8 +347,8 @@ public class TopicFragment extends ToolbarFragment implements ViewPager.OnPageCh
 
             currentPagePosition = topicPosition.getPagePosition();
 
-            if (currentPage == topicPosition.getPage()) {
-                bus.post(new ScrollToPostEvent(topic, currentPage, currentPagePosition));
+            if (isPageDisplayed(topicPosition.getPage())) {
+                bus.post(new ScrollToPostEvent(topic, topicPosition.getPage(), currentPagePosition));
             }
             else {
                 currentPage = topicPosition.getPage();
@@ -366,6 +388,31 @@ public class TopicFragment extends ToolbarFragment implements ViewPager.OnPageCh
         return currentPage;
     }
 
+    /**
+     * Returns the page being read, which may be appended below the current page in continuous
+     * scroll mode
+     */
+    public int getReadPage() {
+        return readPage;
+    }
+
+    /**
+     * Returns true if the page is displayed by the current page of the viewPager, itself or
+     * appended below it in continuous scroll mode
+     */
+    public boolean isPageDisplayed(int page) {
+        return page >= currentPage && page <= lastReadPage;
+    }
+
+    /**
+     * Method to be invoked by child fragments when another page gets at the top of the screen in
+     * continuous scroll mode
+     */
+    public void onContinuousScroll(int page) {
+        readPage = page;
+        lastReadPage = Math.max(lastReadPage, page);
+    }
+
     @Override
     public boolean onOptionsItemSelected(MenuItem item) {
         int id = item.getItemId();
@@ -386,7 +433,7 @@ public class TopicFragment extends ToolbarFragment implements ViewPager.OnPageCh
                 return true;
 
             case R.id.action_copy_link:
-                UiUtils.copyToClipboard(getActivity(), mdEndpoints.topic(topic, currentPage));
+                UiUtils.copyToClipboard(getActivity(), mdEndpoints.topic(topic, readPage));
                 break;
             case R.id.action_share:
                 UiUtils.shareText(getActivity(), mdEndpoints.topic(topic));
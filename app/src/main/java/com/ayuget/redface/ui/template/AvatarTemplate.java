@@ -19,8 +19,8 @@ package com.ayuget.redface.ui.template;
 import android.content.Context;
 import android.text.TextUtils;
 
+import com.ayuget.redface.data.api.hfr.PostsMinifier;
 import com.ayuget.redface.data.api.model.Post;
-import com.squareup.phrase.Phrase;
 
 
 public class AvatarTemplate extends HTMLTemplate<Post> {
@@ -28,19 +28,19 @@ public class AvatarTemplate extends HTMLTemplate<Post> {
 
     private static final String AVATAR_TEMPLATE = "avatar.html";
 
-    public AvatarTemplate(Context context) {
-        super(context, AVATAR_TEMPLATE);
+    public AvatarTemplate(Context context, PostsMinifier postsMinifier) {
+        super(context, postsMinifier, AVATAR_TEMPLATE);
     }
 
     @Override
-    protected void render(Post post, Phrase templateContent, StringBuilder stream) {
-        if (post.getAvatarUrl() == null) {
-            stream.append("");
-        }
-        else {
-            stream.append(
-                    templateContent.put("avatar_url", post.getAvatarUrl()).format().toString()
-            );
+    public void render(Post post, StringBuilder stream) {
+        if (post.getAvatarUrl() != null) {
+            super.render(post, stream);
         }
     }
+
+    @Override
+    protected void renderSlot(Post post, String slot, StringBuilder stream) {
+        stream.append(post.getAvatarUrl());
+    }
 }
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2015 Ayuget
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ayuget.redface.ui.template;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A template split once and for all into literal segments and slots, so that rendering only
+ * consists in appending segments and slot values to a {@link StringBuilder}.
+ *
+ * Syntax is the same as Phrase : slots are lowercase keys between curly braces ({@code {post_id}}),
+ * and two opening curly braces stand for a literal one.
+ *
+ * Instances are immutable, and can be shared between threads.
+ */
+public final class CompiledTemplate {
+    /**
+     * {@code literals[i]} comes right before {@code slots[i]}, last literal ends the template
+     */
+    private final String[] literals;
+
+    private final String[] slots;
+
+    private final int literalsLength;
+
+    private CompiledTemplate(String[] literals, String[] slots) {
+        this.literals = literals;
+        this.slots = slots;
+
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalsLength = length;
+    }
+
+    /**
+     * Splits a template into literals and slots. Slot names are interned, which makes comparisons
+     * with constant names cheap.
+     *
+     * @throws IllegalArgumentException if the template is malformed
+     */
+    public static CompiledTemplate compile(String template) {
+        List<String> literals = new ArrayList<>();
+        List<String> slots = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+
+        int i = 0;
+        while (i < template.length()) {
+            char c = template.charAt(i);
+
+            if (c != '{') {
+                literal.append(c);
+                i++;
+                continue;
+            }
+
+            char next = i + 1 < template.length() ? template.charAt(i + 1) : 0;
+
+            if (next == '{') {
+                literal.append('{');
+                i += 2;
+            }
+            else if (next >= 'a' && next <= 'z') {
+                int keyEnd = i + 1;
+                while (keyEnd < template.length() && isKeyChar(template.charAt(keyEnd))) {
+                    keyEnd++;
+                }
+
+                if (keyEnd >= template.length() || template.charAt(keyEnd) != '}') {
+                    throw new IllegalArgumentException(String.format("Missing closing brace for key at index %d in '%s'", i, template));
+                }
+
+                literals.add(literal.toString());
+                slots.add(template.substring(i + 1, keyEnd).intern());
+                literal.setLength(0);
+                i = keyEnd + 1;
+            }
+            else {
+                throw new IllegalArgumentException(String.format("Unexpected character '%c' at index %d in '%s'", next, i + 1, template));
+            }
+        }
+
+        literals.add(literal.toString());
+
+        return new CompiledTemplate(literals.toArray(new String[literals.size()]), slots.toArray(new String[slots.size()]));
+    }
+
+    private static boolean isKeyChar(char c) {
+        return (c >= 'a' && c <= 'z') || c == '_';
+    }
+
+    /**
+     * Returns a new template where every occurrence of the slot is replaced by a static value
+     * (included stylesheets, scripts, ...)
+     *
+     * @throws IllegalArgumentException if the template has no such slot
+     */
+    public CompiledTemplate bind(String slot, String value) {
+        List<String> boundLiterals = new ArrayList<>();
+        List<String> boundSlots = new ArrayList<>();
+        StringBuilder literal = new StringBuilder(literals[0]);
+
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i].equals(slot)) {
+                literal.append(value).append(literals[i + 1]);
+            }
+            else {
+                boundLiterals.add(literal.toString());
+                boundSlots.add(slots[i]);
+                literal.setLength(0);
+                literal.append(literals[i + 1]);
+            }
+        }
+
+        if (boundSlots.size() == slots.length) {
+            throw new IllegalArgumentException(String.format("Invalid slot '%s'", slot));
+        }
+
+        boundLiterals.add(literal.toString());
+
+        return new CompiledTemplate(boundLiterals.toArray(new String[boundLiterals.size()]), boundSlots.toArray(new String[boundSlots.size()]));
+    }
+
+    public int getSlotsCount() {
+        return slots.length;
+    }
+
+    /**
+     * Name of the i-th slot, interned
+     */
+    public String getSlot(int i) {
+        return slots[i];
+    }
+
+    /**
+     * Appends the literal preceding the i-th slot ({@code i == getSlotsCount()} being the end of
+     * the template)
+     */
+    public void appendLiteral(int i, StringBuilder stream) {
+        stream.append(literals[i]);
+    }
+
+    /**
+     * Total length of the template, slots excluded
+     */
+    public int getLiteralsLength() {
+        return literalsLength;
+    }
+}
@@ -19,28 +19,28 @@ package com.ayuget.redface.ui.template;
 import android.content.Context;
 
 import com.ayuget.redface.account.UserManager;
+import com.ayuget.redface.data.api.hfr.PostsMinifier;
 import com.ayuget.redface.data.api.model.Post;
-import com.squareup.phrase.Phrase;
 
 public class EditIconTemplate extends HTMLTemplate<Post> {
     private static final String EDIT_ICON_TEMPLATE = "edit_icon.html";
 
     private UserManager userManager;
 
-    public EditIconTemplate(Context context, UserManager userManager) {
-        super(context, EDIT_ICON_TEMPLATE);
+    public EditIconTemplate(Context context, PostsMinifier postsMinifier, UserManager userManager) {
+        super(context, postsMinifier, EDIT_ICON_TEMPLATE);
         this.userManager = userManager;
     }
 
     @Override
-    protected void render(Post post, Phrase templateContent, StringBuilder stream) {
+    public void render(Post post, StringBuilder stream) {
         if (userManager.isActiveUser(post.getAuthor())) {
-            stream.append(
-                    templateContent.put("post_id", String.valueOf(post.getId())).format().toString()
-            );
-        }
-        else {
-            stream.append("");
+            super.render(post, stream);
         }
     }
+
+    @Override
+    protected void renderSlot(Post post, String slot, StringBuilder stream) {
+        stream.append(post.getId());
+    }
 }
@@ -18,9 +18,10 @@ package com.ayuget.redface.ui.template;
 
 import android.content.Context;
 import android.util.Log;
+import android.util.LruCache;
 
+import com.ayuget.redface.data.api.hfr.PostsMinifier;
 import com.ayuget.redface.util.DateUtils;
-import com.squareup.phrase.Phrase;
 
 import java.io.BufferedReader;
 import java.io.IOException;
@@ -28,20 +29,36 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.Date;
 
+/**
+ * Template read from the assets folder, compiled once into a {@link CompiledTemplate}. Rendering
+ * appends the template literals and the values of its slots (see {@link #renderSlot(Object, String, StringBuilder)})
+ * to a single caller-supplied stream.
+ */
 public abstract class HTMLTemplate<T> {
     private static final String LOG_TAG = HTMLTemplate.class.getSimpleName();
 
+    /**
+     * Max number of formatted dates kept, a page being rendered again (refresh, theme change, ...)
+     * should not format its dates again
+     */
+    private static final int FORMATTED_DATES_CACHE_SIZE = 256;
+
     private final Context context;
 
+    private final PostsMinifier postsMinifier;
+
     private final String templateFile;
 
-    private Phrase templateContent;
+    private volatile CompiledTemplate templateContent;
+
+    private final LruCache<Long, String> formattedDates = new LruCache<>(FORMATTED_DATES_CACHE_SIZE);
 
-    protected HTMLTemplate(Context context, String templateFile) {
+    protected HTMLTemplate(Context context, PostsMinifier postsMinifier, String templateFile) {
         this.context = context;
+        this.postsMinifier = postsMinifier;
         this.templateFile = templateFile;
 
-        this.templateContent = compile(readAssetFile(templateFile));
+        this.templateContent = compile(minify(readAssetFile(templateFile)));
     }
 
     /**
@@ -89,35 +106,73 @@ public abstract class HTMLTemplate<T> {
         }
     }
 
+    /**
+     * Strips comments and formatting whitespace from the template content (see {@link PostsMinifier}),
+     * as they would otherwise be repeated for every rendered post
+     */
+    protected String minify(String templateContent) {
+        if (templateContent == null) {
+            return null;
+        }
+
+        String minifiedContent = postsMinifier.minify(templateContent);
+        Log.d(LOG_TAG, String.format("Template %s minified from %d to %d chars", templateFile, templateContent.length(), minifiedContent.length()));
+
+        return minifiedContent;
+    }
+
     /**
      * Formats given date to a string
      */
     protected String formatDate(Date d) {
-        return DateUtils.formatLocale(context, d);
+        String formattedDate = formattedDates.get(d.getTime());
+
+        if (formattedDate == null) {
+            formattedDate = DateUtils.formatLocale(context, d);
+            formattedDates.put(d.getTime(), formattedDate);
+        }
+
+        return formattedDate;
     }
 
     /**
      * Compiles the template, resolving static dependencies (includes external javascript files,
      * stylesheets, ...)
      */
-    public Phrase compile(String templateContent) {
-        return Phrase.from(templateContent);
+    public CompiledTemplate compile(String templateContent) {
+        return CompiledTemplate.compile(templateContent);
     }
 
     /**
      * Reloads template content from file and recompiles it
      */
     public void reload() throws IOException {
-        this.templateContent = compile(readAssetFile(templateFile));
+        this.templateContent = compile(minify(readAssetFile(templateFile)));
+        this.formattedDates.evictAll();
+    }
+
+    protected CompiledTemplate getTemplateContent() {
+        return templateContent;
     }
 
-    protected abstract void render(T content, Phrase templateContent, StringBuilder stream);
+    /**
+     * Appends the value of a slot of the template to the stream
+     */
+    protected abstract void renderSlot(T content, String slot, StringBuilder stream);
 
     /**
      * Renders the template into a stream
      */
     public void render(T content, StringBuilder stream) {
-        this.render(content, templateContent, stream);
+        CompiledTemplate template = templateContent;
+        int slotsCount = template.getSlotsCount();
+
+        for (int i = 0; i < slotsCount; i++) {
+            template.appendLiteral(i, stream);
+            renderSlot(content, template.getSlot(i), stream);
+        }
+
+        template.appendLiteral(slotsCount, stream);
     }
 
     /**
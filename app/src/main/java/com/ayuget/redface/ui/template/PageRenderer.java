@@ -0,0 +1,80 @@
+/*
+ * Copyright 2015 Ayuget
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ayuget.redface.ui.template;
+
+import com.ayuget.redface.data.api.model.Post;
+import com.ayuget.redface.settings.RedfaceSettings;
+
+import java.util.List;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import rx.functions.Func1;
+
+/**
+ * Renders topic pages, as a whole page or for the page shell depending on settings. Meant to be
+ * used in the posts pipeline, so that the main thread only hands rendered pages to the webview.
+ */
+@Singleton
+public class PageRenderer implements Func1<List<Post>, RenderedPage> {
+    @Inject PostsTemplate postsTemplate;
+
+    @Inject PostsShellTemplate postsShellTemplate;
+
+    @Inject RedfaceSettings appSettings;
+
+    @Inject
+    public PageRenderer() {
+    }
+
+    @Override
+    public RenderedPage call(List<Post> posts) {
+        return render(posts, appSettings.isPageShellEnabled());
+    }
+
+    public RenderedPage render(List<Post> posts, boolean forPageShell) {
+        if (forPageShell) {
+            return postsShellTemplate.renderPosts(posts);
+        }
+        else {
+            String themeClass = postsTemplate.getThemeClass();
+            StringBuilder pageBuffer = new StringBuilder();
+            postsTemplate.render(posts, pageBuffer);
+
+            return RenderedPage.forPage(posts, pageBuffer.toString(), themeClass);
+        }
+    }
+
+    /**
+     * Applies the active theme and font size to a page rendered before they changed (cached
+     * page), by swapping the CSS classes of the page body instead of rendering it again. Posts
+     * rendered for the page shell don't depend on the theme.
+     */
+    public RenderedPage applyTheme(RenderedPage page) {
+        if (page.isForPageShell()) {
+            return page;
+        }
+
+        String themeClass = postsTemplate.getThemeClass();
+        if (themeClass.equals(page.getThemeClass())) {
+            return page;
+        }
+
+        String html = postsTemplate.replaceThemeClass(page.getHtml(), page.getThemeClass(), themeClass);
+        return html == null ? render(page.getPosts(), false) : RenderedPage.forPage(page.getPosts(), html, themeClass);
+    }
+}
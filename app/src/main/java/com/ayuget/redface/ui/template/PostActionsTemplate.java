@@ -20,9 +20,9 @@ import android.content.Context;
 import android.util.Pair;
 
 import com.ayuget.redface.account.UserManager;
+import com.ayuget.redface.data.api.hfr.PostsMinifier;
 import com.ayuget.redface.data.api.model.Post;
 import com.ayuget.redface.data.api.model.misc.PostAction;
-import com.squareup.phrase.Phrase;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -51,22 +51,33 @@ public class PostActionsTemplate extends HTMLTemplate<Post> {
     }
 
     /**
-     * Action HTML code
+     * Action HTML code : {@code <li><a material onclick="Android.function(postId)"><i class="fa fa-icon"></i></a></li>}
      */
-    private static final String POST_ACTION_HTML = "<li><a material onclick=\"Android.%s(%d)\"><i class=\"fa fa-%s\"></i></a></li>";
+    private static final String POST_ACTION_START = "<li><a material onclick=\"Android.";
+    private static final String POST_ACTION_ICON = ")\"><i class=\"fa fa-";
+    private static final String POST_ACTION_END = "\"></i></a></li>";
 
-    public PostActionsTemplate(Context context, UserManager userManager) {
-        super(context, POST_ACTIONS_TEMPLATE);
+    public PostActionsTemplate(Context context, PostsMinifier postsMinifier, UserManager userManager) {
+        super(context, postsMinifier, POST_ACTIONS_TEMPLATE);
         this.userManager = userManager;
     }
 
     private void renderAction(PostAction action, long postId, StringBuilder stream) {
         Pair<String, String> details = POST_ACTIONS_MAPPING.get(action);
-        stream.append(String.format(POST_ACTION_HTML, details.first, postId, details.second));
+        stream.append(POST_ACTION_START).append(details.first).append('(').append(postId)
+                .append(POST_ACTION_ICON).append(details.second).append(POST_ACTION_END);
+    }
+
+    /**
+     * Actions are rendered as is, without the template file
+     */
+    @Override
+    public void render(Post post, StringBuilder stream) {
+        renderSlot(post, "actions", stream);
     }
 
     @Override
-    protected void render(Post post, Phrase templateContent, StringBuilder stream) {
+    protected void renderSlot(Post post, String slot, StringBuilder stream) {
         if (userManager.isActiveUser(post.getAuthor())) {
             renderAction(PostAction.EDIT, post.getId(), stream);
             renderAction(PostAction.DELETE, post.getId(), stream);
@@ -20,48 +20,54 @@ import android.content.Context;
 import android.text.TextUtils;
 
 import com.ayuget.redface.R;
+import com.ayuget.redface.data.api.hfr.PostsMinifier;
 import com.ayuget.redface.data.api.model.Post;
-import com.ayuget.redface.util.DateUtils;
-import com.squareup.phrase.Phrase;
 
 public class PostExtraDetailsTemplate extends HTMLTemplate<Post> {
     private static final String EXTRA_DETAILS_TEMPLATE = "extra_details.html";
 
-    private static final String EDITED_HTML = "<span class=\"edited\">{edited_text}</span>";
-    private static final String QUOTE_COUNT_HTML = "<i class=\"fa fa-comments fa-3\"></i> {quote_count}";
+    private static final String EDITED_START = "<span class=\"edited\">";
+    private static final String EDITED_END = "</span>";
+    private static final String QUOTE_COUNT_START = "<i class=\"fa fa-comments fa-3\"></i> ";
+    private static final String DETAILS_SEPARATOR = " - ";
 
-    private Context context;
+    /**
+     * Localized "edited on {date}" text
+     */
+    private final CompiledTemplate editedText;
 
-    public PostExtraDetailsTemplate(Context context) {
-        super(context, EXTRA_DETAILS_TEMPLATE);
-        this.context = context;
+    public PostExtraDetailsTemplate(Context context, PostsMinifier postsMinifier) {
+        super(context, postsMinifier, EXTRA_DETAILS_TEMPLATE);
+        this.editedText = CompiledTemplate.compile(context.getString(R.string.post_edited_on));
     }
 
     @Override
-    protected void render(Post post, Phrase templateContent, StringBuilder stream)
-    {
-        StringBuilder extraDetails = new StringBuilder();
+    public void render(Post post, StringBuilder stream) {
+        if (post.getLastEditionDate() != null || post.getQuoteCount() > 0) {
+            super.render(post, stream);
+        }
+    }
 
+    @Override
+    protected void renderSlot(Post post, String slot, StringBuilder stream) {
         if (post.getLastEditionDate() != null) {
-            String editedText = Phrase.from(context, R.string.post_edited_on)
-                    .put("date", DateUtils.formatLocale(context, post.getLastEditionDate()))
-                    .format()
-                    .toString();
+            stream.append(EDITED_START);
 
-            extraDetails.append(Phrase.from(EDITED_HTML).put("edited_text", editedText).format().toString());
-        }
+            for (int i = 0; i < editedText.getSlotsCount(); i++) {
+                editedText.appendLiteral(i, stream);
+                stream.append(formatDate(post.getLastEditionDate()));
+            }
+            editedText.appendLiteral(editedText.getSlotsCount(), stream);
 
-        if (post.getQuoteCount() > 0) {
-            if (extraDetails.length() > 0) { extraDetails.append(" - "); }
-            extraDetails.append(Phrase.from(QUOTE_COUNT_HTML).put("quote_count", post.getQuoteCount()).format().toString());
+            stream.append(EDITED_END);
         }
 
+        if (post.getQuoteCount() > 0) {
+            if (post.getLastEditionDate() != null) {
+                stream.append(DETAILS_SEPARATOR);
+            }
 
-        if (extraDetails.length() > 0) {
-            stream.append(templateContent.put("extra_details", extraDetails.toString()).format().toString());
-        }
-        else {
-            stream.append("");
+            stream.append(QUOTE_COUNT_START).append(post.getQuoteCount());
         }
     }
 }
@@ -19,8 +19,8 @@ package com.ayuget.redface.ui.template;
 import android.content.Context;
 
 import com.ayuget.redface.account.UserManager;
+import com.ayuget.redface.data.api.hfr.PostsMinifier;
 import com.ayuget.redface.data.api.model.Post;
-import com.squareup.phrase.Phrase;
 
 
 public class PostTemplate extends HTMLTemplate<Post> {
@@ -38,8 +38,8 @@ public class PostTemplate extends HTMLTemplate<Post> {
 
     private UserManager userManager;
 
-    public PostTemplate(Context context, UserManager userManager, AvatarTemplate avatarTemplate, PostExtraDetailsTemplate extraDetailsTemplate, PostActionsTemplate postActionsTemplate, QuickActionsTemplate quickActionsTemplate) {
-        super(context, POST_TEMPLATE);
+    public PostTemplate(Context context, PostsMinifier postsMinifier, UserManager userManager, AvatarTemplate avatarTemplate, PostExtraDetailsTemplate extraDetailsTemplate, PostActionsTemplate postActionsTemplate, QuickActionsTemplate quickActionsTemplate) {
+        super(context, postsMinifier, POST_TEMPLATE);
         this.userManager = userManager;
         this.avatarTemplate = avatarTemplate;
         this.extraDetailsTemplate = extraDetailsTemplate;
@@ -48,22 +48,44 @@ public class PostTemplate extends HTMLTemplate<Post> {
     }
 
     @Override
-    protected void render(Post post, Phrase templateContent, StringBuilder stream) {
-        String postId = String.valueOf(post.getId());
+    protected void renderSlot(Post post, String slot, StringBuilder stream) {
+        switch (slot) {
+            case "author":
+            case "author_id":
+                stream.append(post.getAuthor());
+                break;
+            case "content":
+                stream.append(post.getHtmlContent());
+                break;
+            case "avatar":
+                avatarTemplate.render(post, stream);
+                break;
+            case "posted_on":
+                stream.append(formatDate(post.getPostDate()));
+                break;
+            case "post_id":
+                stream.append(post.getId());
+                break;
+            case "post_quick_actions":
+                quickActionsTemplate.render(post, stream);
+                break;
+            case "extra_details":
+                extraDetailsTemplate.render(post, stream);
+                break;
+            case "post_actions":
+                if (userManager.isActiveUserLoggedIn()) {
+                    postActionsTemplate.render(post, stream);
+                }
+                break;
+            default:
+                throw new IllegalArgumentException(String.format("Unknown slot '%s' in %s", slot, POST_TEMPLATE));
+        }
+    }
 
-        stream.append(
-                templateContent
-                        .put("author", post.getAuthor())
-                        .put("content", post.getHtmlContent())
-                        .put("avatar", avatarTemplate.render(post))
-                        .put("posted_on", formatDate(post.getPostDate()))
-                        .put("author_id", post.getAuthor())
-                        .put("post_id", postId)
-                        .put("post_quick_actions", quickActionsTemplate.render(post))
-                        .put("extra_details", extraDetailsTemplate.render(post))
-                        .put("post_actions", userManager.isActiveUserLoggedIn() ? postActionsTemplate.render(post) : "")
-                        .format()
-                        .toString()
-        );
+    /**
+     * Length of the post template, slots excluded
+     */
+    public int getLiteralsLength() {
+        return getTemplateContent().getLiteralsLength();
     }
 }
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2015 Ayuget
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ayuget.redface.ui.template;
+
+import android.content.Context;
+
+import com.ayuget.redface.data.api.hfr.PostsMinifier;
+import com.ayuget.redface.data.api.model.Post;
+import com.ayuget.redface.ui.misc.ThemeManager;
+import com.ayuget.redface.util.JsExecutor;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Static page (stylesheets and scripts, without posts) loaded once in a webview. Posts are then
+ * sent to the page as a JSON payload (see {@link #renderPostsPayload(RenderedPage, Map, StringBuilder)}),
+ * and inserted by the page scripts. Once posts are displayed, only posts which changed are sent
+ * again (see {@link #renderPostsUpdate(RenderedPage, Map, StringBuilder)}).
+ *
+ * Posts are rendered beforehand, off the main thread (see {@link #renderPosts(List)}).
+ */
+public class PostsShellTemplate extends HTMLTemplate<Void> {
+    private static final String POSTS_SHELL_TEMPLATE = "posts_shell.html";
+
+    private final PostTemplate postTemplate;
+
+    private final ThemeManager themeManager;
+
+    public PostsShellTemplate(Context context, PostsMinifier postsMinifier, PostTemplate postTemplate, ThemeManager themeManager) {
+        super(context, postsMinifier, POSTS_SHELL_TEMPLATE);
+        this.postTemplate = postTemplate;
+        this.themeManager = themeManager;
+    }
+
+    @Override
+    public CompiledTemplate compile(String templateContent) {
+        return CompiledTemplate.compile(templateContent)
+                .bind("css", readAssetFile("styles.css"))
+                .bind("js", readAssetFile("hfr.js"));
+    }
+
+    @Override
+    protected void renderSlot(Void content, String slot, StringBuilder stream) {
+        switch (slot) {
+            case "theme_class":
+                stream.append(getThemeClass());
+                break;
+            default:
+                throw new IllegalArgumentException(String.format("Unknown slot '%s' in %s", slot, POSTS_SHELL_TEMPLATE));
+        }
+    }
+
+    /**
+     * CSS classes of the page body, for the active theme and font size
+     */
+    public String getThemeClass() {
+        return themeManager.getActiveThemeCssClass() + " " + themeManager.getFontSizeCssClass();
+    }
+
+    /**
+     * Renders posts for the page shell : JSON object and hash of each post
+     */
+    public RenderedPage renderPosts(List<Post> posts) {
+        StringBuilder postBuffer = new StringBuilder();
+        StringBuilder objectBuffer = new StringBuilder();
+        String[] postObjects = new String[posts.size()];
+        long[] postHashes = new long[posts.size()];
+
+        for (int i = 0; i < posts.size(); i++) {
+            Post post = posts.get(i);
+
+            postBuffer.setLength(0);
+            postTemplate.render(post, postBuffer);
+            postHashes[i] = hash(postBuffer);
+
+            objectBuffer.setLength(0);
+            objectBuffer.append("{\"id\":").append(post.getId()).append(",\"html\":");
+            JsExecutor.appendStringLiteral(objectBuffer, postBuffer);
+            postObjects[i] = objectBuffer.toString();
+        }
+
+        return RenderedPage.forPageShell(posts, postObjects, postHashes);
+    }
+
+    /**
+     * Renders posts as a JSON array, {@code [{"id":42,"html":"<div class=\"post\"...>"}, ...]},
+     * and records the rendered posts into {@code renderedPosts}
+     *
+     * @param page posts rendered with {@link #renderPosts(List)}
+     * @param renderedPosts posts displayed on the page (id to rendered post hash), replaced by
+     *                      the given posts
+     */
+    public void renderPostsPayload(RenderedPage page, Map<Long, Long> renderedPosts, StringBuilder stream) {
+        List<Post> posts = page.getPosts();
+
+        renderedPosts.clear();
+        stream.append('[');
+
+        for (int i = 0; i < posts.size(); i++) {
+            renderedPosts.put(posts.get(i).getId(), page.getPostHash(i));
+
+            if (i > 0) {
+                stream.append(',');
+            }
+
+            stream.append(page.getPostObject(i)).append('}');
+        }
+
+        stream.append(']');
+    }
+
+    /**
+     * Renders the changes between displayed posts and the given ones, as two JSON arrays : ids of
+     * removed posts, and posts added or modified since they were rendered, each of them with the
+     * id of the post following it on the page ({@code null} for the last one) :
+     * {@code [41,42],[{"id":43,"html":"...","next":44}, ...]}
+     *
+     * @param page posts rendered with {@link #renderPosts(List)}
+     * @param renderedPosts posts displayed on the page (id to rendered post hash), updated with
+     *                      the given posts
+     * @return false if no post has changed, the stream being left untouched
+     */
+    public boolean renderPostsUpdate(RenderedPage page, Map<Long, Long> renderedPosts, StringBuilder stream) {
+        List<Post> posts = page.getPosts();
+        StringBuilder changedPosts = new StringBuilder();
+        Set<Long> removedPosts = new HashSet<>(renderedPosts.keySet());
+
+        for (int i = 0; i < posts.size(); i++) {
+            Post post = posts.get(i);
+            removedPosts.remove(post.getId());
+
+            long postHash = page.getPostHash(i);
+            Long renderedPostHash = renderedPosts.put(post.getId(), postHash);
+
+            if (renderedPostHash != null && renderedPostHash == postHash) {
+                continue;
+            }
+
+            changedPosts.append(changedPosts.length() == 0 ? '[' : ',');
+            changedPosts.append(page.getPostObject(i));
+            changedPosts.append(",\"next\":").append(i + 1 < posts.size() ? String.valueOf(posts.get(i + 1).getId()) : "null").append('}');
+        }
+
+        if (removedPosts.isEmpty() && changedPosts.length() == 0) {
+            return false;
+        }
+
+        stream.append('[');
+        boolean isFirst = true;
+        for (Long postId : removedPosts) {
+            renderedPosts.remove(postId);
+
+            if (! isFirst) {
+                stream.append(',');
+            }
+            stream.append(postId);
+            isFirst = false;
+        }
+        stream.append("],");
+
+        if (changedPosts.length() == 0) {
+            stream.append("[]");
+        }
+        else {
+            stream.append(changedPosts).append(']');
+        }
+
+        return true;
+    }
+
+    /**
+     * Hash of a rendered post, its length being part of it to make collisions even less likely
+     */
+    private static long hash(CharSequence renderedPost) {
+        int hash = 0;
+        for (int i = 0; i < renderedPost.length(); i++) {
+            hash = 31 * hash + renderedPost.charAt(i);
+        }
+
+        return ((long) renderedPost.length() << 32) | (hash & 0xFFFFFFFFL);
+    }
+}
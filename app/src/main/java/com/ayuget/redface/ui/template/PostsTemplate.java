@@ -18,9 +18,9 @@ package com.ayuget.redface.ui.template;
 
 import android.content.Context;
 
+import com.ayuget.redface.data.api.hfr.PostsMinifier;
 import com.ayuget.redface.data.api.model.Post;
 import com.ayuget.redface.ui.misc.ThemeManager;
-import com.squareup.phrase.Phrase;
 
 import java.util.List;
 
@@ -33,32 +33,72 @@ public class PostsTemplate extends HTMLTemplate<List<Post>> {
 
     private ThemeManager themeManager;
 
-    public PostsTemplate(Context context, PostTemplate postTemplate, ThemeManager themeManager) {
-        super(context, POSTS_TEMPLATE);
+    public PostsTemplate(Context context, PostsMinifier postsMinifier, PostTemplate postTemplate, ThemeManager themeManager) {
+        super(context, postsMinifier, POSTS_TEMPLATE);
         this.postTemplate = postTemplate;
         this.themeManager = themeManager;
     }
 
     @Override
-    public Phrase compile(String templateContent) {
-        return Phrase.from(templateContent)
-                .put("css", readAssetFile("styles.css"))
-                .put("js", readAssetFile("hfr.js"));
+    public CompiledTemplate compile(String templateContent) {
+        return CompiledTemplate.compile(templateContent)
+                .bind("css", readAssetFile("styles.css"))
+                .bind("js", readAssetFile("hfr.js"));
     }
 
     @Override
-    protected void render(List<Post> content, Phrase templateContent, StringBuilder stream) {
-        StringBuilder postsBuffer = new StringBuilder();
-        for(Post post : content) {
-            postTemplate.render(post, postsBuffer);
+    public void render(List<Post> posts, StringBuilder stream) {
+        // Rough estimate of the page length, avoids growing the stream over and over
+        int pageLength = getTemplateContent().getLiteralsLength();
+        for (Post post : posts) {
+            pageLength += postTemplate.getLiteralsLength() + post.getHtmlContent().length();
         }
+        stream.ensureCapacity(stream.length() + pageLength);
 
-        stream.append(
-                templateContent
-                        .put("posts", postsBuffer.toString())
-                        .put("theme_class", themeManager.getActiveThemeCssClass() + " " + themeManager.getFontSizeCssClass())
-                        .format()
-                        .toString()
-        );
+        super.render(posts, stream);
+    }
+
+    @Override
+    protected void renderSlot(List<Post> posts, String slot, StringBuilder stream) {
+        switch (slot) {
+            case "posts":
+                for (Post post : posts) {
+                    postTemplate.render(post, stream);
+                }
+                break;
+            case "theme_class":
+                stream.append(getThemeClass());
+                break;
+            default:
+                throw new IllegalArgumentException(String.format("Unknown slot '%s' in %s", slot, POSTS_TEMPLATE));
+        }
+    }
+
+    /**
+     * CSS classes of the page body, for the active theme and font size
+     */
+    public String getThemeClass() {
+        return themeManager.getActiveThemeCssClass() + " " + themeManager.getFontSizeCssClass();
+    }
+
+    /**
+     * Replaces the theme and font size CSS classes of a rendered page, which is much cheaper
+     * than rendering it again
+     *
+     * @return the updated page, or null if the page body doesn't have the given classes
+     */
+    public String replaceThemeClass(String page, String themeClass, String newThemeClass) {
+        String bodyTag = "<body class=\"" + themeClass + "\"";
+        int bodyTagIndex = page.indexOf(bodyTag);
+
+        if (bodyTagIndex < 0) {
+            return null;
+        }
+
+        StringBuilder stream = new StringBuilder(page.length() - themeClass.length() + newThemeClass.length());
+        stream.append(page, 0, bodyTagIndex).append("<body class=\"").append(newThemeClass).append('"');
+        stream.append(page, bodyTagIndex + bodyTag.length(), page.length());
+
+        return stream.toString();
     }
 }
@@ -19,26 +19,28 @@ package com.ayuget.redface.ui.template;
 import android.content.Context;
 
 import com.ayuget.redface.account.UserManager;
+import com.ayuget.redface.data.api.hfr.PostsMinifier;
 import com.ayuget.redface.data.api.model.Post;
-import com.squareup.phrase.Phrase;
 
 public class QuickActionsTemplate extends HTMLTemplate<Post> {
     private static final String QUICK_ACTIONS_TEMPLATE = "post_quick_actions.html";
 
     private final UserManager userManager;
 
-    public QuickActionsTemplate(Context context, UserManager userManager) {
-        super(context, QUICK_ACTIONS_TEMPLATE);
+    public QuickActionsTemplate(Context context, PostsMinifier postsMinifier, UserManager userManager) {
+        super(context, postsMinifier, QUICK_ACTIONS_TEMPLATE);
         this.userManager = userManager;
     }
 
     @Override
-    protected void render(Post post, Phrase templateContent, StringBuilder stream) {
+    public void render(Post post, StringBuilder stream) {
         if (userManager.isActiveUserLoggedIn()) {
-            stream.append(templateContent.put("post_id", String.valueOf(post.getId())).format().toString());
-        }
-        else {
-            stream.append("");
+            super.render(post, stream);
         }
     }
+
+    @Override
+    protected void renderSlot(Post post, String slot, StringBuilder stream) {
+        stream.append(post.getId());
+    }
 }
@@ -0,0 +1,262 @@
+/*
+ * Copyright 2015 Ayuget
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ayuget.redface.ui.template;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import com.ayuget.redface.data.api.model.Post;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Posts of a topic page, rendered off the main thread, ready to be handed to the webview : either
+ * a whole HTML page ({@link PostsTemplate}), or posts to be sent to the page shell
+ * ({@link PostsShellTemplate}).
+ */
+public final class RenderedPage implements Parcelable {
+    private final List<Post> posts;
+
+    private final String html;
+
+    private final String themeClass;
+
+    private final String[] postObjects;
+
+    private final long[] postHashes;
+
+    private final int length;
+
+    private final boolean isComplete;
+
+    private RenderedPage(List<Post> posts, String html, String themeClass, String[] postObjects, long[] postHashes, boolean isComplete) {
+        this.posts = posts;
+        this.html = html;
+        this.themeClass = themeClass;
+        this.postObjects = postObjects;
+        this.postHashes = postHashes;
+        this.isComplete = isComplete;
+        this.length = computeLength();
+    }
+
+    /**
+     * Whole page, to be loaded as is
+     *
+     * @param themeClass theme and font size CSS classes of the page body
+     */
+    public static RenderedPage forPage(List<Post> posts, String html, String themeClass) {
+        return new RenderedPage(posts, html, themeClass, null, null, true);
+    }
+
+    /**
+     * Posts to be sent to the page shell
+     *
+     * @param postObjects unterminated JSON object of each post
+     * @param postHashes hash of the rendered HTML of each post
+     */
+    public static RenderedPage forPageShell(List<Post> posts, String[] postObjects, long[] postHashes) {
+        return new RenderedPage(posts, null, null, postObjects, postHashes, true);
+    }
+
+    public List<Post> getPosts() {
+        return posts;
+    }
+
+    public boolean isForPageShell() {
+        return postObjects != null;
+    }
+
+    /**
+     * Returns false for the first posts of a page still being received (see {@link #append(RenderedPage)})
+     */
+    public boolean isComplete() {
+        return isComplete;
+    }
+
+    public String getHtml() {
+        return html;
+    }
+
+    /**
+     * Theme and font size CSS classes of the whole page, null for posts sent to the page shell
+     * (whose classes are set by the shell itself)
+     */
+    public String getThemeClass() {
+        return themeClass;
+    }
+
+    /**
+     * Unterminated JSON object of the i-th post, {@code {"id":42,"html":"..."}
+     */
+    public String getPostObject(int i) {
+        return postObjects[i];
+    }
+
+    public long getPostHash(int i) {
+        return postHashes[i];
+    }
+
+    /**
+     * Returns a copy of the page without a post, which doesn't need to be rendered again. Returns
+     * null if the post is not on the page, or if the page is a whole HTML page.
+     */
+    public RenderedPage withoutPost(long postId) {
+        if (!isForPageShell()) {
+            return null;
+        }
+
+        int index = -1;
+        for (int i = 0; i < posts.size(); i++) {
+            if (posts.get(i).getId() == postId) {
+                index = i;
+                break;
+            }
+        }
+
+        if (index < 0) {
+            return null;
+        }
+
+        List<Post> remainingPosts = new ArrayList<>(posts);
+        remainingPosts.remove(index);
+
+        String[] remainingPostObjects = new String[postObjects.length - 1];
+        System.arraycopy(postObjects, 0, remainingPostObjects, 0, index);
+        System.arraycopy(postObjects, index + 1, remainingPostObjects, index, remainingPostObjects.length - index);
+
+        long[] remainingPostHashes = new long[postHashes.length - 1];
+        System.arraycopy(postHashes, 0, remainingPostHashes, 0, index);
+        System.arraycopy(postHashes, index + 1, remainingPostHashes, index, remainingPostHashes.length - index);
+
+        return new RenderedPage(remainingPosts, null, null, remainingPostObjects, remainingPostHashes, isComplete);
+    }
+
+    /**
+     * Returns a copy of the page where an edited post (first post of {@code renderedPost}, rendered
+     * for the page shell) replaces the post with the same id. Other posts are not rendered again.
+     * Returns null if the post is not on the page, or if the page is a whole HTML page.
+     */
+    public RenderedPage withReplacedPost(RenderedPage renderedPost) {
+        if (!isForPageShell() || !renderedPost.isForPageShell() || renderedPost.posts.isEmpty()) {
+            return null;
+        }
+
+        long postId = renderedPost.posts.get(0).getId();
+        int index = -1;
+        for (int i = 0; i < posts.size(); i++) {
+            if (posts.get(i).getId() == postId) {
+                index = i;
+                break;
+            }
+        }
+
+        if (index < 0) {
+            return null;
+        }
+
+        List<Post> replacedPosts = new ArrayList<>(posts);
+        replacedPosts.set(index, renderedPost.posts.get(0));
+
+        String[] replacedPostObjects = postObjects.clone();
+        replacedPostObjects[index] = renderedPost.postObjects[0];
+
+        long[] replacedPostHashes = postHashes.clone();
+        replacedPostHashes[index] = renderedPost.postHashes[0];
+
+        return new RenderedPage(replacedPosts, null, null, replacedPostObjects, replacedPostHashes, isComplete);
+    }
+
+    /**
+     * Returns the first posts of a page still being received, followed by the posts of {@code next}
+     * (both rendered for the page shell). Posts are not rendered again.
+     */
+    public RenderedPage append(RenderedPage next) {
+        List<Post> allPosts = new ArrayList<>(posts.size() + next.posts.size());
+        allPosts.addAll(posts);
+        allPosts.addAll(next.posts);
+
+        String[] allPostObjects = new String[postObjects.length + next.postObjects.length];
+        System.arraycopy(postObjects, 0, allPostObjects, 0, postObjects.length);
+        System.arraycopy(next.postObjects, 0, allPostObjects, postObjects.length, next.postObjects.length);
+
+        long[] allPostHashes = new long[postHashes.length + next.postHashes.length];
+        System.arraycopy(postHashes, 0, allPostHashes, 0, postHashes.length);
+        System.arraycopy(next.postHashes, 0, allPostHashes, postHashes.length, next.postHashes.length);
+
+        return new RenderedPage(allPosts, null, null, allPostObjects, allPostHashes, false);
+    }
+
+    /**
+     * Returns the page once all its posts have been received
+     */
+    public RenderedPage complete() {
+        return isComplete ? this : new RenderedPage(posts, html, themeClass, postObjects, postHashes, true);
+    }
+
+    /**
+     * Approximate length (in chars) of the page, posts contents included. Computed once, the page
+     * being immutable once rendered.
+     */
+    public int getLength() {
+        return length;
+    }
+
+    private int computeLength() {
+        int total = html != null ? html.length() : 0;
+
+        if (postObjects != null) {
+            for (String postObject : postObjects) {
+                total += postObject.length();
+            }
+        }
+
+        for (Post post : posts) {
+            total += post.getHtmlContent() != null ? post.getHtmlContent().length() : 0;
+        }
+
+        return total;
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeTypedList(this.posts);
+        dest.writeString(this.html);
+        dest.writeString(this.themeClass);
+        dest.writeStringArray(this.postObjects);
+        dest.writeLongArray(this.postHashes);
+        dest.writeByte(isComplete ? (byte) 1 : (byte) 0);
+    }
+
+    private RenderedPage(Parcel in) {
+        this(in.createTypedArrayList(Post.CREATOR), in.readString(), in.readString(), in.createStringArray(), in.createLongArray(), in.readByte() != 0);
+    }
+
+    public static final Creator<RenderedPage> CREATOR = new Creator<RenderedPage>() {
+        public RenderedPage createFromParcel(Parcel source) {
+            return new RenderedPage(source);
+        }
+
+        public RenderedPage[] newArray(int size) {
+            return new RenderedPage[size];
+        }
+    };
+}
@@ -0,0 +1,444 @@
+/*
+ * Copyright 2015 Ayuget
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ayuget.redface.ui.template;
+
+import android.os.Parcel;
+import android.os.SystemClock;
+import android.util.Log;
+import android.util.LruCache;
+
+import com.ayuget.redface.data.api.hfr.PostsTweaker;
+import com.ayuget.redface.data.api.model.Topic;
+import com.ayuget.redface.data.api.model.User;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import rx.Observable;
+import rx.functions.Action1;
+import rx.functions.Func0;
+
+/**
+ * Keeps recently rendered topic pages, so that going back to a page is instant and doesn't use
+ * the network.
+ *
+ * Pages are identified by topic, page number, user (posts can be edited or quoted depending
+ * on who is logged in) and the mode posts are tweaked with (data saver). Theme and font size
+ * are not part of the key : they are applied to cached pages without rendering them again (see
+ * {@link PageRenderer#applyTheme(RenderedPage)}). Size is bounded by the total length of cached
+ * pages. Pages evicted from memory can be kept compressed in a second tier, and are decompressed
+ * when they are needed again.
+ *
+ * Pages are only kept for a short time : older pages are loaded again, so that new posts show
+ * up and the forum keeps track of read posts. Reloading a page (refresh, new post, edition, ...)
+ * replaces or evicts its entry, and pages of a topic are evicted when it is opened.
+ */
+@Singleton
+public class RenderedPagesCache {
+    private static final String LOG_TAG = RenderedPagesCache.class.getSimpleName();
+
+    /**
+     * Share of the VM max memory (in bytes) used by rendered pages
+     */
+    private static final int MEMORY_SHARE = 32;
+
+    /**
+     * Share of the VM max memory (in bytes) used by compressed pages
+     */
+    private static final int COMPRESSED_MEMORY_SHARE = 64;
+
+    /**
+     * Age (in ms) beyond which cached pages are loaded again
+     */
+    private static final long MAX_AGE = 2 * 60 * 1000;
+
+    private static final int ALL_PAGES = -1;
+
+    private final LruCache<Key, Entry<byte[]>> compressedPages;
+
+    private final LruCache<Key, Entry<RenderedPage>> pages;
+
+    private final long maxAge;
+
+    private int compressedHitCount;
+
+    /**
+     * Expired pages, counted as hits by the first tier
+     */
+    private int expiredCount;
+
+    @Inject
+    public RenderedPagesCache() {
+        this(maxMemoryShare(MEMORY_SHARE), maxMemoryShare(COMPRESSED_MEMORY_SHARE), MAX_AGE);
+    }
+
+    /**
+     * @param maxSize maximum total size (in bytes) of rendered pages
+     * @param maxCompressedSize maximum total size (in bytes) of compressed pages, 0 disabling
+     *                          the compressed tier
+     * @param maxAge age (in ms) beyond which cached pages are loaded again
+     */
+    public RenderedPagesCache(int maxSize, int maxCompressedSize, long maxAge) {
+        this.maxAge = maxAge;
+
+        this.compressedPages = maxCompressedSize <= 0 ? null : new LruCache<Key, Entry<byte[]>>(maxCompressedSize) {
+            @Override
+            protected int sizeOf(Key key, Entry<byte[]> entry) {
+                return entry.value.length;
+            }
+        };
+
+        this.pages = new LruCache<Key, Entry<RenderedPage>>(maxSize) {
+            @Override
+            protected int sizeOf(Key key, Entry<RenderedPage> entry) {
+                // Java chars are two bytes long
+                return 2 * entry.value.getLength();
+            }
+
+            @Override
+            protected void entryRemoved(boolean evicted, Key key, Entry<RenderedPage> oldEntry, Entry<RenderedPage> newEntry) {
+                if (evicted && compressedPages != null) {
+                    compressedPages.put(key, new Entry<>(compress(oldEntry.value), oldEntry.loadTime));
+                }
+            }
+        };
+    }
+
+    private static int maxMemoryShare(int share) {
+        return (int) Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / share);
+    }
+
+    /**
+     * Emits the cached page if any, the page loaded by {@code loader} (and then cached) otherwise.
+     * Lookup is deferred to subscription, so that decompression happens on the loading thread.
+     * Pages emitted while their posts are still being received are not cached.
+     */
+    public Observable<RenderedPage> load(User user, Topic topic, int page, PostsTweaker.Mode mode, final Observable<RenderedPage> loader) {
+        final Key key = newKey(user, topic, page, mode);
+
+        return Observable.defer(new Func0<Observable<RenderedPage>>() {
+            @Override
+            public Observable<RenderedPage> call() {
+                RenderedPage cachedPage = get(key);
+
+                if (cachedPage != null) {
+                    Log.d(LOG_TAG, String.format("Page %d of topic %d served from cache (%s)", key.page, key.topicId, RenderedPagesCache.this));
+                    return Observable.just(cachedPage);
+                }
+                else {
+                    return cacheLoadedPage(key, loader);
+                }
+            }
+        });
+    }
+
+    /**
+     * Caches the page loaded by {@code loader}, replacing any previously cached version
+     */
+    public Observable<RenderedPage> update(User user, Topic topic, int page, PostsTweaker.Mode mode, Observable<RenderedPage> loader) {
+        return cacheLoadedPage(newKey(user, topic, page, mode), loader);
+    }
+
+    private Observable<RenderedPage> cacheLoadedPage(final Key key, Observable<RenderedPage> loader) {
+        return loader.doOnNext(new Action1<RenderedPage>() {
+            @Override
+            public void call(RenderedPage page) {
+                if (page.isComplete()) {
+                    put(key, page);
+                }
+            }
+        });
+    }
+
+    synchronized RenderedPage get(Key key) {
+        Entry<RenderedPage> entry = pages.get(key);
+
+        if (entry == null && compressedPages != null) {
+            Entry<byte[]> compressedEntry = compressedPages.remove(key);
+
+            if (compressedEntry != null && ! isExpired(compressedEntry)) {
+                RenderedPage page = decompress(compressedEntry.value);
+
+                if (page != null) {
+                    compressedHitCount++;
+                    entry = new Entry<>(page, compressedEntry.loadTime);
+                    pages.put(key, entry);
+                }
+            }
+        }
+
+        if (entry != null && isExpired(entry)) {
+            Log.d(LOG_TAG, String.format("Page %d of topic %d expired", key.page, key.topicId));
+            expiredCount++;
+            pages.remove(key);
+            return null;
+        }
+
+        return entry == null ? null : entry.value;
+    }
+
+    synchronized void put(Key key, RenderedPage page) {
+        if (compressedPages != null) {
+            compressedPages.remove(key);
+        }
+
+        pages.put(key, new Entry<>(page, SystemClock.elapsedRealtime()));
+    }
+
+    private boolean isExpired(Entry<?> entry) {
+        return SystemClock.elapsedRealtime() - entry.loadTime >= maxAge;
+    }
+
+    /**
+     * Evicts all the pages of a topic from the cache
+     */
+    public void evict(Topic topic) {
+        evict(topic, ALL_PAGES);
+    }
+
+    /**
+     * Evicts a page from the cache, whatever the user or mode it was rendered for
+     */
+    public synchronized void evict(Topic topic, int page) {
+        for (Key key : pages.snapshot().keySet()) {
+            if (key.matches(topic, page)) {
+                pages.remove(key);
+            }
+        }
+
+        if (compressedPages != null) {
+            for (Key key : compressedPages.snapshot().keySet()) {
+                if (key.matches(topic, page)) {
+                    compressedPages.remove(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes a deleted post from the cached versions of a page. Versions which can't be patched
+     * (whole HTML pages, compressed pages) are evicted.
+     */
+    public synchronized void removePost(Topic topic, int page, long postId) {
+        for (Map.Entry<Key, Entry<RenderedPage>> cachedPage : pages.snapshot().entrySet()) {
+            Key key = cachedPage.getKey();
+
+            if (key.matches(topic, page)) {
+                Entry<RenderedPage> entry = cachedPage.getValue();
+                RenderedPage patchedPage = entry.value.withoutPost(postId);
+
+                if (patchedPage == null) {
+                    pages.remove(key);
+                }
+                else {
+                    pages.put(key, new Entry<>(patchedPage, entry.loadTime));
+                }
+            }
+        }
+
+        if (compressedPages != null) {
+            for (Key key : compressedPages.snapshot().keySet()) {
+                if (key.matches(topic, page)) {
+                    compressedPages.remove(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Replaces an edited post (tweaked with the given mode, and rendered for the page shell) in the
+     * cached versions of a page. Versions which can't be patched (whole HTML pages, compressed
+     * pages, pages tweaked with another mode) are evicted.
+     */
+    public synchronized void replacePost(Topic topic, int page, PostsTweaker.Mode mode, RenderedPage renderedPost) {
+        for (Map.Entry<Key, Entry<RenderedPage>> cachedPage : pages.snapshot().entrySet()) {
+            Key key = cachedPage.getKey();
+
+            if (key.matches(topic, page)) {
+                Entry<RenderedPage> entry = cachedPage.getValue();
+                RenderedPage patchedPage = key.mode == mode ? entry.value.withReplacedPost(renderedPost) : null;
+
+                if (patchedPage == null) {
+                    pages.remove(key);
+                }
+                else {
+                    pages.put(key, new Entry<>(patchedPage, entry.loadTime));
+                }
+            }
+        }
+
+        if (compressedPages != null) {
+            for (Key key : compressedPages.snapshot().keySet()) {
+                if (key.matches(topic, page)) {
+                    compressedPages.remove(key);
+                }
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        // Pages are removed rather than evicted, so that they are not compressed on their way out
+        for (Key key : pages.snapshot().keySet()) {
+            pages.remove(key);
+        }
+
+        if (compressedPages != null) {
+            compressedPages.evictAll();
+        }
+    }
+
+    /**
+     * Share of lookups which were served from the cache (compressed tier included), between 0 and 1
+     */
+    public synchronized float getHitRate() {
+        // Pages found in the compressed tier were first counted as misses of the first one, and
+        // expired pages as hits
+        int hitCount = pages.hitCount() - expiredCount + compressedHitCount;
+        int lookupsCount = pages.hitCount() + pages.missCount();
+
+        return lookupsCount == 0 ? 0 : (float) hitCount / lookupsCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("RenderedPagesCache[size=%d, maxSize=%d, compressedSize=%d, hits=%d, compressedHits=%d, expired=%d, misses=%d, hitRate=%.1f%%]",
+                pages.size(), pages.maxSize(), compressedPages == null ? 0 : compressedPages.size(), pages.hitCount() - expiredCount,
+                compressedHitCount, expiredCount, pages.missCount() - compressedHitCount + expiredCount, getHitRate() * 100);
+    }
+
+    private static Key newKey(User user, Topic topic, int page, PostsTweaker.Mode mode) {
+        return new Key(topic.getId(), page, user.getUsername(), mode);
+    }
+
+    static byte[] compress(RenderedPage page) {
+        Parcel parcel = Parcel.obtain();
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+        try {
+            page.writeToParcel(parcel, 0);
+            deflater.setInput(parcel.marshall());
+            deflater.finish();
+
+            ByteArrayOutputStream compressedPage = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            while (! deflater.finished()) {
+                compressedPage.write(buffer, 0, deflater.deflate(buffer));
+            }
+
+            return compressedPage.toByteArray();
+        }
+        finally {
+            deflater.end();
+            parcel.recycle();
+        }
+    }
+
+    static RenderedPage decompress(byte[] compressedPage) {
+        Parcel parcel = Parcel.obtain();
+        Inflater inflater = new Inflater();
+
+        try {
+            inflater.setInput(compressedPage);
+
+            ByteArrayOutputStream marshalledPage = new ByteArrayOutputStream(4 * compressedPage.length);
+            byte[] buffer = new byte[8192];
+            while (! inflater.finished()) {
+                int length = inflater.inflate(buffer);
+
+                if (length == 0 && inflater.needsInput()) {
+                    throw new DataFormatException("Truncated page");
+                }
+
+                marshalledPage.write(buffer, 0, length);
+            }
+
+            byte[] bytes = marshalledPage.toByteArray();
+            parcel.unmarshall(bytes, 0, bytes.length);
+            parcel.setDataPosition(0);
+
+            return RenderedPage.CREATOR.createFromParcel(parcel);
+        }
+        catch (DataFormatException e) {
+            Log.e(LOG_TAG, "Unable to decompress cached page", e);
+            return null;
+        }
+        finally {
+            inflater.end();
+            parcel.recycle();
+        }
+    }
+
+    static final class Key {
+        private final int topicId;
+
+        private final int page;
+
+        private final String username;
+
+        private final PostsTweaker.Mode mode;
+
+        Key(int topicId, int page, String username, PostsTweaker.Mode mode) {
+            this.topicId = topicId;
+            this.page = page;
+            this.username = username;
+            this.mode = mode;
+        }
+
+        boolean matches(Topic topic, int page) {
+            return topicId == topic.getId() && (page == ALL_PAGES || this.page == page);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            Key key = (Key) o;
+
+            return topicId == key.topicId && page == key.page && username.equals(key.username) && mode == key.mode;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = topicId;
+            result = 31 * result + page;
+            result = 31 * result + username.hashCode();
+            result = 31 * result + mode.hashCode();
+            return result;
+        }
+    }
+
+    private static final class Entry<T> {
+        private final T value;
+
+        /**
+         * Time the page was loaded at, see {@link SystemClock#elapsedRealtime()}
+         */
+        private final long loadTime;
+
+        private Entry(T value, long loadTime) {
+            this.value = value;
+            this.loadTime = loadTime;
+        }
+    }
+}
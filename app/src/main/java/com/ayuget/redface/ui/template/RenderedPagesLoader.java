@@ -0,0 +1,162 @@
+/*
+ * Copyright 2015 Ayuget
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ayuget.redface.ui.template;
+
+import com.ayuget.redface.data.api.MDService;
+import com.ayuget.redface.data.api.hfr.PostsTweaker;
+import com.ayuget.redface.data.api.model.Post;
+import com.ayuget.redface.data.api.model.Topic;
+import com.ayuget.redface.data.api.model.User;
+import com.ayuget.redface.data.rx.SubscriptionHandler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import rx.Observable;
+import rx.Observer;
+import rx.Subscription;
+import rx.functions.Func0;
+import rx.functions.Func1;
+
+/**
+ * Loads topic pages and renders them for the webview. Rendering is done on the background thread
+ * the posts are loaded on, so that the main thread only hands the rendered page to the webview.
+ * Pages recently rendered (with the same data saver mode) are served from the
+ * {@link RenderedPagesCache}, with the active theme applied.
+ */
+@Singleton
+public class RenderedPagesLoader {
+    /**
+     * Number of posts rendered and handed to the page shell at once, when a page is streamed
+     */
+    private static final int STREAM_BATCH_SIZE = 10;
+
+    @Inject MDService mdService;
+
+    @Inject PageRenderer pageRenderer;
+
+    @Inject RenderedPagesCache renderedPagesCache;
+
+    @Inject PostsTweaker postsTweaker;
+
+    private SubscriptionHandler<Topic, RenderedPage> pagesSubscriptionHandler = new SubscriptionHandler<>();
+
+    private SubscriptionHandler<Topic, RenderedPage> postSubscriptionHandler = new SubscriptionHandler<>();
+
+    @Inject
+    public RenderedPagesLoader() {
+    }
+
+    public Subscription loadPage(final User user, final Topic topic, int page, Observer<RenderedPage> observer) {
+        return pagesSubscriptionHandler.load(topic, renderedPagesCache.load(user, topic, page, postsTweaker.getMode(), mdService.listPosts(user, topic, page).map(pageRenderer)).map(new Func1<RenderedPage, RenderedPage>() {
+            @Override
+            public RenderedPage call(RenderedPage renderedPage) {
+                return pageRenderer.applyTheme(renderedPage);
+            }
+        }), observer);
+    }
+
+    /**
+     * Loads a page for the page shell, emitting its posts as soon as they are received : each
+     * emitted page holds all the posts received so far, rendered in batches. The last emitted page
+     * is complete (see {@link RenderedPage#isComplete()}), and is the only one to be cached.
+     */
+    public Subscription streamPage(final User user, final Topic topic, final int page, Observer<RenderedPage> observer) {
+        Observable<RenderedPage> loader = Observable.defer(new Func0<Observable<RenderedPage>>() {
+            @Override
+            public Observable<RenderedPage> call() {
+                final RenderedPage[] receivedPage = { pageRenderer.render(new ArrayList<Post>(0), true) };
+
+                Observable<RenderedPage> partialPages = mdService.streamPosts(user, topic, page)
+                        .buffer(STREAM_BATCH_SIZE)
+                        .map(new Func1<List<Post>, RenderedPage>() {
+                            @Override
+                            public RenderedPage call(List<Post> posts) {
+                                receivedPage[0] = receivedPage[0].append(pageRenderer.render(posts, true));
+                                return receivedPage[0];
+                            }
+                        });
+
+                return Observable.concat(partialPages, Observable.defer(new Func0<Observable<RenderedPage>>() {
+                    @Override
+                    public Observable<RenderedPage> call() {
+                        return Observable.just(receivedPage[0].complete());
+                    }
+                }));
+            }
+        });
+
+        return pagesSubscriptionHandler.load(topic, renderedPagesCache.load(user, topic, page, postsTweaker.getMode(), loader), observer);
+    }
+
+    /**
+     * Reloads a page already displayed, replacing its cached version. Displayed posts which did
+     * not change are reused (see {@link MDService#listPosts(User, Topic, int, List)}), the rendered
+     * page holding all posts of the page.
+     */
+    public Subscription refreshPage(final User user, final Topic topic, int page, List<Post> displayedPosts, Observer<RenderedPage> observer) {
+        return pagesSubscriptionHandler.load(topic, renderedPagesCache.update(user, topic, page, postsTweaker.getMode(), mdService.listPosts(user, topic, page, displayedPosts).map(pageRenderer)), observer);
+    }
+
+    /**
+     * Reloads a single (edited) post of a page already displayed, and renders it for the page shell
+     * on the loading thread. The cached versions of the page are patched with the rendered post.
+     * Emits null if the post is not on the page anymore.
+     */
+    public Subscription reloadPost(final User user, final Topic topic, final int page, long postId, Observer<RenderedPage> observer) {
+        final PostsTweaker.Mode mode = postsTweaker.getMode();
+
+        return postSubscriptionHandler.load(topic, mdService.getPost(user, topic, page, postId).map(new Func1<Post, RenderedPage>() {
+            @Override
+            public RenderedPage call(Post post) {
+                if (post == null) {
+                    return null;
+                }
+
+                RenderedPage renderedPost = pageRenderer.render(Collections.singletonList(post), true);
+                renderedPagesCache.replacePost(topic, page, mode, renderedPost);
+                return renderedPost;
+            }
+        }), observer);
+    }
+
+    /**
+     * Evicts a page from the rendered pages cache, so that it is loaded again next time
+     */
+    public void invalidatePage(final Topic topic, int page) {
+        renderedPagesCache.evict(topic, page);
+    }
+
+    /**
+     * Removes a deleted post from the cached versions of a page, so that they match the displayed
+     * page
+     */
+    public void removePost(final Topic topic, int page, long postId) {
+        renderedPagesCache.removePost(topic, page, postId);
+    }
+
+    /**
+     * Evicts all the pages of a topic from the rendered pages cache, once the topic is opened
+     */
+    public void invalidateTopic(final Topic topic) {
+        renderedPagesCache.evict(topic);
+    }
+}
@@ -19,26 +19,29 @@ package com.ayuget.redface.ui.template;
 import android.content.Context;
 import android.text.TextUtils;
 
+import com.ayuget.redface.data.api.hfr.PostsMinifier;
 import com.ayuget.redface.data.api.model.Smiley;
-import com.squareup.phrase.Phrase;
 
 public class SmileyTemplate extends HTMLTemplate<Smiley> {
     private static final String LOG_TAG = SmileyTemplate.class.getSimpleName();
 
     private static final String SMILEY_TEMPLATE = "smiley.html";
 
-    public SmileyTemplate(Context context) {
-        super(context, SMILEY_TEMPLATE);
+    public SmileyTemplate(Context context, PostsMinifier postsMinifier) {
+        super(context, postsMinifier, SMILEY_TEMPLATE);
     }
 
     @Override
-    protected void render(Smiley smiley, Phrase templateContent, StringBuilder stream) {
-        stream.append(
-                templateContent
-                        .put("smiley_code", smiley.getCode())
-                        .put("smiley_url", smiley.getImageUrl())
-                        .format()
-                        .toString()
-        );
+    protected void renderSlot(Smiley smiley, String slot, StringBuilder stream) {
+        switch (slot) {
+            case "smiley_code":
+                stream.append(smiley.getCode());
+                break;
+            case "smiley_url":
+                stream.append(smiley.getImageUrl());
+                break;
+            default:
+                throw new IllegalArgumentException(String.format("Unknown slot '%s' in %s", slot, SMILEY_TEMPLATE));
+        }
     }
 }
@@ -20,9 +20,9 @@ import android.content.Context;
 import android.text.TextUtils;
 
 import com.ayuget.redface.R;
+import com.ayuget.redface.data.api.hfr.PostsMinifier;
 import com.ayuget.redface.data.api.model.Smiley;
 import com.ayuget.redface.ui.misc.ThemeManager;
-import com.squareup.phrase.Phrase;
 
 import java.util.List;
 
@@ -38,38 +38,37 @@ public class SmileysTemplate extends HTMLTemplate<List<Smiley>> {
     private static final String noSmileysFoundImgUrl = "http://forum-images.hardware.fr/images/perso/bobox360.gif";
     private static String noSmileysFoundStr;
 
-    public SmileysTemplate(Context context, SmileyTemplate smileyTemplate, ThemeManager themeManager) {
-        super(context, SMILEYS_TEMPLATE);
+    public SmileysTemplate(Context context, PostsMinifier postsMinifier, SmileyTemplate smileyTemplate, ThemeManager themeManager) {
+        super(context, postsMinifier, SMILEYS_TEMPLATE);
         noSmileysFoundStr = context.getResources().getString(R.string.no_smileys_found);
         this.smileyTemplate = smileyTemplate;
         this.themeManager = themeManager;
     }
 
     @Override
-    public Phrase compile(String templateContent) {
-        return Phrase.from(templateContent)
-                .put("css", readAssetFile("styles.css"))
-                .put("js", readAssetFile("hfr.js"));
+    public CompiledTemplate compile(String templateContent) {
+        return CompiledTemplate.compile(templateContent)
+                .bind("css", readAssetFile("styles.css"))
+                .bind("js", readAssetFile("hfr.js"));
     }
 
     @Override
-    protected void render(List<Smiley> smileys, Phrase templateContent, StringBuilder stream) {
-        StringBuilder smileysBuffer = new StringBuilder();
-        if (smileys.size() > 0) {
-            for (Smiley smiley : smileys) {
-                smileyTemplate.render(smiley, smileysBuffer);
-            }
-        } else {
-
-            smileysBuffer.append("<div class=\"nosmiley\">" + noSmileysFoundStr + " <img src=\"" + noSmileysFoundImgUrl + "\"/></div>");
+    protected void renderSlot(List<Smiley> smileys, String slot, StringBuilder stream) {
+        switch (slot) {
+            case "smileys":
+                if (smileys.size() > 0) {
+                    for (Smiley smiley : smileys) {
+                        smileyTemplate.render(smiley, stream);
+                    }
+                } else {
+                    stream.append("<div class=\"nosmiley\">" + noSmileysFoundStr + " <img src=\"" + noSmileysFoundImgUrl + "\"/></div>");
+                }
+                break;
+            case "theme_class":
+                stream.append(themeManager.getActiveThemeCssClass());
+                break;
+            default:
+                throw new IllegalArgumentException(String.format("Unknown slot '%s' in %s", slot, SMILEYS_TEMPLATE));
         }
-
-        stream.append(
-                templateContent
-                        .put("smileys", smileysBuffer.toString())
-                        .put("theme_class", themeManager.getActiveThemeCssClass())
-                        .format()
-                        .toString()
-        );
     }
 }
@@ -56,23 +56,41 @@ import com.ayuget.redface.ui.misc.DummyGestureListener;
 import com.ayuget.redface.ui.misc.PagePosition;
 import com.ayuget.redface.ui.misc.ThemeManager;
 import com.ayuget.redface.ui.misc.UiUtils;
-import com.ayuget.redface.ui.template.PostsTemplate;
+import com.ayuget.redface.ui.template.PageRenderer;
+import com.ayuget.redface.ui.template.PostsShellTemplate;
+import com.ayuget.redface.ui.template.RenderedPage;
 import com.ayuget.redface.util.JsExecutor;
 import com.squareup.otto.Bus;
+import com.squareup.phrase.Phrase;
+
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.inject.Inject;
 
 public class TopicPageView extends WebView implements View.OnTouchListener {
     private static final String LOG_TAG = TopicPageView.class.getSimpleName();
 
+    /**
+     * Max number of pages kept in the DOM in continuous scroll mode, pages far from the viewport
+     * being evicted beyond it
+     */
+    private static final int CONTINUOUS_SCROLL_MAX_LOADED_PAGES = 3;
+
     /**
      * The post currently displayed in the webview. These posts will be encoded to HTML with
      * specific {@link com.ayuget.redface.ui.template.HTMLTemplate} classes.
      */
     private List<Post> posts;
 
+    /**
+     * Displayed posts, rendered (usually off the main thread by the {@link PageRenderer})
+     */
+    private RenderedPage renderedPage;
+
     /**
      * Flag indicating if the webview has already been initialized
      */
@@ -99,7 +117,64 @@ public class TopicPageView extends WebView implements View.OnTouchListener {
      */
     private ArrayList<Long> quotedMessages;
 
-    @Inject PostsTemplate postsTemplate;
+    /**
+     * Posts are sent to a static page shell, loaded once, instead of loading a whole page each time
+     */
+    private boolean usePageShell;
+
+    /**
+     * Flag indicating if the page (page shell or whole page) is loaded, and its scripts can be
+     * called (page shell being then ready to receive posts)
+     */
+    private boolean isPageLoaded;
+
+    /**
+     * Theme and font size CSS classes of the loaded page body
+     */
+    private String themeClass;
+
+    /**
+     * Posts displayed by the page shell (post id to rendered post hash), so that only posts which
+     * changed are sent again when the page is refreshed
+     */
+    private final Map<Long, Long> renderedPosts = new HashMap<>();
+
+    /**
+     * Following pages are appended below the displayed one while scrolling (page shell only),
+     * see {@link #setContinuousScroll()}
+     */
+    private boolean isContinuousScroll;
+
+    /**
+     * Posts of the pages appended below the displayed one in continuous scroll mode, by page
+     * number. Pages evicted from the DOM are removed (the displayed page being flagged instead),
+     * until they are shown again.
+     */
+    private final Map<Integer, List<Post>> appendedPages = new LinkedHashMap<>();
+
+    private boolean isPageEvicted;
+
+    /**
+     * Guards displayed posts ({@link #page}, {@link #posts}, {@link #appendedPages} and
+     * {@link #isPageEvicted}), which are updated on the main thread and looked up from the
+     * JavaBridge thread as well (see {@link JsInterface#getCollapsedQuote(long, int)}). Lists of
+     * posts are never modified once displayed, they are replaced.
+     */
+    private final Object displayedPostsLock = new Object();
+
+    /**
+     * Last page appended in continuous scroll mode (its section stays in the page, even evicted)
+     */
+    private int lastPage;
+
+    /**
+     * Page at the top of the viewport in continuous scroll mode
+     */
+    private int readPage;
+
+    @Inject PageRenderer pageRenderer;
+
+    @Inject PostsShellTemplate postsShellTemplate;
 
     @Inject MDEndpoints mdEndpoints;
 
@@ -139,12 +214,23 @@ public class TopicPageView extends WebView implements View.OnTouchListener {
         void onPageLoaded();
     }
 
+    /**
+     * Callback to be invoked in continuous scroll mode, when a page is needed (next page, evicted
+     * page getting close to the viewport) and when another page gets at the top of the viewport
+     */
+    public interface OnContinuousScrollListener {
+        void onPageRequested(int page);
+        void onPageScrolled(int page);
+    }
+
     private OnScrollListener onScrollListener;
 
     private OnMultiQuoteModeListener onMultiQuoteModeListener;
 
     private OnPageLoadedListener onPageLoadedListener;
 
+    private OnContinuousScrollListener onContinuousScrollListener;
+
     @SuppressLint("SetJavaScriptEnabled")
     public TopicPageView(Context context) {
         super(context);
@@ -212,21 +298,28 @@ public class TopicPageView extends WebView implements View.OnTouchListener {
             setWebViewClient(new WebViewClient() {
                 @Override
                 public void onPageFinished(WebView view, String url) {
-                    if (posts.size() > 0) {
-                        Log.d(LOG_TAG, String.format("Page Loaded Event fired (page=%d)", page));
+                    isPageLoaded = true;
+
+                    // Theme may have changed while the page was loading
+                    applyTheme();
+
+                    if (usePageShell) {
+                        // Posts may have been received while the shell was loading
+                        if (posts != null) {
+                            long start = System.nanoTime();
+                            sendPosts();
+                            logMainThreadTime(start, "sending posts to loaded shell");
+                        }
+
+                        if (isContinuousScroll) {
+                            enableContinuousScroll();
+                        }
+                    }
+                    else {
                         TopicPageView.this.post(new Runnable() {
                             @Override
                             public void run() {
-                                if (!wasReloaded) {
-                                    // Triggerring the event will allow the fragment in which this
-                                    // webview is contained to initiate page position events
-                                    // This has to be triggered only once
-                                    bus.post(new PageLoadedEvent(topic, page, TopicPageView.this));
-                                }
-
-                                if (onPageLoadedListener != null) {
-                                    onPageLoadedListener.onPageLoaded();
-                                }
+                                onPostsRendered();
                             }
                         });
                     }
@@ -244,6 +337,12 @@ public class TopicPageView extends WebView implements View.OnTouchListener {
                 }
             });
 
+            // Shell is loaded right away, while posts are being fetched
+            usePageShell = appSettings.isPageShellEnabled();
+            if (usePageShell) {
+                loadShell();
+            }
+
             initialized = true;
         }
     }
@@ -260,6 +359,10 @@ public class TopicPageView extends WebView implements View.OnTouchListener {
         this.onPageLoadedListener = onPageLoadedListener;
     }
 
+    public void setOnContinuousScrollListener(OnContinuousScrollListener onContinuousScrollListener) {
+        this.onContinuousScrollListener = onContinuousScrollListener;
+    }
+
     @Override
     protected void onScrollChanged(int l, int t, int oldl, int oldt) {
         super.onScrollChanged(l, t, oldl, oldt);
@@ -280,24 +383,425 @@ public class TopicPageView extends WebView implements View.OnTouchListener {
         super.onLayout(changed, l, t, r, b);
     }
 
+    /**
+     * Renders posts on the main thread, and displays them. Prefer {@link #setRenderedPage(RenderedPage)}
+     * whenever posts can be rendered beforehand.
+     */
     public void setPosts(List<Post> posts) {
-        this.posts = posts;
-        renderPosts();
+        long start = System.nanoTime();
+
+        displayPage(pageRenderer.render(posts, usePageShell));
+        logMainThreadTime(start, "rendering and displaying posts");
+    }
+
+    /**
+     * Displays posts already rendered
+     */
+    public void setRenderedPage(RenderedPage renderedPage) {
+        long start = System.nanoTime();
+
+        if (renderedPage.isForPageShell() != usePageShell) {
+            // Settings changed since the view has been initialized
+            renderedPage = pageRenderer.render(renderedPage.getPosts(), usePageShell);
+        }
+
+        displayPage(renderedPage);
+        logMainThreadTime(start, "displaying rendered posts");
+    }
+
+    private void displayPage(RenderedPage renderedPage) {
+        synchronized (displayedPostsLock) {
+            this.posts = renderedPage.getPosts();
+        }
+        this.renderedPage = renderedPage;
+
+        if (usePageShell) {
+            // Otherwise posts are sent once the shell is loaded
+            if (isPageLoaded) {
+                sendPosts();
+            }
+        }
+        else {
+            isPageLoaded = false;
+            themeClass = renderedPage.getThemeClass();
+            loadDataWithBaseURL(mdEndpoints.homepage(), renderedPage.getHtml(), UIConstants.MIME_TYPE, UIConstants.POSTS_ENCODING, null);
+        }
+    }
+
+    /**
+     * Removes a post from the displayed page, without rendering or loading the page again. Returns
+     * false if the post can't be removed in place (see {@link #isUpdatingPostsInPlace()}).
+     */
+    public boolean removePost(long postId) {
+        RenderedPage remainingPage = isUpdatingPostsInPlace() ? renderedPage.withoutPost(postId) : null;
+
+        if (remainingPage == null) {
+            return false;
+        }
+
+        synchronized (displayedPostsLock) {
+            this.posts = remainingPage.getPosts();
+        }
+        this.renderedPage = remainingPage;
+        renderedPosts.remove(postId);
+
+        JsExecutor.execute(this, String.format("updatePosts([%d], [])", postId));
+        return true;
+    }
+
+    /**
+     * Replaces an edited post (rendered for the page shell, see
+     * {@link com.ayuget.redface.ui.template.RenderedPagesLoader#reloadPost}) on the displayed page.
+     * Only the edited post is sent to the page. Returns false if the post can't be replaced in
+     * place (see {@link #isUpdatingPostsInPlace()}).
+     */
+    public boolean replacePost(RenderedPage renderedPost) {
+        RenderedPage replacedPage = isUpdatingPostsInPlace() ? renderedPage.withReplacedPost(renderedPost) : null;
+
+        if (replacedPage == null) {
+            return false;
+        }
+
+        synchronized (displayedPostsLock) {
+            this.posts = replacedPage.getPosts();
+        }
+        this.renderedPage = replacedPage;
+
+        long postId = renderedPost.getPosts().get(0).getId();
+        long postHash = renderedPost.getPostHash(0);
+        Long renderedPostHash = renderedPosts.put(postId, postHash);
+
+        if (renderedPostHash == null || renderedPostHash != postHash) {
+            String nextPostId = "null";
+            for (int i = 0; i + 1 < posts.size(); i++) {
+                if (posts.get(i).getId() == postId) {
+                    nextPostId = String.valueOf(posts.get(i + 1).getId());
+                    break;
+                }
+            }
+
+            JsExecutor.execute(this, String.format("updatePosts([], [%s,\"next\":%s}])", renderedPost.getPostObject(0), nextPostId));
+        }
+
+        return true;
+    }
+
+    private void logMainThreadTime(long start, String step) {
+        Log.d(LOG_TAG, String.format("Main thread spent %.2f ms %s (page=%d, posts=%d)", (System.nanoTime() - start) / 1e6, step, page, posts.size()));
     }
 
     public void setPage(int page) {
-        this.page = page;
+        synchronized (displayedPostsLock) {
+            this.page = page;
+        }
     }
 
     public void setTopic(Topic topic) {
         this.topic = topic;
     }
 
-    private void renderPosts() {
-        StringBuilder pageBuffer = new StringBuilder();
-        postsTemplate.render(this.posts, pageBuffer);
+    /**
+     * Enables continuous scroll mode, if set in settings, once the posts of the page are given :
+     * following pages are then requested (see {@link OnContinuousScrollListener#onPageRequested(int)})
+     * and appended below the displayed one while scrolling, see {@link #showPage(int, RenderedPage)}
+     */
+    public void setContinuousScroll() {
+        if (isContinuousScroll || !usePageShell || !appSettings.isContinuousScrollEnabled()) {
+            return;
+        }
+
+        isContinuousScroll = true;
+        lastPage = page;
+        readPage = page;
+
+        // Otherwise enabled once the shell is loaded
+        if (isPageLoaded) {
+            enableContinuousScroll();
+        }
+    }
+
+    private void enableContinuousScroll() {
+        JsExecutor.execute(this, String.format("enableContinuousScroll(%d, %d, %d)", page, topic.getPagesCount(), CONTINUOUS_SCROLL_MAX_LOADED_PAGES));
+    }
+
+    /**
+     * Displays a page requested in continuous scroll mode, below the displayed pages, or in place
+     * of its evicted or outdated version
+     */
+    public void showPage(int page, RenderedPage renderedPage) {
+        if (!isContinuousScroll || !isPageLoaded) {
+            return;
+        }
+
+        long start = System.nanoTime();
+
+        if (!renderedPage.isForPageShell()) {
+            // Settings changed since the page has been rendered
+            renderedPage = pageRenderer.render(renderedPage.getPosts(), true);
+        }
+
+        StringBuilder jsExpression = new StringBuilder("setPagesCount(").append(topic.getPagesCount()).append(");showPage(").append(page).append(',');
+
+        if (page == this.page) {
+            // Displayed posts are tracked as usual, so that they can be patched later on
+            synchronized (displayedPostsLock) {
+                this.posts = renderedPage.getPosts();
+                isPageEvicted = false;
+            }
+            this.renderedPage = renderedPage;
+
+            jsExpression.append("null,");
+            postsShellTemplate.renderPostsPayload(renderedPage, renderedPosts, jsExpression);
+        }
+        else {
+            synchronized (displayedPostsLock) {
+                appendedPages.put(page, renderedPage.getPosts());
+            }
+            lastPage = Math.max(lastPage, page);
+
+            JsExecutor.appendStringLiteral(jsExpression, Phrase.from(getContext(), R.string.topic_page_separator).put("page", page).format());
+            jsExpression.append(',');
+            postsShellTemplate.renderPostsPayload(renderedPage, new HashMap<Long, Long>(), jsExpression);
+        }
+
+        jsExpression.append(')');
+        JsExecutor.execute(this, jsExpression.toString());
+
+        Log.d(LOG_TAG, String.format("Main thread spent %.2f ms showing page %d below page %d", (System.nanoTime() - start) / 1e6, page, this.page));
+    }
+
+    /**
+     * Called when a page requested in continuous scroll mode can't be loaded, the page being
+     * requested again later
+     */
+    public void cancelPageRequest(int page) {
+        if (isContinuousScroll && isPageLoaded) {
+            JsExecutor.execute(this, String.format("cancelPageRequest(%d)", page));
+        }
+    }
+
+    private void onPageEvicted(int page) {
+        Log.d(LOG_TAG, String.format("Page %d evicted from the DOM (page=%d)", page, this.page));
+
+        synchronized (displayedPostsLock) {
+            if (page == this.page) {
+                isPageEvicted = true;
+            }
+            else {
+                appendedPages.remove(page);
+            }
+        }
+    }
 
-        loadDataWithBaseURL(mdEndpoints.homepage(), pageBuffer.toString(), UIConstants.MIME_TYPE, UIConstants.POSTS_ENCODING, null);
+    /**
+     * Returns true if the page is shown by the view : the page given to {@link #setPage(int)},
+     * and pages appended in continuous scroll mode (evicted ones included, as they are shown
+     * again when scrolled to)
+     */
+    public boolean isPageDisplayed(int page) {
+        return page == this.page || (isContinuousScroll && page > this.page && page <= lastPage);
+    }
+
+    /**
+     * Page at the top of the viewport, which is the displayed page unless continuous scroll
+     * mode is enabled
+     */
+    public int getReadPage() {
+        return isContinuousScroll ? readPage : page;
+    }
+
+    /**
+     * Returns the page of a displayed post, -1 if it isn't displayed (or part of an evicted page)
+     */
+    public int getPageOfPost(long postId) {
+        synchronized (displayedPostsLock) {
+            if (!isPageEvicted && findPost(posts, postId) != null) {
+                return page;
+            }
+
+            for (Map.Entry<Integer, List<Post>> appendedPage : appendedPages.entrySet()) {
+                if (findPost(appendedPage.getValue(), postId) != null) {
+                    return appendedPage.getKey();
+                }
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Posts of a displayed page, null if it isn't displayed (or evicted)
+     */
+    private List<Post> getPagePosts(int page) {
+        synchronized (displayedPostsLock) {
+            if (page == this.page) {
+                return isPageEvicted ? null : posts;
+            }
+
+            return appendedPages.get(page);
+        }
+    }
+
+    /**
+     * Returns a displayed post, whatever its page in continuous scroll mode, null if it isn't
+     * displayed. Safe to call from the JavaBridge thread.
+     */
+    private Post findDisplayedPost(long postId) {
+        synchronized (displayedPostsLock) {
+            int postPage = getPageOfPost(postId);
+            return postPage < 0 ? null : findPost(getPagePosts(postPage), postId);
+        }
+    }
+
+    private static Post findPost(List<Post> posts, long postId) {
+        if (posts != null) {
+            for (Post post : posts) {
+                if (post.getId() == postId) {
+                    return post;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    private void loadShell() {
+        isPageLoaded = false;
+        themeClass = postsShellTemplate.getThemeClass();
+
+        StringBuilder shellBuffer = new StringBuilder();
+        postsShellTemplate.render(null, shellBuffer);
+
+        loadDataWithBaseURL(mdEndpoints.homepage(), shellBuffer.toString(), UIConstants.MIME_TYPE, UIConstants.POSTS_ENCODING, null);
+    }
+
+    /**
+     * Sends posts to the page shell, which calls back {@link JsInterface#onPostsRendered()}. Once
+     * posts are displayed, only added, edited or removed posts are sent, which keeps the scroll
+     * position and already loaded images.
+     */
+    private void sendPosts() {
+        StringBuilder jsExpression;
+
+        if (renderedPosts.isEmpty()) {
+            jsExpression = new StringBuilder("setPosts(");
+            postsShellTemplate.renderPostsPayload(renderedPage, renderedPosts, jsExpression);
+        }
+        else {
+            jsExpression = new StringBuilder("updatePosts(");
+
+            if (!postsShellTemplate.renderPostsUpdate(renderedPage, renderedPosts, jsExpression)) {
+                Log.d(LOG_TAG, String.format("No post has changed (page=%d)", page));
+                onPostsRendered();
+                return;
+            }
+        }
+
+        jsExpression.append(')');
+
+        JsExecutor.execute(this, jsExpression.toString());
+    }
+
+    /**
+     * Applies the active theme and font size to the loaded page, by swapping the CSS classes of
+     * its body : the page is neither rendered nor loaded again. Pages still loading get them once
+     * loaded.
+     */
+    public void applyTheme() {
+        String activeThemeClass = postsShellTemplate.getThemeClass();
+
+        if (isPageLoaded && !activeThemeClass.equals(themeClass)) {
+            Log.d(LOG_TAG, String.format("Applying theme '%s' to loaded page (page=%d)", activeThemeClass, page));
+
+            StringBuilder jsExpression = new StringBuilder("setThemeClass(");
+            JsExecutor.appendStringLiteral(jsExpression, activeThemeClass);
+            jsExpression.append(')');
+            JsExecutor.execute(this, jsExpression.toString());
+
+            themeClass = activeThemeClass;
+        }
+    }
+
+    /**
+     * Returns true if the view can be reused for another page (see {@link TopicPageViewPool}) :
+     * page shell is used, and still matches settings (theme is applied to the page shell by
+     * {@link #applyTheme()})
+     */
+    public boolean isReusable() {
+        return usePageShell && appSettings.isPageShellEnabled();
+    }
+
+    /**
+     * Clears displayed posts, page state and listeners, before the view is reused for another page
+     */
+    public void reset() {
+        synchronized (displayedPostsLock) {
+            posts = null;
+            page = 0;
+            isPageEvicted = false;
+            appendedPages.clear();
+        }
+        renderedPage = null;
+        topic = null;
+        renderedPosts.clear();
+        quotedMessages.clear();
+        actionModeIsActive = false;
+        wasReloaded = false;
+
+        isContinuousScroll = false;
+        lastPage = 0;
+        readPage = 0;
+
+        onScrollListener = null;
+        onMultiQuoteModeListener = null;
+        onPageLoadedListener = null;
+        onContinuousScrollListener = null;
+
+        if (usePageShell && isPageLoaded) {
+            JsExecutor.execute(this, "clearPosts()");
+        }
+
+        scrollTo(0, 0);
+    }
+
+    /**
+     * Returns true if pages whose posts are still being received can be given to
+     * {@link #setRenderedPage(RenderedPage)} (see {@link RenderedPage#isComplete()}) : posts are
+     * then added to the page shell as they are received. Displayed posts can't be patched this way,
+     * as posts not received yet would be removed.
+     */
+    public boolean isShowingPartialPages() {
+        return usePageShell && !isUpdatingPostsInPlace();
+    }
+
+    /**
+     * Returns true if posts given to {@link #setRenderedPage(RenderedPage)} are patched into the displayed ones,
+     * instead of reloading the whole page
+     */
+    public boolean isUpdatingPostsInPlace() {
+        return usePageShell && isPageLoaded && !renderedPosts.isEmpty() && !isPageEvicted;
+    }
+
+    /**
+     * Called on the main thread once posts are displayed, either by a page load or by the page shell.
+     * Listeners are only notified once all the posts of the page are displayed.
+     */
+    private void onPostsRendered() {
+        // Posts are cleared if the view has been released to the pool in the meantime
+        if (posts != null && posts.size() > 0 && renderedPage.isComplete()) {
+            Log.d(LOG_TAG, String.format("Page Loaded Event fired (page=%d)", page));
+
+            if (!wasReloaded) {
+                // Triggerring the event will allow the fragment in which this
+                // webview is contained to initiate page position events
+                // This has to be triggered only once
+                bus.post(new PageLoadedEvent(topic, page, TopicPageView.this));
+            }
+
+            if (onPageLoadedListener != null) {
+                onPageLoadedListener.onPageLoaded();
+            }
+        }
     }
 
     public void setPagePosition(PagePosition pagePosition) {
@@ -312,6 +816,19 @@ public class TopicPageView extends WebView implements View.OnTouchListener {
         }
     }
 
+    /**
+     * Scrolls to a position of a page, which may be appended below the displayed one in continuous
+     * scroll mode (see {@link #isPageDisplayed(int)})
+     */
+    public void setPagePosition(int page, PagePosition pagePosition) {
+        if (!isContinuousScroll) {
+            setPagePosition(pagePosition);
+        }
+        else if (pagePosition != null) {
+            JsExecutor.execute(this, String.format("scrollToPagePosition(%d, %d)", page, pagePosition.getPostId()));
+        }
+    }
+
     public void scrollToBottom() {
         Log.d(LOG_TAG, "Scrolling to the bottom of the page");
         JsExecutor.execute(this, "scrollToBottom()");
@@ -337,6 +854,83 @@ public class TopicPageView extends WebView implements View.OnTouchListener {
             this.context = context;
         }
 
+        @JavascriptInterface
+        public void onPostsRendered() {
+            TopicPageView.this.post(new Runnable() {
+                @Override
+                public void run() {
+                    TopicPageView.this.onPostsRendered();
+                }
+            });
+        }
+
+        @JavascriptInterface
+        public void onPageRequested(final int page) {
+            TopicPageView.this.post(new Runnable() {
+                @Override
+                public void run() {
+                    if (onContinuousScrollListener != null) {
+                        onContinuousScrollListener.onPageRequested(page);
+                    }
+                }
+            });
+        }
+
+        @JavascriptInterface
+        public void onPageScrolled(final int page) {
+            TopicPageView.this.post(new Runnable() {
+                @Override
+                public void run() {
+                    readPage = page;
+
+                    if (onContinuousScrollListener != null) {
+                        onContinuousScrollListener.onPageScrolled(page);
+                    }
+                }
+            });
+        }
+
+        @JavascriptInterface
+        public void onPageEvicted(final int page) {
+            TopicPageView.this.post(new Runnable() {
+                @Override
+                public void run() {
+                    TopicPageView.this.onPageEvicted(page);
+                }
+            });
+        }
+
+        /**
+         * Distance from the viewport at which deferred images are loaded, as a percentage of the
+         * screen height
+         */
+        @JavascriptInterface
+        public int getImagesLookAhead() {
+            return appSettings.getImagesLookAhead();
+        }
+
+        /**
+         * Images not loaded by the data saver mode, along with their estimated size. Images
+         * loaded on demand are reported back with negative values.
+         */
+        @JavascriptInterface
+        public void onDataSaved(int imagesCount, long bytes) {
+            Log.d(LOG_TAG, String.format("Data saver : %d images (%d KB) not loaded on page %d", imagesCount, bytes / 1024, page));
+            appSettings.addDataSavedBytes(bytes);
+        }
+
+        /**
+         * Content of a quote collapsed by the {@link com.ayuget.redface.data.api.hfr.PostsTweaker},
+         * taken from the displayed posts. Empty if the post is not displayed anymore.
+         */
+        @JavascriptInterface
+        public String getCollapsedQuote(long postId, int index) {
+            Post post = findDisplayedPost(postId);
+            String collapsedQuote = post == null ? null : post.getCollapsedQuote(index);
+
+            return collapsedQuote == null ? "" : collapsedQuote;
+        }
+
         @JavascriptInterface
         public void quotePost(final int postId) {
             Log.d(LOG_TAG, String.format("Quoting post '%d'", postId));
@@ -423,16 +1017,16 @@ public class TopicPageView extends WebView implements View.OnTouchListener {
 
         @JavascriptInterface
         public void writePrivateMessage(final int postId) {
-            for (final Post post : posts) {
-                if (post.getId() == postId) {
-                    TopicPageView.this.post(new Runnable() {
-                        @Override
-                        public void run() {
-                            bus.post(new WritePrivateMessageEvent(post.getAuthor()));
-                        }
-                    });
+            TopicPageView.this.post(new Runnable() {
+                @Override
+                public void run() {
+                    Post post = findDisplayedPost(postId);
+
+                    if (post != null) {
+                        bus.post(new WritePrivateMessageEvent(post.getAuthor()));
+                    }
                 }
-            }
+            });
         }
 
         @JavascriptInterface
@@ -447,7 +1041,9 @@ public class TopicPageView extends WebView implements View.OnTouchListener {
             TopicPageView.this.post(new Runnable() {
                 @Override
                 public void run() {
-                    bus.post(new InternalLinkClickedEvent(topic, page, new PagePosition(postId)));
+                    // Post may be on a page appended in continuous scroll mode
+                    int postPage = getPageOfPost(postId);
+                    bus.post(new InternalLinkClickedEvent(topic, postPage < 0 ? page : postPage, new PagePosition(postId)));
                 }
             });
 
@@ -469,7 +1065,8 @@ public class TopicPageView extends WebView implements View.OnTouchListener {
 
                                 // Hack needed because we are hiding the first post of a page, which is equal
                                 // to the last post of previous page.
-                                if (!appSettings.showPreviousPageLastPost() && destinationPage > 1 && posts.size() > 0 && topicPage == page && pagePosition.getPostId() < posts.get(0).getId()) {
+                                List<Post> pagePosts = getPagePosts(topicPage);
+                                if (!appSettings.showPreviousPageLastPost() && destinationPage > 1 && pagePosts != null && pagePosts.size() > 0 && pagePosition.getPostId() < pagePosts.get(0).getId()) {
                                     targetPagePosition = new PagePosition(PagePosition.BOTTOM);
                                     destinationPage -= 1;
                                 }
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2015 Ayuget
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ayuget.redface.ui.view;
+
+import android.app.ActivityManager;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.MutableContextWrapper;
+import android.content.res.Configuration;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.util.Log;
+import android.view.ViewGroup;
+
+import com.ayuget.redface.settings.RedfaceSettings;
+
+import java.util.ArrayDeque;
+
+/**
+ * Pool of {@link TopicPageView}s : page fragments borrow webviews which are already initialized
+ * (settings, javascript interface, page shell loaded) instead of creating new ones, and give them
+ * back once destroyed.
+ *
+ * Views are created with a {@link MutableContextWrapper}, pointing to the activity while they are
+ * used and to the application while they are pooled, so that pooled views don't leak activities.
+ * Pool size depends on the device memory class, and the pool is emptied when memory runs low.
+ */
+public class TopicPageViewPool implements ComponentCallbacks2 {
+    private static final String LOG_TAG = TopicPageViewPool.class.getSimpleName();
+
+    private final Context context;
+
+    private final RedfaceSettings appSettings;
+
+    private final int maxSize;
+
+    private final ArrayDeque<TopicPageView> views = new ArrayDeque<>();
+
+    private int hitCount;
+
+    private int coldCreationCount;
+
+    private boolean isPrewarmScheduled;
+
+    public TopicPageViewPool(Context context, RedfaceSettings appSettings) {
+        this.context = context.getApplicationContext();
+        this.appSettings = appSettings;
+        this.maxSize = getMaxSize(((ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE)).getMemoryClass());
+
+        this.context.registerComponentCallbacks(this);
+    }
+
+    /**
+     * Pool size for a given memory class (in megabytes) : every webview costs a few megabytes
+     */
+    static int getMaxSize(int memoryClass) {
+        if (memoryClass <= 32) {
+            return 0;
+        }
+        else if (memoryClass <= 64) {
+            return 1;
+        }
+        else if (memoryClass <= 128) {
+            return 2;
+        }
+        else {
+            return 3;
+        }
+    }
+
+    /**
+     * Returns a pooled view if any, a new one otherwise
+     *
+     * @param activityContext context of the activity in which the view will be displayed
+     */
+    public TopicPageView acquire(Context activityContext) {
+        TopicPageView view;
+
+        while ((view = views.pollFirst()) != null && !view.isReusable()) {
+            // Settings changed since the view has been pooled
+            destroy(view);
+        }
+
+        if (view != null) {
+            hitCount++;
+            ((MutableContextWrapper) view.getContext()).setBaseContext(activityContext);
+
+            // Theme may have changed since the view has been pooled
+            view.applyTheme();
+        }
+        else {
+            coldCreationCount++;
+            view = new TopicPageView(new MutableContextWrapper(activityContext));
+        }
+
+        Log.d(LOG_TAG, toString());
+        return view;
+    }
+
+    /**
+     * Gives a view back to the pool, the view is destroyed if it can't be reused or if the pool
+     * is full.
+     *
+     * @return true if the view has been pooled, false if it has been destroyed
+     */
+    public boolean release(TopicPageView view) {
+        ViewGroup parent = (ViewGroup) view.getParent();
+        if (parent != null) {
+            parent.removeView(view);
+        }
+
+        if (views.size() < maxSize && view.isReusable()) {
+            view.reset();
+            ((MutableContextWrapper) view.getContext()).setBaseContext(context);
+            views.addLast(view);
+            return true;
+        }
+        else {
+            destroy(view);
+            return false;
+        }
+    }
+
+    /**
+     * Fills the pool, one view at a time, when the main thread is idle
+     */
+    public void prewarm() {
+        if (isPrewarmScheduled || views.size() >= maxSize || !appSettings.isPageShellEnabled()) {
+            return;
+        }
+
+        isPrewarmScheduled = true;
+        Looper.myQueue().addIdleHandler(new MessageQueue.IdleHandler() {
+            @Override
+            public boolean queueIdle() {
+                if (views.size() < maxSize && appSettings.isPageShellEnabled()) {
+                    Log.d(LOG_TAG, "Prewarming a topic page view");
+                    views.addLast(new TopicPageView(new MutableContextWrapper(context)));
+                }
+
+                isPrewarmScheduled = views.size() < maxSize && appSettings.isPageShellEnabled();
+                return isPrewarmScheduled;
+            }
+        });
+    }
+
+    /**
+     * Destroys all pooled views
+     */
+    public void clear() {
+        TopicPageView view;
+        while ((view = views.pollFirst()) != null) {
+            destroy(view);
+        }
+    }
+
+    private void destroy(TopicPageView view) {
+        view.removeAllViews();
+        view.destroy();
+    }
+
+    /**
+     * Share of acquired views which were taken from the pool, between 0 and 1
+     */
+    public float getHitRate() {
+        int acquiredCount = hitCount + coldCreationCount;
+        return acquiredCount == 0 ? 0 : (float) hitCount / acquiredCount;
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        if (level >= TRIM_MEMORY_RUNNING_LOW) {
+            Log.d(LOG_TAG, String.format("Clearing pool (trim memory level = %d)", level));
+            clear();
+        }
+    }
+
+    @Override
+    public void onLowMemory() {
+        clear();
+    }
+
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TopicPageViewPool[size=%d, maxSize=%d, hits=%d, coldCreations=%d, hitRate=%.1f%%]",
+                views.size(), maxSize, hitCount, coldCreationCount, getHitRate() * 100);
+    }
+}
@@ -19,18 +19,131 @@ package com.ayuget.redface.util;
 import android.content.Context;
 
 import java.util.Date;
-import java.util.GregorianCalendar;
+import java.util.TimeZone;
 
 public class DateUtils {
+    /**
+     * Dates displayed by the forum are in french local time
+     */
+    public static final TimeZone FORUM_TIME_ZONE = TimeZone.getTimeZone("Europe/Paris");
+
+    /**
+     * Returned by {@link #parseHTMLDate(CharSequence, int, int)} when no valid date can be read
+     */
+    public static final long INVALID_DATE = Long.MIN_VALUE;
+
+    private static final ZoneOffsetTable FORUM_OFFSETS = new ZoneOffsetTable(FORUM_TIME_ZONE);
+
+    private static final long MINUTE_IN_MILLIS = 60 * 1000;
+
+    private static final long DAY_IN_MILLIS = 24 * 60 * MINUTE_IN_MILLIS;
+
     public static Date fromHTMLDate(String year, String month, String day, String hours, String minutes, String seconds) {
-        return new GregorianCalendar(
+        return fromHTMLDate(
                 Integer.parseInt(year),
-                Integer.parseInt(month) - 1,
+                Integer.parseInt(month),
                 Integer.parseInt(day),
                 Integer.parseInt(hours),
                 Integer.parseInt(minutes),
                 Integer.parseInt(seconds)
-        ).getTime();
+        );
+    }
+
+    public static Date fromHTMLDate(int year, int month, int day, int hours, int minutes, int seconds) {
+        return new Date(toEpochMillis(year, month, day, hours, minutes, seconds));
+    }
+
+    /**
+     * Reads a forum date formatted as "dd-mm-yyyy[...]hh:mm[:ss]" directly from {@code source},
+     * between {@code start} and {@code end}, and returns it as milliseconds since epoch, or
+     * {@link #INVALID_DATE}.
+     */
+    public static long parseHTMLDate(CharSequence source, int start, int end) {
+        // Fields are packed with the index of the char following them, see readNumber()
+        long field = readNumber(source, start, end);
+        if (field < 0 || ! isAt(source, (int) field, end, '-')) return INVALID_DATE;
+        int day = (int) (field >>> 32);
+
+        field = readNumber(source, (int) field + 1, end);
+        if (field < 0 || ! isAt(source, (int) field, end, '-')) return INVALID_DATE;
+        int month = (int) (field >>> 32);
+
+        field = readNumber(source, (int) field + 1, end);
+        if (field < 0) return INVALID_DATE;
+        int year = (int) (field >>> 32);
+
+        int position = (int) field;
+        while (position < end && ! isDigit(source.charAt(position))) {
+            position++;
+        }
+
+        field = readNumber(source, position, end);
+        if (field < 0 || ! isAt(source, (int) field, end, ':')) return INVALID_DATE;
+        int hours = (int) (field >>> 32);
+
+        field = readNumber(source, (int) field + 1, end);
+        if (field < 0) return INVALID_DATE;
+        int minutes = (int) (field >>> 32);
+        int seconds = 0;
+
+        if (isAt(source, (int) field, end, ':')) {
+            field = readNumber(source, (int) field + 1, end);
+            if (field < 0) return INVALID_DATE;
+            seconds = (int) (field >>> 32);
+        }
+
+        if (month < 1 || month > 12 || day < 1 || day > 31) {
+            return INVALID_DATE;
+        }
+
+        return toEpochMillis(year, month, day, hours, minutes, seconds);
+    }
+
+    /**
+     * Converts a forum local time to milliseconds since epoch ({@code month} is 1-based)
+     */
+    public static long toEpochMillis(int year, int month, int day, int hours, int minutes, int seconds) {
+        long localMillis = daysFromCivil(year, month, day) * DAY_IN_MILLIS
+                + (hours * 60L + minutes) * MINUTE_IN_MILLIS
+                + seconds * 1000L;
+
+        return FORUM_OFFSETS.toUtc(localMillis, year);
+    }
+
+    /**
+     * Number of days since 1970-01-01 of a date in the proleptic gregorian calendar
+     */
+    static long daysFromCivil(int year, int month, int day) {
+        year -= month <= 2 ? 1 : 0;
+        long era = (year >= 0 ? year : year - 399) / 400;
+        long yearOfEra = year - era * 400;
+        long dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    /**
+     * Reads an unsigned number at {@code start}, returns its value in the high 32 bits and the
+     * index of the first char after it in the low 32 bits, or -1 if there is no digit there.
+     */
+    private static long readNumber(CharSequence source, int start, int end) {
+        int position = start;
+        int value = 0;
+
+        while (position < end && isDigit(source.charAt(position)) && position - start < 9) {
+            value = value * 10 + (source.charAt(position) - '0');
+            position++;
+        }
+
+        return position == start ? -1 : ((long) value << 32) | position;
+    }
+
+    private static boolean isAt(CharSequence source, int position, int end, char c) {
+        return position < end && source.charAt(position) == c;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
     }
 
     public static Date fromHTMLDate(String year, String month, String day, String hours, String minutes) {
@@ -17,12 +17,196 @@
 package com.ayuget.redface.util;
 
 public class HTMLUtils {
-    public static String escapeHTML(String input) {
-        return input
-                .replaceAll("&amp;", "&")
-                .replaceAll("&#034;", "\"")
-                .replaceAll("&gt;", ">")
-                .replaceAll("&lt;", ">")
-                .replaceAll("&euro;", "€");
+    /**
+     * Named entities found in forum titles, sorted (binary search)
+     */
+    private static final String[] ENTITY_NAMES = {
+            "AElig", "Aacute", "Acirc", "Agrave", "Auml", "Ccedil",
+            "Eacute", "Ecirc", "Egrave", "Euml", "Icirc", "Iuml",
+            "OElig", "Ocirc", "Ouml", "Ucirc", "Ugrave", "Uuml",
+            "aacute", "acirc", "aelig", "agrave", "amp", "apos",
+            "auml", "bull", "ccedil", "cent", "copy", "deg",
+            "eacute", "ecirc", "egrave", "euml", "euro", "gt",
+            "hellip", "iacute", "icirc", "iexcl", "iquest", "iuml",
+            "laquo", "ldquo", "lsquo", "lt", "mdash", "middot",
+            "nbsp", "ndash", "ntilde", "oacute", "ocirc", "oelig",
+            "ouml", "pound", "quot", "raquo", "rdquo", "reg",
+            "rsquo", "sect", "shy", "szlig", "times", "trade",
+            "uacute", "ucirc", "ugrave", "uuml", "yuml"
+    };
+
+    private static final char[] ENTITY_VALUES = {
+            '\u00c6', '\u00c1', '\u00c2', '\u00c0', '\u00c4', '\u00c7',
+            '\u00c9', '\u00ca', '\u00c8', '\u00cb', '\u00ce', '\u00cf',
+            '\u0152', '\u00d4', '\u00d6', '\u00db', '\u00d9', '\u00dc',
+            '\u00e1', '\u00e2', '\u00e6', '\u00e0', '&', '\'',
+            '\u00e4', '\u2022', '\u00e7', '\u00a2', '\u00a9', '\u00b0',
+            '\u00e9', '\u00ea', '\u00e8', '\u00eb', '\u20ac', '>',
+            '\u2026', '\u00ed', '\u00ee', '\u00a1', '\u00bf', '\u00ef',
+            '\u00ab', '\u201c', '\u2018', '<', '\u2014', '\u00b7',
+            '\u00a0', '\u2013', '\u00f1', '\u00f3', '\u00f4', '\u0153',
+            '\u00f6', '\u00a3', '"', '\u00bb', '\u201d', '\u00ae',
+            '\u2019', '\u00a7', '\u00ad', '\u00df', '\u00d7', '\u2122',
+            '\u00fa', '\u00fb', '\u00f9', '\u00fc', '\u00ff'
+    };
+
+    /**
+     * Longest entity, from "&" to ";" included (e.g. "&#x10FFFF;")
+     */
+    private static final int MAX_ENTITY_LENGTH = 10;
+
+    /**
+     * Decodes HTML entities (named ones from {@link #ENTITY_NAMES}, decimal and hexadecimal ones)
+     * in a single pass. Unknown or malformed entities are kept as is. Returns {@code input} itself
+     * when it contains no entity.
+     */
+    public static String decodeEntities(String input) {
+        int ampersand = input.indexOf('&');
+
+        if (ampersand < 0) {
+            return input;
+        }
+
+        int length = input.length();
+        StringBuilder decoded = null;
+        int copied = 0;
+
+        while (ampersand >= 0) {
+            long entity = readEntity(input, ampersand, length);
+
+            if (entity >= 0) {
+                if (decoded == null) {
+                    decoded = new StringBuilder(length);
+                }
+
+                decoded.append(input, copied, ampersand).appendCodePoint((int) (entity >>> 32));
+                copied = (int) entity;
+                ampersand = input.indexOf('&', copied);
+            }
+            else {
+                ampersand = input.indexOf('&', ampersand + 1);
+            }
+        }
+
+        if (decoded == null) {
+            return input;
+        }
+
+        return decoded.append(input, copied, length).toString();
+    }
+
+    /**
+     * Decodes the entity at {@code ampersand} (ending before {@code limit}) into {@code decoded},
+     * and returns the index following it. Returns -1, appending nothing, if there is no valid
+     * entity there.
+     */
+    public static int appendEntity(StringBuilder decoded, String input, int ampersand, int limit) {
+        long entity = readEntity(input, ampersand, limit);
+
+        if (entity < 0) {
+            return -1;
+        }
+
+        decoded.appendCodePoint((int) (entity >>> 32));
+        return (int) entity;
+    }
+
+    /**
+     * Returns the code point of the entity at {@code ampersand} in the high 32 bits and the index
+     * following it in the low 32 bits, or -1.
+     */
+    private static long readEntity(String input, int ampersand, int limit) {
+        int semicolon = ampersand + 1;
+        int semicolonLimit = Math.min(limit, ampersand + MAX_ENTITY_LENGTH);
+
+        while (semicolon < semicolonLimit && input.charAt(semicolon) != ';') {
+            semicolon++;
+        }
+
+        int codePoint = semicolon < semicolonLimit ? decodeEntity(input, ampersand + 1, semicolon) : -1;
+        return codePoint < 0 ? -1 : ((long) codePoint << 32) | (semicolon + 1);
+    }
+
+    /**
+     * Decodes the entity between {@code start} (after "&") and {@code end} (the ";"), returns
+     * its code point or -1.
+     */
+    private static int decodeEntity(String input, int start, int end) {
+        if (start == end) {
+            return -1;
+        }
+
+        if (input.charAt(start) != '#') {
+            return decodeNamedEntity(input, start, end);
+        }
+
+        int radix = 10;
+        int position = start + 1;
+
+        if (position < end && (input.charAt(position) == 'x' || input.charAt(position) == 'X')) {
+            radix = 16;
+            position++;
+        }
+
+        if (position == end) {
+            return -1;
+        }
+
+        int codePoint = 0;
+
+        for (; position < end; position++) {
+            int digit = Character.digit(input.charAt(position), radix);
+
+            if (digit < 0) {
+                return -1;
+            }
+
+            codePoint = codePoint * radix + digit;
+        }
+
+        if (codePoint == 0 || codePoint > Character.MAX_CODE_POINT || (codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE)) {
+            return -1;
+        }
+
+        return codePoint;
+    }
+
+    private static int decodeNamedEntity(String input, int start, int end) {
+        int low = 0;
+        int high = ENTITY_NAMES.length - 1;
+
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = compareName(ENTITY_NAMES[middle], input, start, end);
+
+            if (comparison < 0) {
+                low = middle + 1;
+            }
+            else if (comparison > 0) {
+                high = middle - 1;
+            }
+            else {
+                return ENTITY_VALUES[middle];
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Same as {@code name.compareTo(input.substring(start, end))}, without the substring
+     */
+    private static int compareName(String name, String input, int start, int end) {
+        int length = Math.min(name.length(), end - start);
+
+        for (int i = 0; i < length; i++) {
+            int difference = name.charAt(i) - input.charAt(start + i);
+
+            if (difference != 0) {
+                return difference;
+            }
+        }
+
+        return name.length() - (end - start);
     }
 }
@@ -21,6 +21,8 @@ import android.webkit.ValueCallback;
 import android.webkit.WebView;
 
 public class JsExecutor {
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
     /**
      * Executes javascript expression on the webview
      */
@@ -44,4 +46,53 @@ public class JsExecutor {
             webView.loadUrl("javascript:" + jsExpression);
         }
     }
+
+    /**
+     * Appends a value as a quoted string literal, valid in JSON and in Javascript expressions.
+     *
+     * Line and paragraph separators are escaped (they can't appear in Javascript strings), as
+     * well as '%', which would otherwise be decoded when expressions are executed through a
+     * "javascript:" url.
+     */
+    public static void appendStringLiteral(StringBuilder stream, CharSequence value) {
+        stream.append('"');
+
+        int copied = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+
+            if (c >= 0x20 && c != '"' && c != '\\' && c != '%' && c != '\u2028' && c != '\u2029') {
+                continue;
+            }
+
+            stream.append(value, copied, i);
+            copied = i + 1;
+
+            switch (c) {
+                case '"':
+                    stream.append("\\\"");
+                    break;
+                case '\\':
+                    stream.append("\\\\");
+                    break;
+                case '\n':
+                    stream.append("\\n");
+                    break;
+                case '\r':
+                    stream.append("\\r");
+                    break;
+                case '\t':
+                    stream.append("\\t");
+                    break;
+                default:
+                    stream.append("\\u");
+                    for (int shift = 12; shift >= 0; shift -= 4) {
+                        stream.append(HEX_DIGITS[(c >> shift) & 0xF]);
+                    }
+            }
+        }
+
+        stream.append(value, copied, value.length());
+        stream.append('"');
+    }
 }
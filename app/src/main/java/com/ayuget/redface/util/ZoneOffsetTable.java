@@ -0,0 +1,152 @@
+/*
+ * Copyright 2015 Ayuget
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ayuget.redface.util;
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+
+/**
+ * Converts local times of a given time zone to UTC without going through a {@link java.util.Calendar}.
+ *
+ * Offset transitions (daylight saving time) of a year are looked up once, the first time a date
+ * of that year is converted, and kept in a table.
+ */
+public final class ZoneOffsetTable {
+    private static final long DAY_IN_MILLIS = 24L * 60 * 60 * 1000;
+
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    private static final int FIRST_YEAR = 1970;
+
+    private static final int LAST_YEAR = 2100;
+
+    private final TimeZone timeZone;
+
+    private final YearOffsets[] years = new YearOffsets[LAST_YEAR - FIRST_YEAR + 1];
+
+    public ZoneOffsetTable(TimeZone timeZone) {
+        this.timeZone = timeZone;
+    }
+
+    /**
+     * Returns the UTC instant of a local time, given as milliseconds since epoch "in local time"
+     * (i.e. as if the local time was an UTC one).
+     */
+    public long toUtc(long localMillis, int year) {
+        if (year < FIRST_YEAR || year > LAST_YEAR) {
+            return toUtcWithCalendar(localMillis);
+        }
+
+        YearOffsets yearOffsets = years[year - FIRST_YEAR];
+
+        if (yearOffsets == null) {
+            yearOffsets = computeYearOffsets(year);
+            years[year - FIRST_YEAR] = yearOffsets;
+        }
+
+        // A transition applies once the local time is valid with the new offset : as with
+        // Calendar, skipped (spring) local times keep the previous offset and repeated (fall)
+        // local times take the new one
+        int offset = yearOffsets.offsets[0];
+
+        for (int i = 0; i < yearOffsets.transitions.length; i++) {
+            if (localMillis - yearOffsets.offsets[i + 1] < yearOffsets.transitions[i]) {
+                break;
+            }
+
+            offset = yearOffsets.offsets[i + 1];
+        }
+
+        return localMillis - offset;
+    }
+
+    /**
+     * Slow path, for years out of the table
+     */
+    private long toUtcWithCalendar(long localMillis) {
+        Calendar local = new GregorianCalendar(UTC);
+        local.setTimeInMillis(localMillis);
+
+        Calendar calendar = new GregorianCalendar(timeZone);
+        calendar.clear();
+        calendar.set(local.get(Calendar.YEAR), local.get(Calendar.MONTH), local.get(Calendar.DAY_OF_MONTH), local.get(Calendar.HOUR_OF_DAY), local.get(Calendar.MINUTE), local.get(Calendar.SECOND));
+        calendar.set(Calendar.MILLISECOND, local.get(Calendar.MILLISECOND));
+        return calendar.getTimeInMillis();
+    }
+
+    /**
+     * Looks up offset transitions from the day before to the day after the given year, day by day,
+     * then narrows down every transition to the millisecond.
+     */
+    private YearOffsets computeYearOffsets(int year) {
+        long start = DateUtils.daysFromCivil(year, 1, 1) * DAY_IN_MILLIS - timeZone.getRawOffset() - DAY_IN_MILLIS;
+        long end = DateUtils.daysFromCivil(year + 1, 1, 1) * DAY_IN_MILLIS - timeZone.getRawOffset() + DAY_IN_MILLIS;
+
+        long[] transitions = new long[4];
+        int[] offsets = new int[5];
+        int count = 0;
+
+        offsets[0] = timeZone.getOffset(start);
+
+        for (long day = start + DAY_IN_MILLIS; day <= end && count < transitions.length; day += DAY_IN_MILLIS) {
+            int offset = timeZone.getOffset(day);
+
+            if (offset != offsets[count]) {
+                long low = day - DAY_IN_MILLIS;
+                long high = day;
+
+                // Offset at low is the previous one, offset at high the new one
+                while (high - low > 1) {
+                    long middle = (low + high) >>> 1;
+
+                    if (timeZone.getOffset(middle) == offset) {
+                        high = middle;
+                    }
+                    else {
+                        low = middle;
+                    }
+                }
+
+                transitions[count] = high;
+                offsets[++count] = offset;
+            }
+        }
+
+        long[] yearTransitions = new long[count];
+        int[] yearOffsets = new int[count + 1];
+        System.arraycopy(transitions, 0, yearTransitions, 0, count);
+        System.arraycopy(offsets, 0, yearOffsets, 0, count + 1);
+
+        return new YearOffsets(yearTransitions, yearOffsets);
+    }
+
+    /**
+     * UTC instants at which the offset changes during a year, {@code offsets[i + 1]} being the
+     * offset in effect from {@code transitions[i]}
+     */
+    private static final class YearOffsets {
+        private final long[] transitions;
+
+        private final int[] offsets;
+
+        private YearOffsets(long[] transitions, int[] offsets) {
+            this.transitions = transitions;
+            this.offsets = offsets;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2015 Ayuget
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ayuget.redface.data.api.hfr;
+
+import android.os.Build;
+
+import com.ayuget.redface.BaseTestCase;
+import com.ayuget.redface.BuildConfig;
+import com.ayuget.redface.data.api.model.Post;
+import com.ayuget.redface.settings.RedfaceSettings;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = Build.VERSION_CODES.LOLLIPOP)
+public class ParallelPostsParserTest extends BaseTestCase {
+    private ParallelPostsParser parallelPostsParser;
+
+    @Before
+    public void setUp() {
+        PostsTweaker postsTweaker = new PostsTweaker();
+        postsTweaker.mdEndpoints = new HFREndpoints();
+        postsTweaker.appSettings = mock(RedfaceSettings.class);
+
+        TweakedPostsCache tweakedPostsCache = new TweakedPostsCache();
+        tweakedPostsCache.postsTweaker = postsTweaker;
+        tweakedPostsCache.postsMinifier = new PostsMinifier();
+
+        parallelPostsParser = new ParallelPostsParser();
+        parallelPostsParser.tweakedPostsCache = tweakedPostsCache;
+    }
+
+    private List<Post> parseInParallel(String source) {
+        return parallelPostsParser.parseInParallel(source).toBlocking().single().getPosts();
+    }
+
+    @Test
+    public void test_parallelOutputMatchesSequentialOutput() throws IOException {
+        for (String fixture : new String[] { "hfr_posts_page.html", "hfr_topic.html", "hfr_private_message_page.html" }) {
+            String source = readAssetFile(fixture);
+
+            List<Post> expectedPosts = parallelPostsParser.parseSequentially(source).getPosts();
+            List<Post> posts = parseInParallel(source);
+
+            assertThat(posts).hasSize(expectedPosts.size());
+
+            for (int i = 0; i < posts.size(); i++) {
+                Post post = posts.get(i);
+                Post expectedPost = expectedPosts.get(i);
+
+                assertThat(post.getId()).isEqualTo(expectedPost.getId());
+                assertThat(post.getAuthor()).isEqualTo(expectedPost.getAuthor());
+                assertThat(post.getPostDate()).isEqualTo(expectedPost.getPostDate());
+                assertThat(post.getHtmlContent()).isEqualTo(expectedPost.getHtmlContent());
+                assertThat(post.getTopicPagesCount()).isEqualTo(expectedPost.getTopicPagesCount());
+            }
+        }
+    }
+
+    @Test
+    public void test_parseAfterReusesKnownPosts() throws IOException {
+        String source = readAssetFile("hfr_posts_page.html");
+        List<Post> expectedPosts = parallelPostsParser.parseSequentially(source).getPosts();
+        List<Post> knownPosts = parallelPostsParser.parseSequentially(source).getPosts().subList(0, 30);
+
+        List<Post> posts = parallelPostsParser.parseAfter(source, knownPosts).getPosts();
+
+        assertThat(posts).hasSize(expectedPosts.size());
+
+        for (int i = 0; i < posts.size(); i++) {
+            if (i < knownPosts.size()) {
+                assertThat(posts.get(i)).isSameAs(knownPosts.get(i));
+            }
+
+            assertThat(posts.get(i).getId()).isEqualTo(expectedPosts.get(i).getId());
+            assertThat(posts.get(i).getHtmlContent()).isEqualTo(expectedPosts.get(i).getHtmlContent());
+        }
+    }
+}
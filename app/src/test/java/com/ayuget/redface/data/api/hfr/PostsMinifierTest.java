@@ -0,0 +1,102 @@
+/*
+ * Copyright 2015 Ayuget
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ayuget.redface.data.api.hfr;
+
+import android.os.Build;
+
+import com.ayuget.redface.BaseTestCase;
+import com.ayuget.redface.BuildConfig;
+import com.ayuget.redface.data.api.hfr.transforms.HTMLToPostList;
+import com.ayuget.redface.data.api.model.Post;
+import com.ayuget.redface.settings.RedfaceSettings;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = Build.VERSION_CODES.LOLLIPOP)
+public class PostsMinifierTest extends BaseTestCase {
+    private static final String[] FIXTURES = { "hfr_posts_page.html", "hfr_topic.html", "hfr_private_message_page.html" };
+
+    private PostsTweaker postsTweaker;
+
+    private PostsMinifier postsMinifier;
+
+    @Before
+    public void setUp() {
+        postsTweaker = new PostsTweaker();
+        postsTweaker.mdEndpoints = new HFREndpoints();
+        postsTweaker.appSettings = mock(RedfaceSettings.class);
+
+        postsMinifier = new PostsMinifier();
+    }
+
+    private List<Post> readTweakedPosts(String fixture) throws IOException {
+        return postsTweaker.call(new HTMLToPostList().call(readAssetFile(fixture)));
+    }
+
+    @Test
+    public void test_stripRedundantAttributes() {
+        assertThat(postsMinifier.minify("<a href=\"http://example.com\" target=\"_blank\" rel=\"nofollow\" class=\"cLink\">lien</a>"))
+                .isEqualTo("<a href=\"http://example.com\" class=\"cLink\">lien</a>");
+        assertThat(postsMinifier.minify("<img data-src=\"http://example.com/a.png\" alt=\"[:a]\" title=\"[:a]\" onload=\"md_verif_size(this,'Cliquez',25,25)\" style=\"margin: 5px\" />"))
+                .isEqualTo("<img data-src=\"http://example.com/a.png\" alt=\"[:a]\" style=\"margin: 5px\" />");
+        assertThat(postsMinifier.minify("<img src=\"a.png\" alt=\"a\" title=\"Photo\" />"))
+                .isEqualTo("<img src=\"a.png\" alt=\"a\" title=\"Photo\" />");
+        assertThat(postsMinifier.minify("<p>a<span></span>b</p>")).isEqualTo("<p>ab</p>");
+    }
+
+    @Test
+    public void test_collapseWhitespaceAndComments() {
+        assertThat(postsMinifier.minify("<div>\n    <p>a  b\tc</p>\n    <!-- comment -->\n    <p>d</p>\n</div>"))
+                .isEqualTo("<div> <p>a b c</p> <p>d</p> </div>");
+    }
+
+    @Test
+    public void test_keepPreformattedTextAndAttributes() {
+        String htmlContent = "<pre class=\"code\">int a;\n    int  b;</pre><span title=\"a  b\n c\">d</span>";
+
+        assertThat(postsMinifier.minify(htmlContent)).isSameAs(htmlContent);
+        assertThat(postsMinifier.minify("<p>a\n</p><pre>\n  b</pre><p>\nc</p>")).isEqualTo("<p>a </p><pre>\n  b</pre><p> c</p>");
+    }
+
+    @Test
+    public void test_minifyPosts() throws IOException {
+        for (String fixture : FIXTURES) {
+            for (Post post : readTweakedPosts(fixture)) {
+                String tweakedContent = post.getHtmlContent();
+                String minifiedContent = postsMinifier.minify(post).getHtmlContent();
+
+                assertThat(minifiedContent.length()).isLessThanOrEqualTo(tweakedContent.length());
+                assertThat(minifiedContent).doesNotContain("rel=\"nofollow\"").doesNotContain("target=\"_blank\"").doesNotContain("md_verif_size").doesNotContain("\n ");
+                // Minifying is idempotent
+                assertThat(postsMinifier.minify(minifiedContent)).isSameAs(minifiedContent);
+            }
+        }
+
+        assertThat(postsMinifier.getSavedRatio()).isGreaterThan(0f);
+    }
+}
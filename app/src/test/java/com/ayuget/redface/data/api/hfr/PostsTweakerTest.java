@@ -0,0 +1,225 @@
+/*
+ * Copyright 2015 Ayuget
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ayuget.redface.data.api.hfr;
+
+import android.os.Build;
+
+import com.ayuget.redface.BaseTestCase;
+import com.ayuget.redface.BuildConfig;
+import com.ayuget.redface.data.api.hfr.transforms.HTMLToPostList;
+import com.ayuget.redface.data.api.model.Post;
+import com.ayuget.redface.settings.RedfaceSettings;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = Build.VERSION_CODES.LOLLIPOP)
+public class PostsTweakerTest extends BaseTestCase {
+    private static final String[] FIXTURES = { "hfr_posts_page.html", "hfr_topic.html", "hfr_private_message_page.html" };
+
+    private PostsTweaker postsTweaker;
+
+    private HFREndpoints hfrEndpoints;
+
+    private RegexPostsTweaker regexPostsTweaker;
+
+    @Before
+    public void setUp() {
+        hfrEndpoints = new HFREndpoints();
+
+        postsTweaker = new PostsTweaker();
+        postsTweaker.mdEndpoints = hfrEndpoints;
+        postsTweaker.appSettings = mock(RedfaceSettings.class);
+
+        regexPostsTweaker = new RegexPostsTweaker(hfrEndpoints);
+    }
+
+    private List<Post> readPosts(String fixture) throws IOException {
+        return new HTMLToPostList().call(readAssetFile(fixture));
+    }
+
+    @Test
+    public void test_outputMatchesRegexesOutput() throws IOException {
+        for (String fixture : FIXTURES) {
+            for (Post post : readPosts(fixture)) {
+                String expectedContent = regexPostsTweaker.tweak(post.getId(), post.getHtmlContent());
+                assertThat(postsTweaker.tweak(post).getHtmlContent()).isEqualTo(expectedContent);
+            }
+        }
+    }
+
+    @Test
+    public void test_rewriteLinksQuotesAndSpoilers() {
+        Post post = new Post(42);
+        post.setHtmlContent("<div class=\"container\"><table class=\"citation\"><tr class=\"none\"><td><b class=\"s1\"><a href=\"/forum2.php?post=1#t2\" class=\"Topic\">toto a écrit :</a></b><br /><p>$1 \\o/</p></td></tr></tbody></table></div>" +
+                "<div class=\"container\"><table class=\"spoiler\" onclick=\"x\"><tr class=\"none\"><td><b class=\"s1Topic\">Spoiler :</b>" +
+                "<a href=\"http://forum.hardware.fr/hfr/topic.htm\" target=\"_blank\" class=\"cLink\">lien</a>");
+
+        assertThat(postsTweaker.tweak(post).getHtmlContent()).isEqualTo(
+                "<div class=\"quote\"><b class=\"s1\"><a onclick=\"handleUrl(event, 42, '" + hfrEndpoints.baseurl() + "/forum2.php?post=1#t2')\">toto a écrit :</a></b><br /><p>$1 \\o/</p></div>" +
+                "<div class=\"spoiler\" onClick=\"toggleSpoiler(this)\"><b class=\"s1Topic\">Spoiler :</b>" +
+                "<a onclick=\"handleUrl(event, 42, 'http://forum.hardware.fr/hfr/topic.htm');\" class=\"cLink\">lien</a>");
+    }
+
+    @Test
+    public void test_rewriteQuoteWithoutLink() {
+        Post post = new Post(42);
+        post.setHtmlContent("<div class=\"container\"><table class=\"citation\"><tr class=\"none\"><td><b class=\"s1\">toto a écrit :</b><br /><p>a</p></td></tr></tbody></table></div>");
+
+        assertThat(postsTweaker.tweak(post).getHtmlContent()).isEqualTo("<div class=\"quote\"><b class=\"s1\">toto a écrit :</b><br /><p>a</p></div>");
+    }
+
+    private static String quote(String author, String url, String content) {
+        return "<div class=\"container\"><table class=\"citation\"><tr class=\"none\"><td><b class=\"s1\"><a href=\"" + url + "\" class=\"Topic\">" + author + " a écrit :</a></b><br /><p>" + content + "</p></td></tr></tbody></table></div>";
+    }
+
+    private String tweakedQuoteStart(String author, String url) {
+        return "<div class=\"quote\"><b class=\"s1\"><a onclick=\"handleUrl(event, 42, '" + hfrEndpoints.baseurl() + url + "')\">" + author + " a écrit :</a></b>";
+    }
+
+    private static String collapsedQuoteStub(int index) {
+        return "<span class=\"collapsed-quote\" onclick=\"expandQuote(event, this, 42, " + index + ")\"><i class=\"fa fa-ellipsis-h\"></i></span>";
+    }
+
+    @Test
+    public void test_collapseNestedQuotes() {
+        when(postsTweaker.appSettings.getQuotesMaxDepth()).thenReturn(1);
+
+        Post post = new Post(42);
+        post.setHtmlContent(quote("a", "/p1", quote("b", "/p2", quote("c", "/p3", "c") + "b") + "a") +
+                "<div class=\"container\"><table class=\"spoiler\" onclick=\"x\"><tr class=\"none\"><td><b class=\"s1Topic\">Spoiler :</b>" + quote("d", "/p4", "d") + "</td></tr></tbody></table></div>");
+
+        assertThat(postsTweaker.tweak(post).getHtmlContent()).isEqualTo(
+                tweakedQuoteStart("a", "/p1") + "<br /><p>" + tweakedQuoteStart("b", "/p2") + collapsedQuoteStub(1) + "</div>a</p></div>" +
+                "<div class=\"spoiler\" onClick=\"toggleSpoiler(this)\"><b class=\"s1Topic\">Spoiler :</b>" + tweakedQuoteStart("d", "/p4") + "<br /><p>d</p></div></div>");
+
+        assertThat(post.getCollapsedQuotes()).hasSize(2);
+        assertThat(post.getCollapsedQuote(0)).isEqualTo("<br /><p>c</p>");
+        assertThat(post.getCollapsedQuote(1)).isEqualTo("<br /><p>" + tweakedQuoteStart("c", "/p3") + collapsedQuoteStub(0) + "</div>b</p>");
+    }
+
+    @Test
+    public void test_fixtureQuotesAreClosed() throws IOException {
+        when(postsTweaker.appSettings.getQuotesMaxDepth()).thenReturn(1);
+
+        int quotesCount = 0;
+
+        for (String fixture : FIXTURES) {
+            for (Post post : readPosts(fixture)) {
+                quotesCount += countOccurrences(post.getHtmlContent(), "<div class=\"container\"><table class=\"citation\"");
+
+                // Sibling quotes are not nested, none of them is collapsed. Forum markup has no
+                // <tbody>, end of quotes are kept as they were.
+                int endOfContainersCount = countOccurrences(post.getHtmlContent(), "</td></tr></table></div>");
+                String tweakedContent = postsTweaker.tweak(post).getHtmlContent();
+                assertThat(countOccurrences(tweakedContent, "</td></tr></table></div>")).isEqualTo(endOfContainersCount);
+                assertThat(post.getCollapsedQuotes()).isNull();
+            }
+        }
+
+        assertThat(quotesCount).isGreaterThan(1);
+    }
+
+    @Test
+    public void test_collapseFixtureQuotesQuotedAgain() throws IOException {
+        when(postsTweaker.appSettings.getQuotesMaxDepth()).thenReturn(1);
+
+        for (Post post : readPosts("hfr_posts_page.html")) {
+            int quotesCount = countOccurrences(post.getHtmlContent(), "<div class=\"container\"><table class=\"citation\"");
+
+            // Post quoted as a whole, with the forum markup
+            post.setHtmlContent("<div class=\"container\"><table class=\"citation\"><tr class=\"none\"><td><b class=\"s1\"><a href=\"/p1\" class=\"Topic\">a a écrit :</a></b><br /><br />" +
+                    post.getHtmlContent() + "</td></tr></table></div>");
+
+            String tweakedContent = postsTweaker.tweak(post).getHtmlContent();
+
+            if (quotesCount == 0) {
+                assertThat(post.getCollapsedQuotes()).isNull();
+            }
+            else {
+                assertThat(post.getCollapsedQuotes()).hasSize(quotesCount);
+                assertThat(tweakedContent).contains("class=\"collapsed-quote\"");
+            }
+        }
+    }
+
+    private static int countOccurrences(String content, String token) {
+        int count = 0;
+
+        for (int index = content.indexOf(token); index >= 0; index = content.indexOf(token, index + 1)) {
+            count++;
+        }
+
+        return count;
+    }
+
+    @Test
+    public void test_deferImages() {
+        Post post = new Post(42);
+        post.setHtmlContent("<p><img src=\"http://forum-images.hardware.fr/icones/smile.gif\" alt=\":)\" title=\":)\" />" +
+                "<img  src=\"http://example.com/photo.jpg\" width=\"640\" height=\"480\" onload=\"md_verif_size(this,'Cliquez pour agrandir','2','250')\"/>" +
+                "<img alt=\"src last\" src=\"http://example.com/other.jpg\" /><imgsrc=\"x\"></p>");
+
+        assertThat(postsTweaker.tweak(post).getHtmlContent()).isEqualTo(
+                "<p><img data-src=\"http://forum-images.hardware.fr/icones/smile.gif\" alt=\":)\" title=\":)\" />" +
+                "<img  data-src=\"http://example.com/photo.jpg\" width=\"640\" height=\"480\" onload=\"md_verif_size(this,'Cliquez pour agrandir','2','250')\"/>" +
+                "<img alt=\"src last\" src=\"http://example.com/other.jpg\" /><imgsrc=\"x\"></p>");
+    }
+
+    @Test
+    public void test_loadImagesOnDemand() {
+        Post post = new Post(42);
+        post.setHtmlContent("<p><img src=\"http://forum-images.hardware.fr/icones/smile.gif\" alt=\":)\" title=\":)\" />" +
+                "<img src=\"http://example.com:8080/photo.jpg\" width=\"640\" height=\"480\" alt=\"photo\" />" +
+                "<img src=\"https://i.imgur.com/a.png\" data-width=\"10\" height=\"20\" /></p>");
+
+        assertThat(postsTweaker.tweak(post, PostsTweaker.Mode.DATA_SAVER).getHtmlContent()).isEqualTo(
+                "<p><img data-src=\"http://forum-images.hardware.fr/icones/smile.gif\" alt=\":)\" title=\":)\" />" +
+                "<span class=\"image-on-demand\" data-bytes=\"76800\" onclick=\"loadImageOnDemand(event, this)\"><i class=\"fa fa-picture-o\"></i> example.com 640\u00D7480</span>" +
+                "<img data-on-demand-src=\"http://example.com:8080/photo.jpg\" width=\"640\" height=\"480\" alt=\"photo\" />" +
+                "<span class=\"image-on-demand\" data-bytes=\"102400\" onclick=\"loadImageOnDemand(event, this)\"><i class=\"fa fa-picture-o\"></i> i.imgur.com</span>" +
+                "<img data-on-demand-src=\"https://i.imgur.com/a.png\" data-width=\"10\" height=\"20\" /></p>");
+    }
+
+    @Test
+    public void test_replaceSmileysByText() {
+        Post post = new Post(42);
+        post.setHtmlContent("<p>Salut <img src=\"http://forum-images.hardware.fr/icones/smile.gif\" alt=\":)\" title=\":)\" /> !</p>");
+
+        assertThat(postsTweaker.tweak(post, PostsTweaker.Mode.DATA_SAVER_SMILEYS_AS_TEXT).getHtmlContent()).isEqualTo("<p>Salut :) !</p>");
+    }
+
+    @Test
+    public void test_contentWithoutRulesIsKept() {
+        String htmlContent = "<p>Rien <b>à</b> changer <a href=\"http://www.google.fr\" target=\"_blank\" class=\"cLink\">ici</a></p>";
+        Post post = new Post(42);
+        post.setHtmlContent(htmlContent);
+
+        assertThat(postsTweaker.tweak(post).getHtmlContent()).isSameAs(htmlContent);
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2015 Ayuget
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ayuget.redface.data.api.hfr;
+
+import com.ayuget.redface.data.api.MDEndpoints;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Previous implementation of the {@link PostsTweaker}, regexes being applied one after the other.
+ * Kept as a reference for its output, and for benchmarks.
+ */
+class RegexPostsTweaker {
+    private static final Pattern REGULAR_LINK = Pattern.compile("<a\\s*href=\"(http://forum\\.hardware\\.fr.*?)\"\\s*target=\"_blank\"\\s*class=\"cLink\">");
+    private static final Pattern QUOTES_AND_SPOILERS = Pattern.compile("(?:<div class=\\\"container\\\"><table class=\\\")(oldcitation|citation|spoiler)(?:[^>]+)(?:>)(?:.*?)(?:<b class=\\\")(s1|s1Topic)(?:\\\">)(?:(?:<a href=\")([^\\\"]+)(?:\")(?:[^>]+)(?:>))?", Pattern.DOTALL);
+    private static final Pattern END_OF_QUOTES = Pattern.compile("(?:</td></tr></tbody></table>)", Pattern.DOTALL);
+
+    /**
+     * Deferred images, added since then
+     */
+    private static final Pattern IMAGE = Pattern.compile("(<img\\s+)src=\"");
+
+    private final MDEndpoints mdEndpoints;
+
+    RegexPostsTweaker(MDEndpoints mdEndpoints) {
+        this.mdEndpoints = mdEndpoints;
+    }
+
+    String tweak(long postId, String htmlContent) {
+        htmlContent = htmlContent.replaceAll(REGULAR_LINK.pattern(), "<a onclick=\"handleUrl(event, " + postId + ", '$1');\" class=\"cLink\">");
+
+        Matcher matcher = QUOTES_AND_SPOILERS.matcher(htmlContent);
+        StringBuffer output = new StringBuffer();
+
+        while (matcher.find()) {
+            boolean isQuote = matcher.group(1).equals("citation") || matcher.group(1).equals("oldcitation");
+            String replacement = "<div class=\"" + (isQuote ? "quote" : "spoiler") + "\"" + (isQuote ? "" : " onClick=\"toggleSpoiler(this)\"") + "><b class=\"" + (isQuote ? "s1" : "s1Topic") + "\">";
+
+            // Quotes without a link to the quoted post are the only difference : no more link to "null"
+            if (isQuote && matcher.group(3) != null) {
+                replacement += "<a onclick=\"handleUrl(event, " + postId + ", '" + mdEndpoints.baseurl() + matcher.group(3) + "')\">";
+            }
+
+            matcher.appendReplacement(output, Matcher.quoteReplacement(replacement));
+        }
+
+        matcher.appendTail(output);
+
+        htmlContent = END_OF_QUOTES.matcher(output.toString()).replaceAll("");
+
+        return IMAGE.matcher(htmlContent).replaceAll("$1data-src=\"");
+    }
+}
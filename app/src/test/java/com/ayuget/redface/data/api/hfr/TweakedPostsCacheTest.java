@@ -0,0 +1,138 @@
+/*
+ * Copyright 2015 Ayuget
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ayuget.redface.data.api.hfr;
+
+import android.os.Build;
+
+import com.ayuget.redface.BaseTestCase;
+import com.ayuget.redface.BuildConfig;
+import com.ayuget.redface.data.api.hfr.transforms.HTMLToPostList;
+import com.ayuget.redface.data.api.model.Post;
+import com.ayuget.redface.settings.RedfaceSettings;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = Build.VERSION_CODES.LOLLIPOP)
+public class TweakedPostsCacheTest extends BaseTestCase {
+    private PostsTweaker postsTweaker;
+
+    private TweakedPostsCache tweakedPostsCache;
+
+    @Before
+    public void setUp() {
+        postsTweaker = new PostsTweaker();
+        postsTweaker.mdEndpoints = new HFREndpoints();
+        postsTweaker.appSettings = mock(RedfaceSettings.class);
+
+        tweakedPostsCache = new TweakedPostsCache();
+        tweakedPostsCache.postsTweaker = postsTweaker;
+        tweakedPostsCache.postsMinifier = new PostsMinifier();
+    }
+
+    private List<Post> readPosts() throws IOException {
+        return new HTMLToPostList().call(readAssetFile("hfr_posts_page.html"));
+    }
+
+    @Test
+    public void test_cachedContentMatchesTweakedContent() throws IOException {
+        List<Post> expectedPosts = new PostsMinifier().call(postsTweaker.call(readPosts()));
+
+        // First pass fills the cache, second one is served from it
+        for (int pass = 0; pass < 2; pass++) {
+            List<Post> posts = readPosts();
+
+            for (int i = 0; i < posts.size(); i++) {
+                assertThat(tweakedPostsCache.tweak(posts.get(i)).getHtmlContent()).isEqualTo(expectedPosts.get(i).getHtmlContent());
+            }
+        }
+
+        assertThat(tweakedPostsCache.getHitRate()).isEqualTo(0.5f);
+    }
+
+    @Test
+    public void test_editedPostIsTweakedAgain() {
+        Post post = new Post(42);
+        post.setHtmlContent("<a href=\"http://forum.hardware.fr/a\" target=\"_blank\" class=\"cLink\">a</a>");
+        String firstContent = tweakedPostsCache.tweak(post).getHtmlContent();
+
+        Post editedPost = new Post(42);
+        editedPost.setLastEditionDate(new Date(1000));
+        editedPost.setHtmlContent("<a href=\"http://forum.hardware.fr/b\" target=\"_blank\" class=\"cLink\">b</a>");
+
+        assertThat(tweakedPostsCache.tweak(editedPost).getHtmlContent()).isNotEqualTo(firstContent);
+        assertThat(tweakedPostsCache.getHitRate()).isEqualTo(0f);
+    }
+
+    @Test
+    public void test_postsAreCachedPerMode() {
+        Post post = new Post(42);
+        post.setHtmlContent("<img src=\"http://example.com/photo.jpg\" />");
+        String lazyContent = tweakedPostsCache.tweak(post, PostsTweaker.Mode.DEFAULT).getHtmlContent();
+
+        Post samePost = new Post(42);
+        samePost.setHtmlContent("<img src=\"http://example.com/photo.jpg\" />");
+
+        assertThat(tweakedPostsCache.tweak(samePost, PostsTweaker.Mode.DATA_SAVER).getHtmlContent()).isNotEqualTo(lazyContent);
+        assertThat(tweakedPostsCache.getHitRate()).isEqualTo(0f);
+    }
+
+    @Test
+    public void test_collapsedQuotesAreCached() {
+        when(postsTweaker.appSettings.getQuotesMaxDepth()).thenReturn(1);
+        String htmlContent = "<div class=\"container\"><table class=\"citation\"><tr class=\"none\"><td><b class=\"s1\"><a href=\"/p1\" class=\"Topic\">a a écrit :</a></b><br />" +
+                "<div class=\"container\"><table class=\"citation\"><tr class=\"none\"><td><b class=\"s1\"><a href=\"/p2\" class=\"Topic\">b a écrit :</a></b><br />b</td></tr></tbody></table></div>" +
+                "</td></tr></tbody></table></div>";
+
+        Post post = new Post(42);
+        post.setHtmlContent(htmlContent);
+        tweakedPostsCache.tweak(post);
+
+        Post samePost = new Post(42);
+        samePost.setHtmlContent(htmlContent);
+        tweakedPostsCache.tweak(samePost);
+
+        assertThat(tweakedPostsCache.getHitRate()).isEqualTo(0.5f);
+        assertThat(samePost.getHtmlContent()).isEqualTo(post.getHtmlContent());
+        assertThat(samePost.getCollapsedQuotes()).isEqualTo(post.getCollapsedQuotes());
+        assertThat(samePost.getCollapsedQuote(0)).isEqualTo("<br />b");
+    }
+
+    @Test
+    public void test_changedContentIsTweakedAgain() {
+        Post post = new Post(42);
+        post.setHtmlContent("<p>Message</p>");
+        tweakedPostsCache.tweak(post);
+
+        Post changedPost = new Post(42);
+        changedPost.setHtmlContent("<p>Message modéré</p>");
+
+        assertThat(tweakedPostsCache.tweak(changedPost).getHtmlContent()).isEqualTo("<p>Message modéré</p>");
+    }
+}
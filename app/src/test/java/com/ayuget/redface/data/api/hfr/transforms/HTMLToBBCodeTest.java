@@ -16,23 +16,18 @@
 
 package com.ayuget.redface.data.api.hfr.transforms;
 
-import android.os.Build;
-
 import com.ayuget.redface.BaseTestCase;
-import com.ayuget.redface.BuildConfig;
 
 import org.junit.Test;
-import org.junit.runner.RunWith;
-import org.robolectric.RobolectricGradleTestRunner;
-import org.robolectric.RobolectricTestRunner;
-import org.robolectric.annotation.Config;
 
 import java.io.IOException;
 import static org.assertj.core.api.Assertions.*;
 
-@RunWith(RobolectricGradleTestRunner.class)
-@Config(constants = BuildConfig.class, sdk = Build.VERSION_CODES.LOLLIPOP)
 public class HTMLToBBCodeTest extends BaseTestCase {
+    private static String textarea(String content) {
+        return "<form><textarea cols=\"75\" rows=\"14\" class=\"contenu\" name=\"content_form\" id=\"content_form\">" + content + "</textarea></form>";
+    }
+
     @Test
     public void test_quoteParsing() throws IOException {
         HTMLToBBCode htmlToBBCode = new HTMLToBBCode();
@@ -50,4 +45,27 @@ public class HTMLToBBCodeTest extends BaseTestCase {
 
         assertThat(bbCode).isEqualTo(expectedQuote);
     }
+
+    @Test
+    public void test_entitiesAreDecoded() {
+        HTMLToBBCode htmlToBBCode = new HTMLToBBCode();
+
+        assertThat(htmlToBBCode.call(textarea("[url=http://a.fr/?a=1&amp;b=2]&lt;lien&gt;[/url]\n&quot;cit&eacute;&quot; &#034;ok&#034; &unknown;")))
+                .isEqualTo("[url=http://a.fr/?a=1&b=2]<lien>[/url]\n\"cité\" \"ok\" &unknown;\n");
+    }
+
+    @Test
+    public void test_linesAreNormalized() {
+        HTMLToBBCode htmlToBBCode = new HTMLToBBCode();
+
+        assertThat(htmlToBBCode.call(textarea("  first   line \r\n\n\nsecond\n\n\n"))).isEqualTo("first line \n\n\nsecond\n");
+    }
+
+    @Test
+    public void test_missingTextarea() {
+        HTMLToBBCode htmlToBBCode = new HTMLToBBCode();
+
+        assertThat(htmlToBBCode.call("<input type=\"hidden\" name=\"content_form\" value=\"\" />")).isEmpty();
+        assertThat(htmlToBBCode.call("<textarea name=\"content_form\">unterminated")).isEmpty();
+    }
 }
@@ -21,6 +21,7 @@ import android.os.Build;
 import com.ayuget.redface.BaseTestCase;
 import com.ayuget.redface.BuildConfig;
 import com.ayuget.redface.data.api.model.Post;
+import com.ayuget.redface.util.DateUtils;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -28,6 +29,9 @@ import org.robolectric.RobolectricGradleTestRunner;
 import org.robolectric.annotation.Config;
 
 import java.io.IOException;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -45,6 +49,32 @@ public class HTMLToPostListTest extends BaseTestCase {
         assertThat(posts.size()).isEqualTo(40);
     }
 
+    @Test
+    public void test_parsePostDetails() throws IOException {
+        HTMLToPostList htmlToPostList = new HTMLToPostList();
+
+        List<Post> posts = htmlToPostList.call(readAssetFile("hfr_posts_page.html"));
+
+        Post edited = posts.get(0);
+        assertThat(edited.getId()).isEqualTo(1885523);
+        assertThat(edited.getAuthor()).isEqualTo("wingames");
+        assertThat(edited.getAvatarUrl()).isEqualTo("http://forum-images.hardware.fr/images/mesdiscussions-76255.jpg");
+        assertThat(edited.getPostDate()).isEqualTo(forumDate(2015, Calendar.FEBRUARY, 19, 20, 14, 31));
+        assertThat(edited.getLastEditionDate()).isEqualTo(forumDate(2015, Calendar.FEBRUARY, 24, 7, 8, 51));
+        assertThat(edited.getQuoteCount()).isEqualTo(0);
+        assertThat(edited.getHtmlContent()).startsWith("<p><img src=\"http://forum-images.hardware.fr/images/perso/neo7.gif\"");
+
+        Post quoted = posts.get(7);
+        assertThat(quoted.getId()).isEqualTo(1885775);
+        assertThat(quoted.getLastEditionDate()).isNull();
+        assertThat(quoted.getQuoteCount()).isEqualTo(1);
+        assertThat(quoted.getHtmlContent()).contains("<table class=\"citation\">");
+
+        Post withoutAvatar = posts.get(11);
+        assertThat(withoutAvatar.getAuthor()).isEqualTo("arbalest");
+        assertThat(withoutAvatar.getAvatarUrl()).isNull();
+    }
+
     @Test
     public void test_parsePrivateMessages() throws IOException {
         HTMLToPostList htmlToPostList = new HTMLToPostList();
@@ -54,4 +84,10 @@ public class HTMLToPostListTest extends BaseTestCase {
         assertThat(posts.size()).isEqualTo(6);
     }
 
+    private static Date forumDate(int year, int month, int day, int hours, int minutes, int seconds) {
+        Calendar calendar = new GregorianCalendar(DateUtils.FORUM_TIME_ZONE);
+        calendar.clear();
+        calendar.set(year, month, day, hours, minutes, seconds);
+        return calendar.getTime();
+    }
 }
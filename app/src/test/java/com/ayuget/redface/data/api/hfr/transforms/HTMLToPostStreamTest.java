@@ -0,0 +1,100 @@
+/*
+ * Copyright 2015 Ayuget
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ayuget.redface.data.api.hfr.transforms;
+
+import android.os.Build;
+
+import com.ayuget.redface.BaseTestCase;
+import com.ayuget.redface.BuildConfig;
+import com.ayuget.redface.data.api.model.Post;
+import com.ayuget.redface.data.api.model.TopicPage;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import rx.Observable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = Build.VERSION_CODES.LOLLIPOP)
+public class HTMLToPostStreamTest extends BaseTestCase {
+    private static List<String> split(String source, int chunkSize) {
+        List<String> chunks = new ArrayList<>();
+
+        for (int i = 0; i < source.length(); i += chunkSize) {
+            chunks.add(source.substring(i, Math.min(source.length(), i + chunkSize)));
+        }
+
+        return chunks;
+    }
+
+    private static List<Post> stream(String source, int chunkSize, boolean skipFirstPost, HTMLToPostStream.OnPageHeaderListener listener) {
+        return Observable.from(split(source, chunkSize))
+                .lift(new HTMLToPostStream(listener, skipFirstPost))
+                .toList()
+                .toBlocking()
+                .single();
+    }
+
+    @Test
+    public void test_streamedPostsMatchFullParsing() throws IOException {
+        String source = readAssetFile("hfr_posts_page.html");
+        List<Post> expectedPosts = new HTMLToPostList().call(source);
+
+        for (int chunkSize : new int[] { 7, 512, 8192 }) {
+            List<Post> posts = stream(source, chunkSize, false, null);
+
+            assertThat(posts).hasSize(expectedPosts.size());
+
+            for (int i = 0; i < posts.size(); i++) {
+                assertThat(posts.get(i).getId()).isEqualTo(expectedPosts.get(i).getId());
+                assertThat(posts.get(i).getHtmlContent()).isEqualTo(expectedPosts.get(i).getHtmlContent());
+            }
+        }
+    }
+
+    @Test
+    public void test_skipFirstPost() throws IOException {
+        List<Post> posts = stream(readAssetFile("hfr_posts_page.html"), 1024, true, null);
+
+        assertThat(posts).hasSize(39);
+        assertThat(posts.get(0).getId()).isEqualTo(1885525);
+    }
+
+    @Test
+    public void test_pageHeader() throws IOException {
+        final List<TopicPage> headers = new ArrayList<>();
+
+        stream(readAssetFile("hfr_posts_page.html"), 1024, false, new HTMLToPostStream.OnPageHeaderListener() {
+            @Override
+            public void onPageHeader(TopicPage header) {
+                headers.add(header);
+            }
+        });
+
+        assertThat(headers).hasSize(1);
+        assertThat(headers.get(0).getHashcheck()).isEqualTo("5cfde08db69f6043fe2bba454aabbc64");
+        assertThat(headers.get(0).getPosts()).isEmpty();
+    }
+}
@@ -69,4 +69,55 @@ public class HTMLToTopicListTest extends BaseTestCase {
         assertThat(flagged.getLastReadPostId()).isEqualTo(1891678);
         assertThat(flagged.hasUnreadPosts()).isTrue();
     }
+
+    @Test
+    public void test_parseMetaPage() throws IOException {
+        HTMLToTopicList htmlToTopicList = new HTMLToTopicList(null);
+
+        List<Topic> topics = htmlToTopicList.call(readAssetFile("hfr_meta_page.html"));
+
+        assertThat(topics.size()).isEqualTo(213);
+
+        Topic favorite = topics.get(0);
+        assertThat(favorite.getId()).isEqualTo(764789);
+        assertThat(favorite.getPagesCount()).isEqualTo(1191);
+        assertThat(favorite.getAuthor()).isEqualTo("qhyron90");
+        assertThat(favorite.getLastPostAuthor()).isEqualTo("Space");
+        assertThat(favorite.getStatus()).isEqualTo(TopicStatus.FAVORITE_NEW_CONTENT);
+        assertThat(favorite.getLastReadPostPage()).isEqualTo(1187);
+        assertThat(favorite.getLastReadPostId()).isEqualTo(9443709);
+        assertThat(favorite.isSticky()).isFalse();
+    }
+
+    @Test
+    public void test_malformedRowIsSkipped() throws IOException {
+        HTMLToTopicList htmlToTopicList = new HTMLToTopicList(null);
+        String source = readAssetFile("hfr_topics_page.html");
+
+        // Last post cell of the 6th topic is missing
+        int lastPostCell = source.indexOf("class=\"sujetCase9", source.indexOf("[Topic Unique] Samsung Galaxy S6"));
+        String malformedSource = source.substring(0, lastPostCell) + "class=\"unknown" + source.substring(lastPostCell + "class=\"sujetCase9".length());
+
+        List<Topic> topics = htmlToTopicList.call(malformedSource);
+
+        assertThat(topics.size()).isEqualTo(53);
+        assertThat(topics.get(5).getSubject()).isNotEqualTo("[Topic Unique] Samsung Galaxy S6");
+    }
+
+    @Test
+    public void test_rowWithInvalidContentIsKept() throws IOException {
+        HTMLToTopicList htmlToTopicList = new HTMLToTopicList(null);
+        String source = readAssetFile("hfr_topics_page.html");
+
+        // Pages count of the 6th topic is not a number, its cells are all there
+        String pagesCount = "class=\"cCatTopic\">11</a>";
+        int pagesCell = source.indexOf(pagesCount, source.indexOf("[Topic Unique] Samsung Galaxy S6"));
+        String invalidSource = source.substring(0, pagesCell) + "class=\"cCatTopic\">xx</a>" + source.substring(pagesCell + pagesCount.length());
+
+        List<Topic> topics = htmlToTopicList.call(invalidSource);
+
+        assertThat(topics.size()).isEqualTo(54);
+        assertThat(topics.get(5).getId()).isEqualTo(29169);
+        assertThat(topics.get(5).getSubject()).isEqualTo("[Topic Unique] Samsung Galaxy S6");
+    }
 }
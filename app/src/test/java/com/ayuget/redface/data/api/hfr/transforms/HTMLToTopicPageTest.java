@@ -0,0 +1,142 @@
+/*
+ * Copyright 2015 Ayuget
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ayuget.redface.data.api.hfr.transforms;
+
+import android.os.Build;
+
+import com.ayuget.redface.BaseTestCase;
+import com.ayuget.redface.BuildConfig;
+import com.ayuget.redface.data.api.model.Post;
+import com.ayuget.redface.data.api.model.TopicPage;
+import com.ayuget.redface.ui.UIConstants;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = Build.VERSION_CODES.LOLLIPOP)
+public class HTMLToTopicPageTest extends BaseTestCase {
+    @Test
+    public void test_parseTopicPage() throws IOException {
+        TopicPage page = new HTMLToTopicPage().call(readAssetFile("hfr_posts_page.html"));
+
+        assertThat(page.getTopicId()).isEqualTo(29169);
+        assertThat(page.getCategoryId()).isEqualTo(23);
+        assertThat(page.getSubject()).isEqualTo("[Topic Unique] Samsung Galaxy S6");
+        assertThat(page.getPagesCount()).isEqualTo(12);
+        assertThat(page.getHashcheck()).isEqualTo("5cfde08db69f6043fe2bba454aabbc64");
+
+        assertThat(page.getPosts()).hasSize(40);
+        assertThat(page.getPosts().get(0).getTopicPagesCount()).isEqualTo(12);
+    }
+
+    @Test
+    public void test_parsePrivateMessagePage() throws IOException {
+        TopicPage page = new HTMLToTopicPage().call(readAssetFile("hfr_private_message_page.html"));
+
+        assertThat(page.getTopicId()).isEqualTo(2313683);
+        assertThat(page.getCategoryId()).isEqualTo(TopicPage.UNKNOWN_ID);
+        assertThat(page.getSubject()).isEqualTo("De-ban IP");
+        assertThat(page.getPagesCount()).isEqualTo(UIConstants.UNKNOWN_PAGES_COUNT);
+        assertThat(page.getHashcheck()).isEqualTo("5cfde08db69f6043fe2bba454aabbc64");
+        assertThat(page.getPosts()).hasSize(6);
+    }
+
+    @Test
+    public void test_parseAfterKnownPosts() throws IOException {
+        String source = readAssetFile("hfr_posts_page.html");
+        TopicPage fullPage = new HTMLToTopicPage().call(source);
+        List<Post> knownPosts = new HTMLToTopicPage().call(source).getPosts().subList(0, 38);
+
+        TopicPage page = new HTMLToTopicPage().parseAfter(source, knownPosts);
+
+        assertThat(page.getTopicId()).isEqualTo(29169);
+        assertThat(page.getPagesCount()).isEqualTo(12);
+        assertThat(page.getHashcheck()).isEqualTo("5cfde08db69f6043fe2bba454aabbc64");
+        assertThat(page.getPosts()).hasSize(40);
+
+        for (int i = 0; i < knownPosts.size(); i++) {
+            assertThat(page.getPosts().get(i)).isSameAs(knownPosts.get(i));
+        }
+
+        assertThat(page.getPosts().get(38).getId()).isEqualTo(fullPage.getPosts().get(38).getId());
+        assertThat(page.getPosts().get(39).getId()).isEqualTo(fullPage.getPosts().get(39).getId());
+    }
+
+    @Test
+    public void test_parseAfterChangedPosts() throws IOException {
+        String source = readAssetFile("hfr_posts_page.html");
+        TopicPage fullPage = new HTMLToTopicPage().call(source);
+        List<Post> knownPosts = new ArrayList<>(new HTMLToTopicPage().call(source).getPosts());
+
+        // Known post quoted since then, and last known post deleted since then
+        Post quotedPost = knownPosts.get(5);
+        quotedPost.setQuoteCount(quotedPost.getQuoteCount() + 1);
+        knownPosts.add(new Post(42));
+
+        TopicPage page = new HTMLToTopicPage().parseAfter(source, knownPosts);
+
+        assertThat(page.getPosts()).hasSize(40);
+
+        for (int i = 0; i < page.getPosts().size(); i++) {
+            Post post = page.getPosts().get(i);
+
+            if (i == 5) {
+                assertThat(post).isNotSameAs(quotedPost);
+                assertThat(post.getId()).isEqualTo(quotedPost.getId());
+                assertThat(post.getQuoteCount()).isEqualTo(fullPage.getPosts().get(5).getQuoteCount());
+                assertThat(post.getHtmlContent()).isEqualTo(fullPage.getPosts().get(5).getHtmlContent());
+            }
+            else {
+                assertThat(post).isSameAs(knownPosts.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void test_parsePost() throws IOException {
+        String source = readAssetFile("hfr_posts_page.html");
+        TopicPage fullPage = new HTMLToTopicPage().call(source);
+
+        for (int i : new int[] {0, 17, 39}) {
+            Post expected = fullPage.getPosts().get(i);
+            TopicPage page = new HTMLToTopicPage().parsePost(source, expected.getId());
+
+            assertThat(page.getTopicId()).isEqualTo(29169);
+            assertThat(page.getPagesCount()).isEqualTo(12);
+            assertThat(page.getHashcheck()).isEqualTo("5cfde08db69f6043fe2bba454aabbc64");
+            assertThat(page.getPosts()).hasSize(1);
+            assertThat(page.getPosts().get(0).getId()).isEqualTo(expected.getId());
+            assertThat(page.getPosts().get(0).getAuthor()).isEqualTo(expected.getAuthor());
+            assertThat(page.getPosts().get(0).getHtmlContent()).isEqualTo(expected.getHtmlContent());
+            assertThat(page.getPosts().get(0).getTopicPagesCount()).isEqualTo(12);
+        }
+    }
+
+    @Test
+    public void test_parseUnknownPost() throws IOException {
+        assertThat(new HTMLToTopicPage().parsePost(readAssetFile("hfr_posts_page.html"), 42)).isNull();
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2015 Ayuget
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ayuget.redface.ui.template;
+
+import com.ayuget.redface.BaseTestCase;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CompiledTemplateTest extends BaseTestCase {
+    private static String render(CompiledTemplate template) {
+        StringBuilder stream = new StringBuilder();
+
+        for (int i = 0; i < template.getSlotsCount(); i++) {
+            template.appendLiteral(i, stream);
+            stream.append('[').append(template.getSlot(i)).append(']');
+        }
+        template.appendLiteral(template.getSlotsCount(), stream);
+
+        return stream.toString();
+    }
+
+    @Test
+    public void test_compileSlots() {
+        CompiledTemplate template = CompiledTemplate.compile("<div id=\"post{post_id}\">{content}</div>{extra_details}");
+
+        assertThat(template.getSlotsCount()).isEqualTo(3);
+        assertThat(template.getSlot(0)).isSameAs("post_id");
+        assertThat(template.getSlot(2)).isSameAs("extra_details");
+        assertThat(template.getLiteralsLength()).isEqualTo("<div id=\"post\"></div>".length());
+        assertThat(render(template)).isEqualTo("<div id=\"post[post_id]\">[content]</div>[extra_details]");
+    }
+
+    @Test
+    public void test_compileEscapedBraces() {
+        CompiledTemplate template = CompiledTemplate.compile("a {{ b } c {{{d}");
+
+        assertThat(template.getSlotsCount()).isEqualTo(1);
+        assertThat(render(template)).isEqualTo("a { b } c {[d]");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_compileMissingClosingBrace() {
+        CompiledTemplate.compile("<div>{content</div>");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_compileInvalidKey() {
+        CompiledTemplate.compile("body { color: red; }");
+    }
+
+    @Test
+    public void test_bindStaticSlots() {
+        CompiledTemplate template = CompiledTemplate.compile("<style>{css}</style><body class=\"{theme_class}\">{posts}<script>{js}</script>")
+                .bind("css", "body { color: red; }")
+                .bind("js", "var a = {};");
+
+        assertThat(template.getSlotsCount()).isEqualTo(2);
+        assertThat(render(template)).isEqualTo("<style>body { color: red; }</style><body class=\"[theme_class]\">[posts]<script>var a = {};</script>");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_bindUnknownSlot() {
+        CompiledTemplate.compile("<style>{css}</style>").bind("js", "");
+    }
+}
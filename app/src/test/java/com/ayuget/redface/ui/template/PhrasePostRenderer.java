@@ -0,0 +1,61 @@
+/*
+ * Copyright 2015 Ayuget
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ayuget.redface.ui.template;
+
+import com.ayuget.redface.data.api.model.Post;
+import com.squareup.phrase.Phrase;
+
+/**
+ * Previous rendering of a post, a Phrase being formatted for each post. Kept as a reference for
+ * the {@link PostTemplate} output, and for benchmarks.
+ */
+class PhrasePostRenderer {
+    private final String postTemplateSource;
+
+    private final AvatarTemplate avatarTemplate;
+
+    private final PostExtraDetailsTemplate extraDetailsTemplate;
+
+    private final PostActionsTemplate postActionsTemplate;
+
+    private final QuickActionsTemplate quickActionsTemplate;
+
+    PhrasePostRenderer(PostTemplate postTemplate, AvatarTemplate avatarTemplate, PostExtraDetailsTemplate extraDetailsTemplate, PostActionsTemplate postActionsTemplate, QuickActionsTemplate quickActionsTemplate) {
+        this.postTemplateSource = postTemplate.minify(postTemplate.readAssetFile("post.html"));
+        this.avatarTemplate = avatarTemplate;
+        this.extraDetailsTemplate = extraDetailsTemplate;
+        this.postActionsTemplate = postActionsTemplate;
+        this.quickActionsTemplate = quickActionsTemplate;
+    }
+
+    void render(Post post, StringBuilder stream) {
+        stream.append(
+                Phrase.from(postTemplateSource)
+                        .put("author", post.getAuthor())
+                        .put("content", post.getHtmlContent())
+                        .put("avatar", avatarTemplate.render(post))
+                        .put("posted_on", extraDetailsTemplate.formatDate(post.getPostDate()))
+                        .put("author_id", post.getAuthor())
+                        .put("post_id", String.valueOf(post.getId()))
+                        .put("post_quick_actions", quickActionsTemplate.render(post))
+                        .put("extra_details", extraDetailsTemplate.render(post))
+                        .put("post_actions", postActionsTemplate.render(post))
+                        .format()
+                        .toString()
+        );
+    }
+}
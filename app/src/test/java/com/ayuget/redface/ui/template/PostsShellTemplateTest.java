@@ -0,0 +1,127 @@
+/*
+ * Copyright 2015 Ayuget
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ayuget.redface.ui.template;
+
+import android.content.Context;
+import android.os.Build;
+
+import com.ayuget.redface.BaseTestCase;
+import com.ayuget.redface.BuildConfig;
+import com.ayuget.redface.account.UserManager;
+import com.ayuget.redface.data.api.hfr.PostsMinifier;
+import com.ayuget.redface.data.api.hfr.transforms.HTMLToPostList;
+import com.ayuget.redface.data.api.model.Post;
+import com.ayuget.redface.ui.misc.ThemeManager;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = Build.VERSION_CODES.LOLLIPOP)
+public class PostsShellTemplateTest extends BaseTestCase {
+    private PostsShellTemplate postsShellTemplate;
+
+    private List<Post> posts;
+
+    @Before
+    public void setUp() throws IOException {
+        Context context = RuntimeEnvironment.application;
+
+        UserManager userManager = mock(UserManager.class);
+        when(userManager.isActiveUserLoggedIn()).thenReturn(true);
+        when(userManager.isActiveUser(anyString())).thenReturn(false);
+
+        ThemeManager themeManager = mock(ThemeManager.class);
+        when(themeManager.getActiveThemeCssClass()).thenReturn("theme-light");
+        when(themeManager.getFontSizeCssClass()).thenReturn("font-normal");
+
+        PostsMinifier postsMinifier = new PostsMinifier();
+
+        PostTemplate postTemplate = new PostTemplate(context, postsMinifier, userManager, new AvatarTemplate(context, postsMinifier), new PostExtraDetailsTemplate(context, postsMinifier),
+                new PostActionsTemplate(context, postsMinifier, userManager), new QuickActionsTemplate(context, postsMinifier, userManager));
+        postsShellTemplate = new PostsShellTemplate(context, postsMinifier, postTemplate, themeManager);
+
+        posts = new HTMLToPostList().call(readAssetFile("hfr_posts_page.html"));
+    }
+
+    @Test
+    public void test_renderPostsPayload() {
+        Map<Long, Long> renderedPosts = new HashMap<>();
+        StringBuilder payload = new StringBuilder();
+
+        postsShellTemplate.renderPostsPayload(postsShellTemplate.renderPosts(posts), renderedPosts, payload);
+
+        assertThat(payload.toString()).startsWith("[{\"id\":" + posts.get(0).getId() + ",\"html\":\"<div class=\\\"post\\\" id=\\\"post" + posts.get(0).getId());
+        assertThat(payload.toString()).endsWith("\"}]");
+        assertThat(renderedPosts).hasSize(posts.size());
+    }
+
+    @Test
+    public void test_unchangedPostsAreNotSent() {
+        Map<Long, Long> renderedPosts = new HashMap<>();
+        RenderedPage page = postsShellTemplate.renderPosts(posts);
+        postsShellTemplate.renderPostsPayload(page, renderedPosts, new StringBuilder());
+
+        StringBuilder update = new StringBuilder();
+
+        assertThat(postsShellTemplate.renderPostsUpdate(page, renderedPosts, update)).isFalse();
+        assertThat(update.toString()).isEmpty();
+    }
+
+    @Test
+    public void test_renderChangedPosts() {
+        Map<Long, Long> renderedPosts = new HashMap<>();
+        postsShellTemplate.renderPostsPayload(postsShellTemplate.renderPosts(posts.subList(0, posts.size() - 1)), renderedPosts, new StringBuilder());
+
+        // Post 5 is deleted, post 10 is edited and last post is added
+        List<Post> refreshedPosts = new ArrayList<>(posts);
+        Post deletedPost = refreshedPosts.remove(5);
+        Post editedPost = posts.get(10);
+        editedPost.setHtmlContent("Edited content");
+        Post addedPost = posts.get(posts.size() - 1);
+
+        RenderedPage refreshedPage = postsShellTemplate.renderPosts(refreshedPosts);
+        StringBuilder update = new StringBuilder();
+
+        assertThat(postsShellTemplate.renderPostsUpdate(refreshedPage, renderedPosts, update)).isTrue();
+        assertThat(update.toString()).startsWith("[" + deletedPost.getId() + "],[{\"id\":" + editedPost.getId() + ",\"html\":");
+        assertThat(update.toString()).contains("Edited content");
+        assertThat(update.toString()).contains(",\"next\":" + posts.get(11).getId() + "},{\"id\":" + addedPost.getId() + ",\"html\":");
+        assertThat(update.toString()).endsWith(",\"next\":null}]");
+
+        assertThat(renderedPosts).hasSize(refreshedPosts.size());
+        assertThat(renderedPosts.containsKey(deletedPost.getId())).isFalse();
+
+        // Displayed posts are now up to date
+        assertThat(postsShellTemplate.renderPostsUpdate(refreshedPage, renderedPosts, new StringBuilder())).isFalse();
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2015 Ayuget
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ayuget.redface.ui.template;
+
+import android.content.Context;
+import android.os.Build;
+
+import com.ayuget.redface.BaseTestCase;
+import com.ayuget.redface.BuildConfig;
+import com.ayuget.redface.account.UserManager;
+import com.ayuget.redface.data.api.hfr.PostsMinifier;
+import com.ayuget.redface.data.api.hfr.transforms.HTMLToPostList;
+import com.ayuget.redface.data.api.model.Post;
+import com.ayuget.redface.ui.misc.ThemeManager;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = Build.VERSION_CODES.LOLLIPOP)
+public class PostsTemplateTest extends BaseTestCase {
+    private Context context;
+
+    private AvatarTemplate avatarTemplate;
+
+    private PostExtraDetailsTemplate extraDetailsTemplate;
+
+    private PostActionsTemplate postActionsTemplate;
+
+    private QuickActionsTemplate quickActionsTemplate;
+
+    private PostTemplate postTemplate;
+
+    private PostsTemplate postsTemplate;
+
+    private ThemeManager themeManager;
+
+    private List<Post> posts;
+
+    @Before
+    public void setUp() throws IOException {
+        context = RuntimeEnvironment.application;
+
+        UserManager userManager = mock(UserManager.class);
+        when(userManager.isActiveUserLoggedIn()).thenReturn(true);
+        when(userManager.isActiveUser(anyString())).thenReturn(false);
+
+        themeManager = mock(ThemeManager.class);
+        when(themeManager.getActiveThemeCssClass()).thenReturn("theme-light");
+        when(themeManager.getFontSizeCssClass()).thenReturn("font-normal");
+
+        PostsMinifier postsMinifier = new PostsMinifier();
+
+        avatarTemplate = new AvatarTemplate(context, postsMinifier);
+        extraDetailsTemplate = new PostExtraDetailsTemplate(context, postsMinifier);
+        postActionsTemplate = new PostActionsTemplate(context, postsMinifier, userManager);
+        quickActionsTemplate = new QuickActionsTemplate(context, postsMinifier, userManager);
+
+        postTemplate = new PostTemplate(context, postsMinifier, userManager, avatarTemplate, extraDetailsTemplate, postActionsTemplate, quickActionsTemplate);
+        postsTemplate = new PostsTemplate(context, postsMinifier, postTemplate, themeManager);
+
+        posts = new HTMLToPostList().call(readAssetFile("hfr_posts_page.html"));
+    }
+
+    @Test
+    public void test_renderPosts() {
+        String page = postsTemplate.render(posts);
+
+        assertThat(page).startsWith("<!doctype html>");
+        assertThat(page).contains("<body class=\"theme-light font-normal\">");
+
+        for (Post post : posts) {
+            assertThat(page).contains("<div class=\"post\" id=\"post" + post.getId() + "\">");
+            assertThat(page).contains(post.getHtmlContent());
+        }
+    }
+
+    @Test
+    public void test_replaceThemeClass() {
+        String page = postsTemplate.render(posts);
+
+        when(themeManager.getActiveThemeCssClass()).thenReturn("theme-dark");
+        when(themeManager.getFontSizeCssClass()).thenReturn("font-big");
+
+        assertThat(postsTemplate.replaceThemeClass(page, "theme-light font-normal", postsTemplate.getThemeClass())).isEqualTo(postsTemplate.render(posts));
+        assertThat(postsTemplate.replaceThemeClass(page, "theme-night font-normal", postsTemplate.getThemeClass())).isNull();
+    }
+
+    @Test
+    public void test_renderPostLikePhrase() {
+        PhrasePostRenderer phrasePostRenderer = new PhrasePostRenderer(postTemplate, avatarTemplate, extraDetailsTemplate, postActionsTemplate, quickActionsTemplate);
+
+        for (Post post : posts) {
+            StringBuilder expected = new StringBuilder();
+            phrasePostRenderer.render(post, expected);
+
+            assertThat(postTemplate.render(post)).isEqualTo(expected.toString());
+        }
+    }
+}
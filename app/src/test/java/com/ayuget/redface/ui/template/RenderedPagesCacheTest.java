@@ -0,0 +1,296 @@
+/*
+ * Copyright 2015 Ayuget
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ayuget.redface.ui.template;
+
+import android.os.Build;
+
+import com.ayuget.redface.BaseTestCase;
+import com.ayuget.redface.BuildConfig;
+import com.ayuget.redface.data.api.hfr.PostsTweaker;
+import com.ayuget.redface.data.api.hfr.transforms.HTMLToPostList;
+import com.ayuget.redface.data.api.model.Guest;
+import com.ayuget.redface.data.api.model.Post;
+import com.ayuget.redface.data.api.model.Topic;
+import com.ayuget.redface.data.api.model.User;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.IOException;
+import java.util.List;
+
+import rx.Observable;
+import rx.functions.Action0;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = Build.VERSION_CODES.LOLLIPOP)
+public class RenderedPagesCacheTest extends BaseTestCase {
+    private static final int CACHE_SIZE = 10 * 1024 * 1024;
+
+    private static final long MAX_AGE = 60 * 1000;
+
+    private User user;
+
+    private Topic topic;
+
+    private List<Post> posts;
+
+    private int loadsCount;
+
+    @Before
+    public void setUp() throws IOException {
+        user = new User("Ayuget", "password");
+        topic = new Topic(29169);
+        posts = new HTMLToPostList().call(readAssetFile("hfr_posts_page.html"));
+        loadsCount = 0;
+    }
+
+    private RenderedPagesCache newCache(int maxSize, int maxCompressedSize) {
+        return new RenderedPagesCache(maxSize, maxCompressedSize, MAX_AGE);
+    }
+
+    private Observable<RenderedPage> loader(final RenderedPage page) {
+        return Observable.just(page).doOnSubscribe(new Action0() {
+            @Override
+            public void call() {
+                loadsCount++;
+            }
+        });
+    }
+
+    private RenderedPage load(RenderedPagesCache cache, User user, int page, RenderedPage loadedPage) {
+        return cache.load(user, topic, page, PostsTweaker.Mode.DEFAULT, loader(loadedPage)).toBlocking().single();
+    }
+
+    @Test
+    public void test_cachedPageIsNotLoadedAgain() {
+        RenderedPagesCache cache = newCache(CACHE_SIZE, 0);
+        RenderedPage page = RenderedPage.forPage(posts, "<html>page 1</html>", "theme-light font-normal");
+
+        assertThat(load(cache, user, 1, page)).isSameAs(page);
+        assertThat(load(cache, user, 1, page)).isSameAs(page);
+        assertThat(loadsCount).isEqualTo(1);
+
+        load(cache, user, 2, page);
+        assertThat(loadsCount).isEqualTo(2);
+    }
+
+    @Test
+    public void test_pagesAreCachedPerUser() {
+        RenderedPagesCache cache = newCache(CACHE_SIZE, 0);
+        RenderedPage page = RenderedPage.forPage(posts, "<html>page 1</html>", "theme-light font-normal");
+
+        load(cache, user, 1, page);
+        load(cache, new Guest(), 1, page);
+        load(cache, user, 1, page);
+        assertThat(loadsCount).isEqualTo(2);
+    }
+
+    @Test
+    public void test_pagesAreCachedPerMode() {
+        RenderedPagesCache cache = newCache(CACHE_SIZE, 0);
+        RenderedPage page = RenderedPage.forPage(posts, "<html>page 1</html>", "theme-light font-normal");
+
+        load(cache, user, 1, page);
+        cache.load(user, topic, 1, PostsTweaker.Mode.DATA_SAVER, loader(page)).toBlocking().single();
+        assertThat(loadsCount).isEqualTo(2);
+    }
+
+    @Test
+    public void test_evictedPageIsLoadedAgain() {
+        RenderedPagesCache cache = newCache(CACHE_SIZE, CACHE_SIZE);
+        RenderedPage page = RenderedPage.forPage(posts, "<html>page 1</html>", "theme-light font-normal");
+
+        load(cache, user, 1, page);
+        load(cache, new Guest(), 1, page);
+        cache.evict(topic, 1);
+
+        load(cache, user, 1, page);
+        load(cache, new Guest(), 1, page);
+        assertThat(loadsCount).isEqualTo(4);
+    }
+
+    @Test
+    public void test_expiredPageIsLoadedAgain() {
+        RenderedPagesCache cache = new RenderedPagesCache(CACHE_SIZE, CACHE_SIZE, 0);
+        RenderedPage page = RenderedPage.forPage(posts, "<html>page 1</html>", "theme-light font-normal");
+
+        load(cache, user, 1, page);
+        load(cache, user, 1, page);
+        assertThat(loadsCount).isEqualTo(2);
+        assertThat(cache.getHitRate()).isEqualTo(0f);
+    }
+
+    @Test
+    public void test_evictedTopicIsLoadedAgain() {
+        RenderedPagesCache cache = newCache(CACHE_SIZE, CACHE_SIZE);
+        RenderedPage page = RenderedPage.forPage(posts, "<html>page 1</html>", "theme-light font-normal");
+
+        load(cache, user, 1, page);
+        load(cache, user, 2, page);
+        cache.evict(topic);
+
+        load(cache, user, 1, page);
+        load(cache, user, 2, page);
+        assertThat(loadsCount).isEqualTo(4);
+    }
+
+    @Test
+    public void test_updatedPageReplacesCachedPage() {
+        RenderedPagesCache cache = newCache(CACHE_SIZE, 0);
+        RenderedPage page = RenderedPage.forPage(posts, "<html>page 1</html>", "theme-light font-normal");
+        RenderedPage refreshedPage = RenderedPage.forPage(posts, "<html>page 1, refreshed</html>", "theme-light font-normal");
+
+        load(cache, user, 1, page);
+        cache.update(user, topic, 1, PostsTweaker.Mode.DEFAULT, loader(refreshedPage)).toBlocking().single();
+
+        assertThat(load(cache, user, 1, page)).isSameAs(refreshedPage);
+        assertThat(loadsCount).isEqualTo(2);
+    }
+
+    @Test
+    public void test_deletedPostIsRemovedFromCachedPage() {
+        RenderedPagesCache cache = newCache(CACHE_SIZE, 0);
+        RenderedPage page = RenderedPage.forPageShell(posts.subList(0, 3), new String[] {"{\"id\":1", "{\"id\":2", "{\"id\":3"}, new long[] {41, 42, 43});
+
+        load(cache, user, 1, page);
+        cache.removePost(topic, 1, posts.get(1).getId());
+
+        RenderedPage cachedPage = load(cache, user, 1, page);
+
+        assertThat(loadsCount).isEqualTo(1);
+        assertThat(cachedPage.getPosts()).hasSize(2);
+        assertThat(cachedPage.getPosts().get(1).getId()).isEqualTo(posts.get(2).getId());
+        assertThat(cachedPage.getPostObject(1)).isEqualTo("{\"id\":3");
+        assertThat(cachedPage.getPostHash(1)).isEqualTo(43);
+    }
+
+    @Test
+    public void test_deletedPostEvictsWholeCachedPage() {
+        RenderedPagesCache cache = newCache(CACHE_SIZE, 0);
+        RenderedPage page = RenderedPage.forPage(posts, "<html>page 1</html>", "theme-light font-normal");
+
+        load(cache, user, 1, page);
+        cache.removePost(topic, 1, posts.get(1).getId());
+
+        load(cache, user, 1, page);
+        assertThat(loadsCount).isEqualTo(2);
+    }
+
+    @Test
+    public void test_editedPostIsReplacedInCachedPage() {
+        RenderedPagesCache cache = newCache(CACHE_SIZE, 0);
+        RenderedPage page = RenderedPage.forPageShell(posts.subList(0, 3), new String[] {"{\"id\":1", "{\"id\":2", "{\"id\":3"}, new long[] {41, 42, 43});
+        RenderedPage editedPost = RenderedPage.forPageShell(posts.subList(1, 2), new String[] {"{\"id\":2,\"edited\":true"}, new long[] {52});
+
+        load(cache, user, 1, page);
+        cache.replacePost(topic, 1, PostsTweaker.Mode.DEFAULT, editedPost);
+
+        RenderedPage cachedPage = load(cache, user, 1, page);
+
+        assertThat(loadsCount).isEqualTo(1);
+        assertThat(cachedPage.getPosts()).hasSize(3);
+        assertThat(cachedPage.getPostObject(1)).isEqualTo("{\"id\":2,\"edited\":true");
+        assertThat(cachedPage.getPostHash(1)).isEqualTo(52);
+        assertThat(cachedPage.getPostHash(2)).isEqualTo(43);
+        assertThat(page.getPostHash(1)).isEqualTo(42);
+    }
+
+    @Test
+    public void test_editedPostEvictsPagesWhichCantBePatched() {
+        RenderedPagesCache cache = newCache(CACHE_SIZE, 0);
+        RenderedPage page = RenderedPage.forPage(posts, "<html>page 1</html>", "theme-light font-normal");
+        RenderedPage editedPost = RenderedPage.forPageShell(posts.subList(1, 2), new String[] {"{\"id\":2"}, new long[] {52});
+
+        load(cache, user, 1, page);
+        cache.replacePost(topic, 1, PostsTweaker.Mode.DEFAULT, editedPost);
+
+        load(cache, user, 1, page);
+        assertThat(loadsCount).isEqualTo(2);
+
+        // Post tweaked with another mode than the cached page
+        RenderedPage shellPage = RenderedPage.forPageShell(posts.subList(0, 3), new String[] {"{\"id\":1", "{\"id\":2", "{\"id\":3"}, new long[] {41, 42, 43});
+        load(cache, user, 2, shellPage);
+        cache.replacePost(topic, 2, PostsTweaker.Mode.DATA_SAVER, editedPost);
+
+        load(cache, user, 2, shellPage);
+        assertThat(loadsCount).isEqualTo(4);
+    }
+
+    @Test
+    public void test_onlyCompletePagesAreCached() {
+        RenderedPagesCache cache = newCache(CACHE_SIZE, 0);
+        RenderedPage empty = RenderedPage.forPageShell(posts.subList(0, 0), new String[0], new long[0]);
+        RenderedPage firstPosts = empty.append(RenderedPage.forPageShell(posts.subList(0, 1), new String[] {"{\"id\":1"}, new long[] {41}));
+        RenderedPage allPosts = firstPosts.append(RenderedPage.forPageShell(posts.subList(1, 2), new String[] {"{\"id\":2"}, new long[] {42}));
+
+        assertThat(firstPosts.isComplete()).isFalse();
+        assertThat(allPosts.getPosts()).hasSize(2);
+        assertThat(allPosts.getPostHash(1)).isEqualTo(42);
+
+        List<RenderedPage> emittedPages = cache.load(user, topic, 1, PostsTweaker.Mode.DEFAULT, Observable.just(firstPosts, allPosts.complete())).toList().toBlocking().single();
+        assertThat(emittedPages).hasSize(2);
+
+        RenderedPage cachedPage = load(cache, user, 1, firstPosts);
+        assertThat(loadsCount).isEqualTo(0);
+        assertThat(cachedPage.isComplete()).isTrue();
+        assertThat(cachedPage.getPosts()).hasSize(2);
+
+        cache.evict(topic, 1);
+        cache.load(user, topic, 1, PostsTweaker.Mode.DEFAULT, Observable.just(firstPosts)).toBlocking().single();
+        load(cache, user, 1, firstPosts);
+        assertThat(loadsCount).isEqualTo(1);
+    }
+
+    @Test
+    public void test_pagesEvictedFromMemoryAreKeptCompressed() {
+        RenderedPage page = RenderedPagesCache.decompress(RenderedPagesCache.compress(RenderedPage.forPage(posts, "<html>page 1</html>", "theme-light font-normal")));
+        // Room for a single page in memory
+        RenderedPagesCache cache = newCache(3 * page.getLength(), CACHE_SIZE);
+
+        load(cache, user, 1, page);
+        load(cache, user, 2, RenderedPage.forPage(posts, "<html>page 2</html>", "theme-light font-normal"));
+
+        RenderedPage cachedPage = load(cache, user, 1, page);
+
+        assertThat(loadsCount).isEqualTo(2);
+        assertThat(cachedPage).isNotEqualTo(page);
+        assertThat(cachedPage.getHtml()).isEqualTo(page.getHtml());
+        assertThat(cachedPage.getThemeClass()).isEqualTo(page.getThemeClass());
+        assertThat(cachedPage.getPosts()).hasSize(posts.size());
+        assertThat(cachedPage.getPosts().get(3).getId()).isEqualTo(posts.get(3).getId());
+        assertThat(cachedPage.getPosts().get(3).getHtmlContent()).isEqualTo(posts.get(3).getHtmlContent());
+        assertThat(cachedPage.getLength()).isEqualTo(page.getLength());
+    }
+
+    @Test
+    public void test_compressPageShell() {
+        RenderedPage page = RenderedPage.forPageShell(posts.subList(0, 2), new String[] {"{\"id\":1,\"html\":\"a\"", "{\"id\":2,\"html\":\"b\""}, new long[] {42, 43});
+
+        RenderedPage decompressedPage = RenderedPagesCache.decompress(RenderedPagesCache.compress(page));
+
+        assertThat(decompressedPage.isForPageShell()).isTrue();
+        assertThat(decompressedPage.getHtml()).isNull();
+        assertThat(decompressedPage.getPostObject(1)).isEqualTo(page.getPostObject(1));
+        assertThat(decompressedPage.getPostHash(1)).isEqualTo(43);
+    }
+}
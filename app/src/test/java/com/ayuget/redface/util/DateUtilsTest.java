@@ -0,0 +1,99 @@
+/*
+ * Copyright 2015 Ayuget
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ayuget.redface.util;
+
+import android.os.Build;
+
+import com.ayuget.redface.BaseTestCase;
+import com.ayuget.redface.BuildConfig;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = Build.VERSION_CODES.LOLLIPOP)
+public class DateUtilsTest extends BaseTestCase {
+    private static long calendarMillis(int year, int month, int day, int hours, int minutes, int seconds) {
+        Calendar calendar = new GregorianCalendar(DateUtils.FORUM_TIME_ZONE);
+        calendar.clear();
+        calendar.set(year, month - 1, day, hours, minutes, seconds);
+        return calendar.getTimeInMillis();
+    }
+
+    private static long parse(String date) {
+        return DateUtils.parseHTMLDate(date, 0, date.length());
+    }
+
+    @Test
+    public void test_parsePostDate() {
+        assertThat(parse("19-02-2015&nbsp;&agrave;&nbsp;20:14:31")).isEqualTo(calendarMillis(2015, 2, 19, 20, 14, 31));
+        assertThat(parse("20-08-2010&nbsp;&agrave;&nbsp;11:53:34")).isEqualTo(calendarMillis(2010, 8, 20, 11, 53, 34));
+    }
+
+    @Test
+    public void test_parseDateWithoutSeconds() {
+        assertThat(parse("24-02-2015&nbsp;&agrave;&nbsp;07:08</a>")).isEqualTo(calendarMillis(2015, 2, 24, 7, 8, 0));
+    }
+
+    @Test
+    public void test_parseDateWithinBounds() {
+        String source = "Posté le 19-02-2015&nbsp;&agrave;&nbsp;20:14:31 - 12";
+        int start = source.indexOf('1');
+
+        assertThat(DateUtils.parseHTMLDate(source, start, source.indexOf(" -"))).isEqualTo(calendarMillis(2015, 2, 19, 20, 14, 31));
+        assertThat(DateUtils.parseHTMLDate(source, start, source.indexOf(":"))).isEqualTo(DateUtils.INVALID_DATE);
+    }
+
+    @Test
+    public void test_parseDaylightSavingTimeTransitions() {
+        // Summer time starts on 29-03-2015 at 02:00, ends on 25-10-2015 at 03:00
+        assertThat(parse("29-03-2015 01:59:59")).isEqualTo(calendarMillis(2015, 3, 29, 1, 59, 59));
+        assertThat(parse("29-03-2015 02:30:00")).isEqualTo(calendarMillis(2015, 3, 29, 2, 30, 0));
+        assertThat(parse("29-03-2015 03:00:00")).isEqualTo(calendarMillis(2015, 3, 29, 3, 0, 0));
+        assertThat(parse("25-10-2015 01:59:59")).isEqualTo(calendarMillis(2015, 10, 25, 1, 59, 59));
+        assertThat(parse("25-10-2015 02:30:00")).isEqualTo(calendarMillis(2015, 10, 25, 2, 30, 0));
+        assertThat(parse("25-10-2015 03:00:00")).isEqualTo(calendarMillis(2015, 10, 25, 3, 0, 0));
+    }
+
+    @Test
+    public void test_parseEveryHourOfAYear() {
+        for (int month = 1; month <= 12; month++) {
+            for (int day = 1; day <= 28; day++) {
+                for (int hours = 0; hours < 24; hours++) {
+                    String date = String.format("%02d-%02d-2016&nbsp;&agrave;&nbsp;%02d:17:42", day, month, hours);
+                    assertThat(parse(date)).as(date).isEqualTo(calendarMillis(2016, month, day, hours, 17, 42));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void test_parseInvalidDates() {
+        assertThat(parse("")).isEqualTo(DateUtils.INVALID_DATE);
+        assertThat(parse("19-02-2015")).isEqualTo(DateUtils.INVALID_DATE);
+        assertThat(parse("19-02-2015&nbsp;&agrave;&nbsp;20")).isEqualTo(DateUtils.INVALID_DATE);
+        assertThat(parse("19/02/2015 20:14:31")).isEqualTo(DateUtils.INVALID_DATE);
+        assertThat(parse("19-13-2015 20:14:31")).isEqualTo(DateUtils.INVALID_DATE);
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2015 Ayuget
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ayuget.redface.util;
+
+import android.os.Build;
+
+import com.ayuget.redface.BaseTestCase;
+import com.ayuget.redface.BuildConfig;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = Build.VERSION_CODES.LOLLIPOP)
+public class HTMLUtilsTest extends BaseTestCase {
+    @Test
+    public void test_inputWithoutEntityIsReturnedAsIs() {
+        String subject = "[Topic Unique] Samsung Galaxy S6";
+        assertThat(HTMLUtils.decodeEntities(subject)).isSameAs(subject);
+
+        String unknownEntity = "Tom & Jerry &unknown; &#;";
+        assertThat(HTMLUtils.decodeEntities(unknownEntity)).isSameAs(unknownEntity);
+    }
+
+    @Test
+    public void test_decodeNamedEntities() {
+        assertThat(HTMLUtils.decodeEntities("Hardware &amp; Périphériques")).isEqualTo("Hardware & Périphériques");
+        assertThat(HTMLUtils.decodeEntities("&lt;b&gt;")).isEqualTo("<b>");
+        assertThat(HTMLUtils.decodeEntities("5 &euro;")).isEqualTo("5 €");
+        assertThat(HTMLUtils.decodeEntities("&eacute;t&eacute; &agrave; l&rsquo;h&ocirc;tel")).isEqualTo("été à l’hôtel");
+    }
+
+    @Test
+    public void test_decodeNumericEntities() {
+        assertThat(HTMLUtils.decodeEntities("&#034;Quoted&#034;")).isEqualTo("\"Quoted\"");
+        assertThat(HTMLUtils.decodeEntities("&#x27;&#X41;&#233;")).isEqualTo("'Aé");
+        assertThat(HTMLUtils.decodeEntities("&#x1F600;")).isEqualTo(new String(Character.toChars(0x1F600)));
+    }
+
+    @Test
+    public void test_entitiesAreDecodedOnce() {
+        assertThat(HTMLUtils.decodeEntities("&amp;lt;")).isEqualTo("&lt;");
+    }
+
+    @Test
+    public void test_malformedEntitiesAreKept() {
+        assertThat(HTMLUtils.decodeEntities("&amp")).isEqualTo("&amp");
+        assertThat(HTMLUtils.decodeEntities("&#xZZ; &#0; &#xD800; &amp;")).isEqualTo("&#xZZ; &#0; &#xD800; &");
+        assertThat(HTMLUtils.decodeEntities("& &amp; ;")).isEqualTo("& & ;");
+    }
+}
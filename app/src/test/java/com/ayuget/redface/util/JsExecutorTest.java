@@ -0,0 +1,49 @@
+/*
+ * Copyright 2015 Ayuget
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ayuget.redface.util;
+
+import com.ayuget.redface.BaseTestCase;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class JsExecutorTest extends BaseTestCase {
+    private static String toStringLiteral(String value) {
+        StringBuilder stream = new StringBuilder();
+        JsExecutor.appendStringLiteral(stream, value);
+        return stream.toString();
+    }
+
+    @Test
+    public void test_plainStringIsQuoted() {
+        assertThat(toStringLiteral("")).isEqualTo("\"\"");
+        assertThat(toStringLiteral("<div class='post'>Hé !</div>")).isEqualTo("\"<div class='post'>Hé !</div>\"");
+    }
+
+    @Test
+    public void test_specialCharactersAreEscaped() {
+        assertThat(toStringLiteral("<a onclick=\"handleUrl(event, 42, 'http://a')\">")).isEqualTo("\"<a onclick=\\\"handleUrl(event, 42, 'http://a')\\\">\"");
+        assertThat(toStringLiteral("a\\b\nc\r\td")).isEqualTo("\"a\\\\b\\nc\\r\\td\"");
+        assertThat(toStringLiteral("\u0001 \u2028 \u2029")).isEqualTo("\"\\u0001 \\u2028 \\u2029\"");
+    }
+
+    @Test
+    public void test_percentIsEscaped() {
+        assertThat(toStringLiteral("100%20")).isEqualTo("\"100\\u002520\"");
+    }
+}